@@ -0,0 +1,114 @@
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures how long GameCanvas takes to paint, off screen, so it runs
+ * without a display. A full repaint of the board is compared with the dirty
+ * regions the canvas asks to repaint on each animation frame: one word slot
+ * while a letter fades in, one wrong guess, and the stick figure while it
+ * fades to its next frame. Each must fit well within the 16 ms of a 60 fps frame.
+ * Run from the repository root so the stick figure assets are found.
+ *
+ * Arguments: [paints per case].
+ */
+public class CanvasPaintBenchmark
+{
+    private static final int ART_WIDTH = (int) (StickFigure.WIDTH * 0.27);
+    private static final int ART_HEIGHT = (int) (StickFigure.HEIGHT * 0.27);
+
+    public static void main(String[] args) throws Exception
+    {
+        int paints = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        System.setProperty("java.awt.headless", "true");
+        SwingUtilities.invokeAndWait(() -> run(paints));
+        System.out.println("OK");
+    }
+
+    /**
+     * Plays a few moves on a canvas and times its paints. Runs on the event
+     * dispatch thread, as painting does in the game.
+     */
+    private static void run(int paints)
+    {
+        StickFigureFrames frames = new StickFigureFrames(ART_WIDTH, ART_HEIGHT,
+                Runnable::run);
+        GameCanvas canvas = new GameCanvas(frames, ART_WIDTH, ART_HEIGHT);
+        Dimension size = canvas.getPreferredSize();
+        canvas.setSize(size);
+        BufferedImage target = new BufferedImage(size.width, size.height,
+                BufferedImage.TYPE_INT_RGB);
+        canvas.startGame("____________".toCharArray(), 7, 0);
+        time(canvas, target, new Rectangle(size), paints, "full board");
+
+        DirtyRecorder recorder = new DirtyRecorder();
+        RepaintManager.setCurrentManager(recorder);
+        canvas.revealLetter('R', 1L);
+        time(canvas, target, dirtyRegion(recorder), paints, "letter slot");
+        canvas.addWrongGuess('E');
+        time(canvas, target, dirtyRegion(recorder), paints, "wrong guess");
+        canvas.showFigure(1);
+        time(canvas, target, dirtyRegion(recorder), paints, "stick figure");
+    }
+
+    /**
+     * Gets the region the canvas marked dirty since the last call.
+     */
+    private static Rectangle dirtyRegion(DirtyRecorder recorder)
+    {
+        Rectangle region = recorder.region;
+        if (region == null) throw new AssertionError("Nothing was repainted");
+        recorder.region = null;
+        return region;
+    }
+
+    /**
+     * Times paints of the canvas clipped to a region and prints the median
+     * and worst times.
+     */
+    private static void time(GameCanvas canvas, BufferedImage target,
+            Rectangle clip, int paints, String name)
+    {
+        long[] nanos = new long[paints];
+        for (int i = 0; i < paints; i++)
+        {
+            Graphics2D g = target.createGraphics();
+            g.setClip(clip);
+            long start = System.nanoTime();
+            canvas.paint(g);
+            nanos[i] = System.nanoTime() - start;
+            g.dispose();
+        }
+        // * the first half warms up
+        Arrays.sort(nanos, paints / 2, paints);
+        long p50 = nanos[paints / 2 + paints / 4];
+        long max = nanos[paints - 1];
+        System.out.printf("%-13s %4dx%-4d p50 %,8d ns  max %,10d ns  "
+                + "(%.2f%% of a frame)%n", name, clip.width, clip.height, p50,
+                max, 100.0 * p50 / GameMetrics.FRAME_NANOS);
+        if (p50 > GameMetrics.FRAME_NANOS)
+            throw new AssertionError(name + " takes longer than a frame");
+    }
+
+    /**
+     * A repaint manager that records the regions marked dirty instead of
+     * painting them.
+     */
+    private static class DirtyRecorder extends RepaintManager
+    {
+        private Rectangle region;
+
+        @Override
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h)
+        {
+            Rectangle dirty = new Rectangle(x, y, w, h);
+            region = region == null ? dirty : region.union(dirty);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stress test in the style of jcstress for ConcurrentHangmanGame. Each round
+ * races several writer threads guessing letters against a reader thread that
+ * checks every snapshot it sees. At the end of a round the final state must
+ * equal the guesses replayed one by one in the order the snapshot recorded.
+ * Outcomes are counted by how the round ended.
+ *
+ * Arguments: [rounds] [writers].
+ */
+public class ConcurrentGameStress
+{
+    private static final String WORD = "Recalcitrant";
+    private static final int MAX_ATTEMPTS = 6;
+
+    public static void main(String[] args) throws Exception
+    {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        TreeMap<String, Integer> outcomes = new TreeMap<String, Integer>();
+        AtomicLong snapshotsChecked = new AtomicLong();
+        for (int round = 0; round < rounds; round++)
+        {
+            String outcome = runRound(round, writers, snapshotsChecked);
+            outcomes.merge(outcome, 1, Integer::sum);
+        }
+
+        System.out.printf("%,d rounds, %d writers, %,d snapshots checked%n",
+                rounds, writers, snapshotsChecked.get());
+        for (String outcome : outcomes.keySet())
+        {
+            System.out.printf("%-28s %,10d%n", outcome, outcomes.get(outcome));
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Runs one round and checks its result.
+     *
+     * @return a description of how the round ended.
+     */
+    private static String runRound(int round, int writers,
+            AtomicLong snapshotsChecked) throws Exception
+    {
+        ConcurrentHangmanGame game = new ConcurrentHangmanGame(
+                Difficulty.HARD, MAX_ATTEMPTS, WORD);
+        CyclicBarrier start = new CyclicBarrier(writers + 1);
+        AtomicBoolean done = new AtomicBoolean();
+        Throwable[] failure = new Throwable[1];
+
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++)
+        {
+            // * every writer walks the alphabet from a different offset so
+            // their guesses overlap and interleave
+            int offset = (round + w * 7) % 26;
+            threads[w] = new Thread(() ->
+            {
+                await(start);
+                for (int i = 0; i < 26; i++)
+                {
+                    try
+                    {
+                        game.playerMove((char) ('a' + (offset + i) % 26));
+                    }
+                    catch (IllegalStateException e)
+                    {
+                        return;
+                    }
+                    catch (InvalidGuessException e)
+                    {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+            threads[w].start();
+        }
+
+        Thread reader = new Thread(() ->
+        {
+            try
+            {
+                while (!done.get())
+                {
+                    checkConsistent(game.snapshot());
+                    snapshotsChecked.incrementAndGet();
+                }
+            }
+            catch (Throwable t)
+            {
+                failure[0] = t;
+            }
+        });
+        reader.start();
+        await(start);
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        done.set(true);
+        reader.join();
+        if (failure[0] != null) throw new AssertionError(failure[0]);
+
+        GameSnapshot last = game.snapshot();
+        checkConsistent(last);
+        GameSnapshot replayed = GameSnapshot.start(WORD, MAX_ATTEMPTS);
+        for (char c : last.getGuesses().toCharArray())
+        {
+            replayed = replayed.afterGuess(c);
+        }
+        if (!replayed.getCurrentGuess().equals(last.getCurrentGuess())
+                || !replayed.getWrongGuesses().equals(last.getWrongGuesses())
+                || replayed.getAttemptsLeft() != last.getAttemptsLeft())
+            throw new AssertionError("Replay of " + last.getGuesses()
+                    + " does not match the final state");
+
+        return (last.didPlayerWin() ? "won" : "lost") + " after "
+                + last.getGuesses().length() + " guesses";
+    }
+
+    /**
+     * Checks that every value in a snapshot agrees with the others.
+     *
+     * @param s The snapshot to check.
+     */
+    private static void checkConsistent(GameSnapshot s)
+    {
+        int wrong = s.getWrongGuesses().length();
+        if (s.getAttemptsLeft() != s.getMaxAttempts() - wrong)
+            throw new AssertionError("attempts left torn: " + describe(s));
+        if (Integer.bitCount(s.getWrongMask()) != wrong)
+            throw new AssertionError("wrong mask torn: " + describe(s));
+        if (Integer.bitCount(s.getGuessedMask()) != s.getGuesses().length())
+            throw new AssertionError("guessed mask torn: " + describe(s));
+        for (int i = 0; i < WORD.length(); i++)
+        {
+            boolean revealed = s.getCurrentGuess().charAt(i) != '_';
+            if (revealed != s.hasGuessed(WORD.charAt(i)))
+                throw new AssertionError("current guess torn: " + describe(s));
+        }
+    }
+
+    private static String describe(GameSnapshot s)
+    {
+        return s.getCurrentGuess() + " guesses=" + s.getGuesses() + " wrong="
+                + s.getWrongGuesses() + " attempts=" + s.getAttemptsLeft();
+    }
+
+    private static void await(CyclicBarrier barrier)
+    {
+        try
+        {
+            barrier.await();
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
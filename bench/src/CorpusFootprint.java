@@ -0,0 +1,62 @@
+import java.util.ArrayList;
+
+/**
+ * Measures the heap taken per word by a list of Strings, the way WordList
+ * used to hold its words, and by the packed WordCorpus. Run with a heap large
+ * enough for the String list, for example -Xmx3g for 10M words.
+ *
+ * Arguments: the word counts to measure, 1M and 10M by default.
+ */
+public class CorpusFootprint
+{
+    public static void main(String[] args)
+    {
+        int[] sizes = { 1_000_000, 10_000_000 };
+        if (args.length > 0)
+        {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%12s %16s %16s %12s%n", "words", "String list",
+                "packed corpus", "ratio");
+        for (int size : sizes)
+        {
+            long baseline = usedHeap();
+            ArrayList<String> words = EngineBenchmarks.syntheticWords(size);
+            long listBytes = usedHeap() - baseline;
+
+            WordCorpus corpus = WordCorpus.of(words);
+            words = null;
+            long corpusBytes = usedHeap() - baseline;
+
+            System.out.printf("%,12d %13.1f B/w %13.1f B/w %11.1f%%%n", size,
+                    (double) listBytes / size, (double) corpusBytes / size,
+                    100.0 * corpusBytes / listBytes);
+            System.out.printf("%12s %16s %13.1f B/w (estimated)%n", "", "",
+                    (double) corpus.getFootprintBytes() / corpus.size());
+            corpus = null;
+        }
+    }
+
+    /**
+     * Gets the heap in use after collecting garbage.
+     *
+     * @return the used heap in bytes.
+     */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // * collect a few times until the number settles
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
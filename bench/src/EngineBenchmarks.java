@@ -0,0 +1,214 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * The benchmark suite for word selection and the game engine. Results are
+ * printed and written as JSON to the path given as the first argument.
+ */
+public class EngineBenchmarks
+{
+    // * letters ordered by how often they appear in English words
+    private static final char[] GUESS_ORDER = "etaoinshrdlcumwfgypbvkjxqz"
+            .toCharArray();
+    private static final int[] CORPUS_SIZES = { 40, 10_000, 1_000_000 };
+    private static final double[] EXHAUSTION_LEVELS = { 0.0, 0.5, 0.99 };
+
+    public static void main(String[] args) throws Exception
+    {
+        Path output = Paths.get(
+                args.length > 0 ? args[0] : "bench-results.json");
+        Harness harness = new Harness(5, 5, 200);
+
+        benchmarkWordList(harness);
+        benchmarkGameEngine(harness);
+        benchmarkFullGames(harness);
+
+        harness.writeJson(output);
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    /**
+     * Benchmarks WordList construction and word selection.
+     *
+     * @param harness The harness to run the benchmarks on.
+     */
+    private static void benchmarkWordList(Harness harness)
+    {
+        for (Difficulty difficulty : Difficulty.values())
+        {
+            harness.averageTime("WordList.new", "difficulty=" + difficulty,
+                    () -> new WordList(difficulty).hashCode());
+        }
+
+        for (int size : CORPUS_SIZES)
+        {
+            WordList wordList = new WordList(syntheticCorpus(size),
+                    new SplittableRandom(1));
+            harness.averageTime("WordList.getRandomWordFromList",
+                    "corpusSize=" + size,
+                    () -> wordList.getRandomWordFromList().length());
+        }
+
+        // * time the draws made once a fraction of a large list is used up
+        int size = CORPUS_SIZES[CORPUS_SIZES.length - 1];
+        WordCorpus corpus = syntheticCorpus(size);
+        int batchSize = size / 100;
+        for (double level : EXHAUSTION_LEVELS)
+        {
+            WordList[] holder = new WordList[1];
+            int used = (int) (size * level) - (level > 0 ? batchSize : 0);
+            harness.batchTime("WordList.getRandomWordFromList.exhausted",
+                    "corpusSize=" + size + ",exhaustion=" + level, () ->
+                    {
+                        holder[0] = new WordList(corpus,
+                                new SplittableRandom(1));
+                        for (int i = 0; i < used; i++)
+                        {
+                            holder[0].getRandomWordFromList();
+                        }
+                    }, () ->
+                    {
+                        long sum = 0;
+                        for (int i = 0; i < batchSize; i++)
+                        {
+                            sum += holder[0].getRandomWordFromList().length();
+                        }
+                        return sum;
+                    }, batchSize);
+        }
+    }
+
+    /**
+     * Benchmarks the individual game engine operations.
+     *
+     * @param harness The harness to run the benchmarks on.
+     */
+    private static void benchmarkGameEngine(Harness harness)
+    {
+        HangmanGame game = new FixedWordGame("Recalcitrant");
+        // * plays the word to the end, which takes 12 moves
+        harness.averageTime("HangmanGame.playerMove", "word=Recalcitrant",
+                () -> playGame(game));
+
+        game.startGame();
+        harness.averageTime("HangmanGame.didPlayerWin", "",
+                () -> game.didPlayerWin() ? 1 : 0);
+
+        for (int i = 0; i < 8; i++)
+        {
+            try
+            {
+                game.playerMove(GUESS_ORDER[i]);
+            }
+            catch (InvalidGuessException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+        harness.averageTime("HangmanGame.getAllGuessesMade", "",
+                () -> game.getAllGuessesMade().size());
+    }
+
+    /**
+     * Benchmarks complete games played with a fixed guessing order.
+     *
+     * @param harness The harness to run the benchmarks on.
+     */
+    private static void benchmarkFullGames(Harness harness)
+    {
+        for (Difficulty difficulty : Difficulty.values())
+        {
+            harness.averageTime("HangmanGame.fullGame",
+                    "difficulty=" + difficulty,
+                    () -> playGame(difficulty.newGame()));
+        }
+    }
+
+    /**
+     * Plays a game to the end, guessing letters by English frequency.
+     *
+     * @param game The game to play.
+     * @return the attempts left at the end of the game.
+     */
+    static int playGame(HangmanGame game)
+    {
+        game.startGame();
+        for (char c : GUESS_ORDER)
+        {
+            try
+            {
+                game.playerMove(c);
+            }
+            catch (InvalidGuessException e)
+            {
+                throw new IllegalStateException(e);
+            }
+            if (game.didPlayerWin() || game.isGameOver()) break;
+        }
+        return game.getAttemptsLeft();
+    }
+
+    /**
+     * Builds a corpus of distinct made-up words.
+     *
+     * @param size The number of words.
+     * @return the corpus.
+     */
+    static WordCorpus syntheticCorpus(int size)
+    {
+        return WordCorpus.of(syntheticWords(size));
+    }
+
+    /**
+     * Makes up distinct words of 4 to 14 letters.
+     *
+     * @param size The number of words.
+     * @return the words.
+     */
+    static ArrayList<String> syntheticWords(int size)
+    {
+        ArrayList<String> words = new ArrayList<String>(size);
+        SplittableRandom random = new SplittableRandom(size);
+        for (int i = 0; i < size; i++)
+        {
+            // * the index suffix keeps every word distinct
+            StringBuilder sb = new StringBuilder();
+            int length = 3 + random.nextInt(8);
+            for (int j = 0; j < length; j++)
+            {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            int n = i;
+            do
+            {
+                sb.append((char) ('a' + n % 26));
+                n /= 26;
+            }
+            while (n > 0);
+            words.add(sb.toString());
+        }
+        return words;
+    }
+
+    /**
+     * A game that always uses the same word.
+     */
+    static class FixedWordGame extends HangmanGame
+    {
+        private final String word;
+
+        FixedWordGame(String word)
+        {
+            super(Difficulty.HARD, 6);
+            this.word = word;
+        }
+
+        @Override
+        protected char[] chooseWord()
+        {
+            return word.toCharArray();
+        }
+    }
+}
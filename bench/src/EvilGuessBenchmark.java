@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Measures how long an EvilHangmanGame takes to handle a guess as the
+ * dictionary grows. Every word has the same length, so the whole dictionary
+ * is a candidate on the first guess.
+ *
+ * Arguments: the dictionary sizes to measure.
+ */
+public class EvilGuessBenchmark
+{
+    private static final int WORD_LENGTH = 8;
+    private static final int GAMES = 200;
+    private static final char[] GUESS_ORDER = "etaoinshrdlcumwfgypbvkjxqz"
+            .toCharArray();
+
+    public static void main(String[] args) throws Exception
+    {
+        int[] sizes = { 10_000, 100_000, 300_000, 1_000_000 };
+        if (args.length > 0)
+        {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        // * warm up the partitioning code on a mid-sized dictionary
+        run(50_000, false);
+        System.out.printf("%12s %14s %14s %14s%n", "words", "first guess",
+                "avg guess", "p99 guess");
+        for (int size : sizes)
+        {
+            run(size, true);
+        }
+    }
+
+    /**
+     * Plays games on a dictionary of the specified size.
+     *
+     * @param size  The number of words.
+     * @param print Whether to print the result.
+     */
+    private static void run(int size, boolean print) throws Exception
+    {
+        WordBuckets dictionary = new WordBuckets(syntheticCorpus(size));
+        dictionary.bucket(WORD_LENGTH);
+        SplittableRandom random = new SplittableRandom(size);
+
+        long firstGuessNanos = 0;
+        ArrayList<Long> guessNanos = new ArrayList<Long>();
+        for (int g = 0; g < GAMES; g++)
+        {
+            EvilHangmanGame game = new EvilHangmanGame(dictionary, random);
+            game.startGame();
+            for (int i = 0; i < GUESS_ORDER.length; i++)
+            {
+                long begin = System.nanoTime();
+                game.playerMove(GUESS_ORDER[i]);
+                long elapsed = System.nanoTime() - begin;
+                if (i == 0) firstGuessNanos += elapsed;
+                guessNanos.add(elapsed);
+                if (game.didPlayerWin() || game.isGameOver()) break;
+            }
+        }
+        if (!print) return;
+
+        long[] sorted = new long[guessNanos.size()];
+        long total = 0;
+        for (int i = 0; i < sorted.length; i++)
+        {
+            sorted[i] = guessNanos.get(i);
+            total += sorted[i];
+        }
+        Arrays.sort(sorted);
+        System.out.printf("%,12d %11.3f ms %11.3f ms %11.3f ms%n", size,
+                firstGuessNanos / 1e6 / GAMES, total / 1e6 / sorted.length,
+                sorted[(int) (sorted.length * 0.99)] / 1e6);
+    }
+
+    /**
+     * Makes up words of the benchmark length with uniformly random letters.
+     *
+     * @param size The number of words.
+     * @return the corpus.
+     */
+    private static WordCorpus syntheticCorpus(int size)
+    {
+        SplittableRandom random = new SplittableRandom(42);
+        ArrayList<String> words = new ArrayList<String>(size);
+        char[] word = new char[WORD_LENGTH];
+        for (int i = 0; i < size; i++)
+        {
+            for (int p = 0; p < WORD_LENGTH; p++)
+            {
+                word[p] = (char) ('a' + random.nextInt(26));
+            }
+            words.add(new String(word));
+        }
+        return WordCorpus.of(words);
+    }
+}
@@ -0,0 +1,84 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Measures how many games can be started per second, comparing the previous
+ * behavior of reading the word file for every game with the shared
+ * WordCorpus. Run from the repository root so the word assets resolve.
+ */
+public class GameStartBenchmark
+{
+    private static final long RUN_NANOS = 2_000_000_000L;
+    private static final Path WORDS_PATH = Paths.get("src", "assets", "words",
+            "words.txt");
+
+    public static void main(String[] args) throws Exception
+    {
+        // * warm up both paths before measuring
+        measure(GameStartBenchmark::startGameReadingFile);
+        measure(GameStartBenchmark::startGameSharedCorpus);
+
+        double before = measure(GameStartBenchmark::startGameReadingFile);
+        double after = measure(GameStartBenchmark::startGameSharedCorpus);
+
+        System.out.printf("per-game file read: %,.0f games/s%n", before);
+        System.out.printf("shared corpus:      %,.0f games/s%n", after);
+        System.out.printf("speedup:            %.1fx%n", after / before);
+    }
+
+    /**
+     * Runs the game start for a fixed amount of time.
+     *
+     * @param start The game start to measure.
+     * @return the number of games started per second.
+     */
+    private static double measure(GameStart start) throws IOException
+    {
+        long games = 0;
+        long begin = System.nanoTime();
+        long elapsed;
+        do
+        {
+            start.run();
+            games++;
+            elapsed = System.nanoTime() - begin;
+        }
+        while (elapsed < RUN_NANOS);
+        return games * 1e9 / elapsed;
+    }
+
+    /**
+     * Starts a game the way WordList used to, re-reading the word file.
+     */
+    private static void startGameReadingFile() throws IOException
+    {
+        ArrayList<String> words = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(
+                new FileReader(WORDS_PATH.toFile()));
+        String word;
+        while ((word = reader.readLine()) != null)
+        {
+            words.add(word);
+        }
+        reader.close();
+        words.get(new Random().nextInt(words.size())).toCharArray();
+    }
+
+    /**
+     * Starts a game backed by the shared corpus.
+     */
+    private static void startGameSharedCorpus()
+    {
+        new EasyHangmanGame().startGame();
+    }
+
+    private interface GameStart
+    {
+        void run() throws IOException;
+    }
+}
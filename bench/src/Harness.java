@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * A small benchmark harness that runs warmup and measurement iterations in
+ * the current JVM and writes the results as JSON in the same shape as JMH's
+ * -rf json output, so existing JMH result tooling can read and compare them.
+ *
+ * JMH itself is not used because it refuses benchmark classes in the default
+ * package, and the game classes can only be reached from the default package.
+ */
+public class Harness
+{
+    // Fields
+    private static final int CALLS_PER_CLOCK_READ = 64;
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final ArrayList<String> results = new ArrayList<String>();
+    private long sink;
+
+    /**
+     * An operation being measured. Returning a value that depends on the work
+     * done keeps the JIT from removing it.
+     */
+    public interface Operation
+    {
+        long run();
+    }
+
+    /**
+     * Constructs a Harness object.
+     *
+     * @param warmupIterations      The number of unmeasured iterations.
+     * @param measurementIterations The number of measured iterations.
+     * @param iterationMillis       The duration of each iteration.
+     */
+    public Harness(int warmupIterations, int measurementIterations,
+            long iterationMillis)
+    {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    /**
+     * Measures the average time of an operation by calling it repeatedly for
+     * the duration of each iteration.
+     *
+     * @param name      The benchmark name.
+     * @param params    The benchmark parameters as key=value pairs.
+     * @param operation The operation to measure.
+     */
+    public void averageTime(String name, String params, Operation operation)
+    {
+        for (int i = 0; i < warmupIterations; i++)
+        {
+            timeIteration(operation);
+        }
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++)
+        {
+            scores[i] = timeIteration(operation);
+        }
+        record(name, params, scores);
+    }
+
+    /**
+     * Measures the average time of each call in a batch. The setup runs before
+     * every iteration and is not timed, which lets a benchmark start each
+     * iteration from the same state.
+     *
+     * @param name      The benchmark name.
+     * @param params    The benchmark parameters as key=value pairs.
+     * @param setup     The untimed setup run before each iteration.
+     * @param batch     The operation performing the whole batch.
+     * @param batchSize The number of calls the batch performs.
+     */
+    public void batchTime(String name, String params, Runnable setup,
+            Operation batch, int batchSize)
+    {
+        for (int i = 0; i < warmupIterations; i++)
+        {
+            setup.run();
+            sink += batch.run();
+        }
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++)
+        {
+            setup.run();
+            long begin = System.nanoTime();
+            sink += batch.run();
+            scores[i] = (double) (System.nanoTime() - begin) / batchSize;
+        }
+        record(name, params, scores);
+    }
+
+    /**
+     * Runs an operation for the duration of one iteration.
+     *
+     * @param operation The operation to run.
+     * @return the average time per call in nanoseconds.
+     */
+    private double timeIteration(Operation operation)
+    {
+        long calls = 0;
+        long begin = System.nanoTime();
+        long elapsed;
+        do
+        {
+            // * read the clock once per group of calls so its own cost
+            // doesn't dominate short operations
+            for (int i = 0; i < CALLS_PER_CLOCK_READ; i++)
+            {
+                sink += operation.run();
+            }
+            calls += CALLS_PER_CLOCK_READ;
+            elapsed = System.nanoTime() - begin;
+        }
+        while (elapsed < iterationNanos);
+        return (double) elapsed / calls;
+    }
+
+    /**
+     * Records a result and prints it.
+     *
+     * @param name   The benchmark name.
+     * @param params The benchmark parameters.
+     * @param scores The score of each measured iteration in ns/op.
+     */
+    private void record(String name, String params, double[] scores)
+    {
+        double mean = 0;
+        for (double score : scores)
+        {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores)
+        {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = scores.length > 1
+                ? 2.0 * Math.sqrt(variance / (scores.length - 1))
+                        / Math.sqrt(scores.length)
+                : Double.NaN;
+
+        System.out.printf(Locale.ROOT, "%-40s %-28s %12.1f +- %8.1f ns/op%n",
+                name, params, mean, error);
+
+        StringBuilder json = new StringBuilder();
+        json.append("    {\n");
+        json.append("        \"benchmark\" : \"").append(name).append("\",\n");
+        json.append("        \"mode\" : \"avgt\",\n");
+        json.append("        \"warmupIterations\" : ").append(warmupIterations)
+                .append(",\n");
+        json.append("        \"measurementIterations\" : ")
+                .append(measurementIterations).append(",\n");
+        json.append("        \"params\" : {");
+        if (!params.isEmpty())
+        {
+            String[] pairs = params.split(",");
+            for (int i = 0; i < pairs.length; i++)
+            {
+                String[] pair = pairs[i].split("=", 2);
+                if (i > 0) json.append(',');
+                json.append(" \"").append(pair[0]).append("\" : \"")
+                        .append(pair[1]).append('"');
+            }
+            json.append(' ');
+        }
+        json.append("},\n");
+        json.append("        \"primaryMetric\" : {\n");
+        json.append(String.format(Locale.ROOT,
+                "            \"score\" : %.3f,%n", mean));
+        json.append(String.format(Locale.ROOT,
+                "            \"scoreError\" : %s,%n",
+                Double.isNaN(error) ? "\"NaN\""
+                        : String.format(Locale.ROOT, "%.3f", error)));
+        json.append("            \"scoreUnit\" : \"ns/op\",\n");
+        json.append("            \"rawData\" : [ [ ");
+        for (int i = 0; i < scores.length; i++)
+        {
+            if (i > 0) json.append(", ");
+            json.append(String.format(Locale.ROOT, "%.3f", scores[i]));
+        }
+        json.append(" ] ]\n");
+        json.append("        }\n");
+        json.append("    }");
+        results.add(json.toString());
+    }
+
+    /**
+     * Writes every recorded result to a JSON file.
+     *
+     * @param path The file to write.
+     * @throws IOException if the file can't be written.
+     */
+    public void writeJson(Path path) throws IOException
+    {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (PrintWriter writer = new PrintWriter(
+                Files.newBufferedWriter(path)))
+        {
+            writer.println("[");
+            writer.println(String.join(",\n", results));
+            writer.println("]");
+        }
+        // * keeps the sink alive so no measured result is dead code
+        if (sink == 42) System.out.print("");
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Measures how many journaled guesses per second GameSessions sustains with
+ * the MoveJournal waiting for the disk, for growing numbers of client
+ * threads. With one thread every guess pays for its own force; with more
+ * threads the guesses that arrive during a force share the next one. Each
+ * game gets a few guesses, so most are left in progress and some end. After
+ * each run every other game is removed and the journal compacted, then it is
+ * reopened, as after a crash. Every game kept and still in progress must be
+ * rebuilt as it was journaled, and no finished game may come back.
+ *
+ * Arguments: [seconds per run] [max threads] [journal directory].
+ */
+public class JournalThroughput
+{
+    private static final String LETTERS = "ETAOINSHRDLCUMWFGYPBVKJXQZ";
+    private static final int SEGMENT_SIZE = 4 << 20;
+    private static final int GUESSES_PER_GAME = 8;
+
+    public static void main(String[] args) throws Exception
+    {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        Path root = args.length > 2 ? Path.of(args[2])
+                : Files.createTempDirectory("journal");
+
+        System.out.printf("%8s %14s %12s %11s %10s%n", "threads", "guesses/s",
+                "games", "segments", "replay");
+        for (int threads = 1; threads <= maxThreads; threads *= 4)
+        {
+            Path directory = root.resolve("run-" + threads);
+            deleteRecursively(directory);
+            run(directory, threads, seconds);
+        }
+        deleteRecursively(root);
+        System.out.println("OK");
+    }
+
+    /**
+     * Plays games on several threads for a while, then rebuilds them.
+     */
+    private static void run(Path directory, int threads, int seconds)
+            throws Exception
+    {
+        GameSessions sessions = new GameSessions(Long.MAX_VALUE);
+        sessions.openJournal(directory, SEGMENT_SIZE, true);
+        AtomicLong guesses = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++)
+        {
+            workers[t] = new Thread(() -> play(sessions, guesses, deadline));
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+        {
+            worker.join();
+        }
+        double perSecond = guesses.get() / (double) seconds;
+
+        // * remember the games kept, then drop the registry without closing
+        // the journal, as if the process had died
+        HashMap<Long, String> expected = new HashMap<Long, String>();
+        ArrayList<Long> finished = new ArrayList<Long>();
+        long games = 0;
+        for (long id = 1; ; id++)
+        {
+            GameSessions.Session session = id % 2 == 0 ? sessions.get(id)
+                    : sessions.remove(id);
+            if (session == null) break;
+            games++;
+            HangmanGame game = session.getGame();
+            if (game.didPlayerWin() || game.isGameOver())
+                finished.add(id);
+            else if (id % 2 == 0)
+                expected.put(id, describe(game));
+        }
+        if (finished.isEmpty() || expected.isEmpty())
+            throw new AssertionError("Games must both end and stay open");
+        int segments = segmentCount(directory);
+        sessions.compactJournal();
+        int compacted = segmentCount(directory);
+
+        long start = System.nanoTime();
+        GameSessions rebuilt = new GameSessions(Long.MAX_VALUE);
+        int restored = rebuilt.openJournal(directory, SEGMENT_SIZE, true);
+        long replayMillis = (System.nanoTime() - start) / 1_000_000;
+        if (restored != expected.size())
+            throw new AssertionError("Rebuilt " + restored + " games of "
+                    + expected.size());
+        for (long id : expected.keySet())
+        {
+            String actual = describe(rebuilt.get(id).getGame());
+            if (!actual.equals(expected.get(id)))
+                throw new AssertionError("Game " + id + " was "
+                        + expected.get(id) + " but rebuilt as " + actual);
+        }
+        for (long id : finished)
+        {
+            if (rebuilt.get(id) != null)
+                throw new AssertionError("Finished game " + id + " rebuilt");
+        }
+        rebuilt.closeJournal();
+
+        System.out.printf("%8d %,14.0f %,12d %5d -> %d %7d ms%n", threads,
+                perSecond, games, segments, compacted,
+                replayMillis);
+    }
+
+    /**
+     * Starts games and guesses a few letters of each in frequency order
+     * until the deadline.
+     */
+    private static void play(GameSessions sessions, AtomicLong guesses,
+            long deadline)
+    {
+        long count = 0;
+        while (System.nanoTime() < deadline)
+        {
+            GameSessions.Session session = sessions.create(Difficulty.HARD);
+            HangmanGame game = session.getGame();
+            for (int i = 0; i < GUESSES_PER_GAME; i++)
+            {
+                // * one guess per request, as the server makes them
+                synchronized (session.lock())
+                {
+                    if (game.isGameOver() || game.didPlayerWin()) break;
+                    try
+                    {
+                        game.playerMove(LETTERS.charAt(i));
+                    }
+                    catch (InvalidGuessException e)
+                    {
+                        throw new AssertionError(e);
+                    }
+                }
+                sessions.awaitJournaled(session);
+                count++;
+            }
+        }
+        guesses.addAndGet(count);
+    }
+
+    /**
+     * Describes the state of a game.
+     */
+    private static String describe(HangmanGame game)
+    {
+        return game.getWordToGuess() + " " + new String(game.getCurrentGuess())
+                + " " + game.getWrongGuesses() + " " + game.getAttemptsLeft();
+    }
+
+    /**
+     * Counts the segment files in a journal directory.
+     */
+    private static int segmentCount(Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return (int) files.count();
+        }
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     */
+    private static void deleteRecursively(Path directory) throws IOException
+    {
+        if (!Files.exists(directory)) return;
+        ArrayList<Path> paths = new ArrayList<Path>();
+        try (Stream<Path> walk = Files.walk(directory))
+        {
+            walk.forEach(paths::add);
+        }
+        paths.sort(Comparator.reverseOrder());
+        for (Path path : paths)
+        {
+            Files.delete(path);
+        }
+    }
+}
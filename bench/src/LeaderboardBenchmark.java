@@ -0,0 +1,136 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures PlayerStatsStore with a million players: how fast writer threads
+ * add game results, how long a top-10 query takes while they do, and how
+ * long a snapshot takes to save and load. The leaderboard is checked against
+ * a full sort of the players at the end.
+ *
+ * Arguments: [players] [writers] [seconds].
+ */
+public class LeaderboardBenchmark
+{
+    private static final int K = 10;
+
+    public static void main(String[] args) throws Exception
+    {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        PlayerStatsStore store = new PlayerStatsStore();
+        Difficulty[] difficulties = Difficulty.values();
+        SplittableRandom seed = new SplittableRandom(42);
+        long start = System.nanoTime();
+        for (int i = 0; i < players; i++)
+        {
+            store.record(name(i), difficulties[i % difficulties.length],
+                    seed.nextBoolean(), seed.nextInt(7));
+        }
+        System.out.printf("%,d players loaded in %d ms%n", players,
+                (System.nanoTime() - start) / 1_000_000);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong results = new AtomicLong();
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++)
+        {
+            SplittableRandom random = seed.split();
+            threads[w] = new Thread(() ->
+            {
+                long count = 0;
+                while (running.get())
+                {
+                    // * a few players play most of the games, so the top of
+                    // the leaderboard keeps changing
+                    int player = random.nextInt(10) == 0
+                            ? random.nextInt(players) : random.nextInt(1000);
+                    store.record(name(player),
+                            difficulties[random.nextInt(difficulties.length)],
+                            random.nextInt(3) > 0, random.nextInt(7));
+                    count++;
+                }
+                results.addAndGet(count);
+            });
+            threads[w].start();
+        }
+
+        long[] latencies = new long[1 << 20];
+        int queries = 0;
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < deadline && queries < latencies.length)
+        {
+            long before = System.nanoTime();
+            List<PlayerStats> top = store.top(K);
+            latencies[queries++] = System.nanoTime() - before;
+            if (top.size() != K) throw new AssertionError("Short leaderboard");
+            Thread.sleep(0, 100_000);
+        }
+        running.set(false);
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        Arrays.sort(latencies, 0, queries);
+        System.out.printf("%,.0f results/s on %d writers%n",
+                results.get() / (double) seconds, writers);
+        System.out.printf("top-%d: %,d queries, p50 %,d ns, p99 %,d ns, "
+                + "max %,d ns%n", K, queries, latencies[queries / 2],
+                latencies[(int) (queries * 0.99)], latencies[queries - 1]);
+
+        checkTop(store, players);
+
+        Path file = Files.createTempFile("stats", ".bin");
+        start = System.nanoTime();
+        store.save(file);
+        long saveMillis = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        PlayerStatsStore loaded = PlayerStatsStore.load(file);
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("snapshot: %,d bytes, save %d ms, load %d ms%n",
+                Files.size(file), saveMillis, loadMillis);
+        Files.delete(file);
+        if (loaded.size() != store.size())
+            throw new AssertionError("Loaded " + loaded.size() + " players");
+        checkTop(loaded, players);
+        System.out.println("OK");
+    }
+
+    /**
+     * Checks the leaderboard against a full sort of every player.
+     */
+    private static void checkTop(PlayerStatsStore store, int players)
+    {
+        PlayerStats[] all = new PlayerStats[players];
+        for (int i = 0; i < players; i++)
+        {
+            all[i] = store.get(name(i));
+        }
+        Arrays.sort(all, (a, b) -> a.getWins() != b.getWins()
+                ? Integer.compare(b.getWins(), a.getWins())
+                : a.getBestStreak() != b.getBestStreak()
+                        ? Integer.compare(b.getBestStreak(), a.getBestStreak())
+                        : a.getName().compareTo(b.getName()));
+        List<PlayerStats> top = store.top(K);
+        for (int i = 0; i < K; i++)
+        {
+            if (!top.get(i).getName().equals(all[i].getName()))
+                throw new AssertionError("Rank " + (i + 1) + " is "
+                        + top.get(i) + " but should be " + all[i]);
+        }
+    }
+
+    /**
+     * Gets the name of a player.
+     */
+    private static String name(int player)
+    {
+        return "player" + player;
+    }
+}
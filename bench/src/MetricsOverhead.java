@@ -0,0 +1,121 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures what recording GameMetrics costs in the batch simulation path.
+ * Metrics are switched on and off with a system property read once at
+ * startup, so the two settings are run in alternating child JVMs and the
+ * median time per game of each is compared.
+ *
+ * Arguments: the number of child JVMs per setting (6 by default) and the
+ * games per measured round (2M by default).
+ */
+public class MetricsOverhead
+{
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length > 0 && args[0].equals("child"))
+        {
+            runChild(Long.parseLong(args[1]));
+            return;
+        }
+        int forks = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 2_000_000;
+
+        double[] on = new double[forks];
+        double[] off = new double[forks];
+        for (int f = 0; f < forks; f++)
+        {
+            on[f] = fork(true, games);
+            off[f] = fork(false, games);
+            System.out.printf("fork %d: on %.1f ns/game, off %.1f ns/game%n",
+                    f, on[f], off[f]);
+        }
+        double medianOn = median(on);
+        double medianOff = median(off);
+        System.out.printf("median: on %.1f ns/game, off %.1f ns/game, "
+                + "overhead %+.2f%%%n", medianOn, medianOff,
+                100 * (medianOn - medianOff) / medianOff);
+    }
+
+    /**
+     * Runs a child JVM with metrics switched on or off.
+     *
+     * @param enabled Whether metrics are recorded.
+     * @param games   The games per measured round.
+     * @return the best time per game of the child in nanoseconds.
+     */
+    private static double fork(boolean enabled, long games) throws Exception
+    {
+        List<String> command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java")
+                .toString());
+        command.add("-Dhangman.metrics=" + enabled);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MetricsOverhead.class.getName());
+        command.add("child");
+        command.add(Long.toString(games));
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String line;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream())))
+        {
+            line = reader.readLine();
+        }
+        if (process.waitFor() != 0 || line == null)
+            throw new IllegalStateException("Child JVM failed");
+        return Double.parseDouble(line);
+    }
+
+    /**
+     * Plays warm-up and measured rounds of the frequency strategy on HARD
+     * words and prints the best time per game.
+     *
+     * @param games The games per measured round.
+     */
+    private static void runChild(long games)
+    {
+        // * start the platform MBean server either way so only the cost of
+        // * recording is compared
+        ManagementFactory.getPlatformMBeanServer();
+        GameMetrics.install();
+        BatchSimulator simulator = new BatchSimulator(Difficulty.HARD, 6,
+                random -> GuessStrategy.frequency(),
+                new BufferedWriter(Writer.nullWriter()));
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+        {
+            long begin = System.nanoTime();
+            simulator.run(games, round);
+            double perGame = (double) (System.nanoTime() - begin) / games;
+            if (round >= WARMUP_ROUNDS) best = Math.min(best, perGame);
+        }
+        System.out.println(best);
+    }
+
+    /**
+     * Gets the median of some values.
+     *
+     * @param values The values, which are sorted in place.
+     * @return the median.
+     */
+    private static double median(double[] values)
+    {
+        Arrays.sort(values);
+        int mid = values.length / 2;
+        return values.length % 2 == 1 ? values[mid]
+                : (values[mid - 1] + values[mid]) / 2;
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Simulates races in rooms of growing size and measures how long a tick
+ * takes. Guesser threads play every player still in the race, one random
+ * letter per player per tick, and each player's listener looks up its own
+ * moves in every delta it receives, as a client would. The ticks are run by
+ * the simulator so only the tick itself is timed. For comparison, one tick's
+ * worth of guesses is also sent the old way, a copy of the guessing player's
+ * state to every player for every guess, which grows with players times
+ * guesses.
+ *
+ * Arguments: [largest room] [guesser threads].
+ */
+public class RaceSimulator
+{
+    private static final String WORD = "Recalcitrant";
+    private static final int MAX_ATTEMPTS = 7;
+    private static final int MAX_COPY_FAN_OUT = 10_000;
+
+    public static void main(String[] args) throws Exception
+    {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        ExecutorService guessers = Executors.newFixedThreadPool(threads);
+
+        System.out.printf("%9s %6s %11s %10s %10s %10s %9s %14s%n", "players",
+                "ticks", "guesses", "p50", "p99", "max", "ns/guess",
+                "copy fan-out");
+        for (int players = 10; players <= largest; players *= 10)
+        {
+            // * a small room first warms up the code for the others
+            if (players == 10) simulate(10, guessers, threads);
+            simulate(players, guessers, threads);
+        }
+        guessers.shutdown();
+        System.out.println("OK");
+    }
+
+    /**
+     * Plays a room of players until every game has ended and prints the tick
+     * times.
+     */
+    private static void simulate(int players, ExecutorService guessers,
+            int threads) throws Exception
+    {
+        RaceRoom room = new RaceRoom(WORD, MAX_ATTEMPTS);
+        long[] seen = new long[players];
+        for (int p = 0; p < players; p++)
+        {
+            int player = p;
+            room.join("player" + p, delta ->
+            {
+                int index = delta.indexOf(player);
+                if (index < 0) return;
+                seen[player] += delta.getMovesEnd(index)
+                        - delta.getMovesStart(index);
+            });
+        }
+        room.tick();
+
+        long[] tickNanos = new long[64];
+        long guesses = 0;
+        int ticks = 0;
+        while (!room.isOver())
+        {
+            int round = ticks;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++)
+            {
+                int first = t;
+                guessers.execute(() ->
+                {
+                    try
+                    {
+                        for (int p = first; p < players; p += threads)
+                        {
+                            if (room.getPlace(p) != RaceDelta.PLAYING)
+                                continue;
+                            SplittableRandom random = new SplittableRandom(
+                                    (long) p << 8 | round);
+                            room.guess(p, (char) ('A' + random.nextInt(26)));
+                        }
+                    }
+                    catch (InvalidGuessException e)
+                    {
+                        throw new IllegalStateException(e);
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            long start = System.nanoTime();
+            RaceDelta delta = room.tick();
+            if (ticks == tickNanos.length)
+                tickNanos = Arrays.copyOf(tickNanos, ticks * 2);
+            tickNanos[ticks++] = System.nanoTime() - start;
+            guesses += delta == null ? 0 : delta.getMoveCount();
+        }
+
+        long moves = 0;
+        for (long s : seen)
+        {
+            moves += s;
+        }
+        if (moves != guesses)
+            throw new AssertionError("Players saw " + moves + " of "
+                    + guesses + " moves");
+        long total = 0;
+        for (int i = 0; i < ticks; i++)
+        {
+            total += tickNanos[i];
+        }
+        Arrays.sort(tickNanos, 0, ticks);
+        String copy = players > MAX_COPY_FAN_OUT ? "-"
+                : String.format("%,d us", copyFanOut(players) / 1000);
+        System.out.printf("%,9d %6d %,11d %,7d us %,7d us %,7d us %,9.0f "
+                + "%14s%n", players, ticks, guesses,
+                tickNanos[ticks / 2] / 1000,
+                tickNanos[(int) (ticks * 0.99)] / 1000,
+                tickNanos[ticks - 1] / 1000, total / (double) guesses, copy);
+    }
+
+    /**
+     * Times one guess per player sent the old way: for every guess, a copy
+     * of the guessing player's state to every player.
+     *
+     * @return the time taken in nanoseconds.
+     */
+    private static long copyFanOut(int players)
+    {
+        long[] received = new long[players];
+        long start = System.nanoTime();
+        for (int g = 0; g < players; g++)
+        {
+            long[] state = { g, 'A' + g % 26, g % MAX_ATTEMPTS };
+            for (int p = 0; p < players; p++)
+            {
+                long[] copy = state.clone();
+                received[p] += copy[0] + copy[1];
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (received[0] == 0) throw new AssertionError("Nothing received");
+        return elapsed;
+    }
+}
@@ -0,0 +1,158 @@
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Checks that reloading a large word file does not stall running games.
+ * Player threads start games and time every playerMove while a
+ * WordListReloader watches a word file of several million words. The file is
+ * then replaced by one whose words use a different half of the alphabet, and
+ * the move latency before, during and after the reload is compared. Every
+ * game started after the reload must draw its word from the new file.
+ *
+ * Arguments: [words] [players] [seconds per phase].
+ */
+public class ReloadLatency
+{
+    private static final String[] PHASES = { "before", "reloading", "after" };
+    private static volatile int phase;
+
+    public static void main(String[] args) throws Exception
+    {
+        int words = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Path directory = Files.createTempDirectory("words");
+        Path file = directory.resolve("words.txt");
+        writeWords(directory, file, words, 'A');
+        WordListReloader reloader = new WordListReloader(file);
+        long start = System.nanoTime();
+        reloader.reload();
+        System.out.printf("%,d words loaded in %d ms%n", words,
+                (System.nanoTime() - start) / 1_000_000);
+        reloader.start();
+
+        LatencyHistogram[] moves = new LatencyHistogram[PHASES.length];
+        for (int p = 0; p < PHASES.length; p++)
+        {
+            moves[p] = new LatencyHistogram();
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Throwable[] failure = new Throwable[1];
+        Thread[] threads = new Thread[players];
+        for (int t = 0; t < players; t++)
+        {
+            threads[t] = new Thread(() ->
+            {
+                try
+                {
+                    play(moves, running);
+                }
+                catch (Throwable e)
+                {
+                    failure[0] = e;
+                }
+            });
+            threads[t].start();
+        }
+
+        Thread.sleep(seconds * 1000L);
+        phase = 1;
+        start = System.nanoTime();
+        writeWords(directory, file, words, 'N');
+        while (reloader.getReloads() < 2)
+        {
+            Thread.sleep(1);
+        }
+        long reloadMillis = (System.nanoTime() - start) / 1_000_000;
+        phase = 2;
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        reloader.close();
+        try (Stream<Path> files = Files.list(directory))
+        {
+            for (Path path : (Iterable<Path>) files::iterator)
+            {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+        if (failure[0] != null) throw new AssertionError(failure[0]);
+
+        System.out.printf("replaced and reloaded in %d ms%n", reloadMillis);
+        System.out.printf("%-10s %12s %10s %10s %12s%n", "playerMove",
+                "moves", "p50", "p99", "max");
+        for (int p = 0; p < PHASES.length; p++)
+        {
+            LatencyHistogram.Summary s = moves[p].summarize();
+            System.out.printf("%-10s %,12d %,7d ns %,7d ns %,9d ns%n",
+                    PHASES[p], s.getCount(), s.getP50Nanos(),
+                    s.getP99Nanos(), s.getMaxNanos());
+        }
+        System.out.println("Latencies are power-of-two bucket bounds.");
+        System.out.println("OK");
+    }
+
+    /**
+     * Plays HARD games until stopped, timing every move. Games started after
+     * the reload must only use the letters of the new word file.
+     */
+    private static void play(LatencyHistogram[] moves, AtomicBoolean running)
+            throws InvalidGuessException
+    {
+        while (running.get())
+        {
+            int current = phase;
+            HangmanGame game = Difficulty.HARD.newGame();
+            game.startGame();
+            String word = game.getWordToGuess();
+            if (current == 2 && word.chars().anyMatch(c -> c < 'N'))
+                throw new AssertionError("Old word " + word + " after reload");
+            for (char c = 'A'; c <= 'Z' && !game.isGameOver()
+                    && !game.didPlayerWin(); c++)
+            {
+                long before = System.nanoTime();
+                game.playerMove(c);
+                moves[phase].recordSince(before);
+            }
+        }
+    }
+
+    /**
+     * Writes a word file of random words made of 13 letters starting at the
+     * specified one, replacing the file in one step.
+     */
+    private static void writeWords(Path directory, Path file, int words,
+            char firstLetter) throws Exception
+    {
+        SplittableRandom random = new SplittableRandom(firstLetter);
+        Path temp = directory.resolve("words.tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp,
+                StandardCharsets.UTF_8))
+        {
+            char[] word = new char[12];
+            for (int i = 0; i < words; i++)
+            {
+                int length = 4 + random.nextInt(9);
+                for (int j = 0; j < length; j++)
+                {
+                    word[j] = (char) (firstLetter + random.nextInt(13));
+                }
+                out.write(word, 0, length);
+                out.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
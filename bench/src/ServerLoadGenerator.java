@@ -0,0 +1,203 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives a HangmanServer with many concurrent clients playing full games and
+ * reports throughput and p50/p99 latency for each operation.
+ *
+ * Arguments: [clients] [seconds] [idle sessions] [server url]. Without a url
+ * an in-process server is started on a free port. The idle sessions are
+ * created up front and left open so the server holds that many games while
+ * the clients play.
+ */
+public class ServerLoadGenerator
+{
+    private static final String[] OPERATIONS = { "create", "guess", "state",
+            "delete" };
+    private static final char[] GUESS_ORDER = "etaoinshrdlcumwfgypbvkjxqz"
+            .toCharArray();
+
+    public static void main(String[] args) throws Exception
+    {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int idleSessions = args.length > 2 ? Integer.parseInt(args[2])
+                : 20_000;
+
+        HangmanServer server = null;
+        String baseUrl;
+        if (args.length > 3)
+        {
+            baseUrl = args[3];
+        }
+        else
+        {
+            server = new HangmanServer(0);
+            server.start();
+            baseUrl = "http://localhost:" + server.getPort();
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(clients)).build();
+        for (int i = 0; i < idleSessions; i++)
+        {
+            send(client, "POST", baseUrl + "/games?difficulty="
+                    + Difficulty.values()[i % 3]);
+        }
+        System.out.printf("Opened %,d idle sessions%n", idleSessions);
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        ArrayList<Future<long[][]>> results = new ArrayList<Future<long[][]>>();
+        AtomicInteger games = new AtomicInteger();
+        for (int i = 0; i < clients; i++)
+        {
+            int worker = i;
+            results.add(workers.submit(
+                    () -> playGames(client, baseUrl, worker, deadline, games)));
+        }
+
+        long[][] merged = new long[OPERATIONS.length][];
+        for (int op = 0; op < OPERATIONS.length; op++)
+        {
+            merged[op] = new long[0];
+        }
+        for (Future<long[][]> result : results)
+        {
+            long[][] latencies = result.get();
+            for (int op = 0; op < OPERATIONS.length; op++)
+            {
+                merged[op] = concat(merged[op], latencies[op]);
+            }
+        }
+        workers.shutdown();
+
+        System.out.printf("%d clients, %d s, %,d games played%n", clients,
+                seconds, games.get());
+        System.out.printf("%-8s %12s %12s %10s %10s%n", "op", "requests",
+                "req/s", "p50 us", "p99 us");
+        for (int op = 0; op < OPERATIONS.length; op++)
+        {
+            long[] latencies = merged[op];
+            Arrays.sort(latencies);
+            System.out.printf("%-8s %,12d %,12.0f %,10.0f %,10.0f%n",
+                    OPERATIONS[op], latencies.length,
+                    latencies.length / (double) seconds,
+                    percentile(latencies, 0.50) / 1e3,
+                    percentile(latencies, 0.99) / 1e3);
+        }
+
+        if (server != null)
+        {
+            System.out.printf("Server held %,d sessions at the end%n",
+                    server.getSessions().size());
+            server.stop();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Plays games until the deadline, timing every request.
+     *
+     * @return the latencies in nanoseconds, one array per operation.
+     */
+    private static long[][] playGames(HttpClient client, String baseUrl,
+            int worker, long deadline, AtomicInteger games) throws Exception
+    {
+        LatencyLog[] logs = new LatencyLog[OPERATIONS.length];
+        for (int op = 0; op < logs.length; op++)
+        {
+            logs[op] = new LatencyLog();
+        }
+
+        while (System.nanoTime() < deadline)
+        {
+            long begin = System.nanoTime();
+            String state = send(client, "POST", baseUrl + "/games?difficulty="
+                    + Difficulty.values()[worker % 3]);
+            logs[0].add(System.nanoTime() - begin);
+            String gameUrl = baseUrl + "/games/" + idOf(state);
+
+            for (char c : GUESS_ORDER)
+            {
+                begin = System.nanoTime();
+                state = send(client, "POST", gameUrl + "/guess?letter=" + c);
+                logs[1].add(System.nanoTime() - begin);
+                if (!state.contains("IN_PROGRESS")) break;
+            }
+
+            begin = System.nanoTime();
+            send(client, "GET", gameUrl);
+            logs[2].add(System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            send(client, "DELETE", gameUrl);
+            logs[3].add(System.nanoTime() - begin);
+            games.incrementAndGet();
+        }
+
+        long[][] latencies = new long[logs.length][];
+        for (int op = 0; op < logs.length; op++)
+        {
+            latencies[op] = logs[op].toArray();
+        }
+        return latencies;
+    }
+
+    private static String send(HttpClient client, String method, String url)
+            throws Exception
+    {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString())
+                .body();
+    }
+
+    private static String idOf(String state)
+    {
+        int start = state.indexOf("\"id\":") + 5;
+        int end = state.indexOf(',', start);
+        return state.substring(start, end);
+    }
+
+    private static double percentile(long[] sorted, double p)
+    {
+        if (sorted.length == 0) return Double.NaN;
+        return sorted[(int) Math.min(sorted.length - 1, p * sorted.length)];
+    }
+
+    private static long[] concat(long[] a, long[] b)
+    {
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * A growable array of latencies.
+     */
+    private static class LatencyLog
+    {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value)
+        {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        long[] toArray()
+        {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
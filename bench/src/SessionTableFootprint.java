@@ -0,0 +1,196 @@
+import java.util.SplittableRandom;
+
+/**
+ * Measures the heap taken per idle session by SessionTable at 10M sessions,
+ * which must stay under 64 bytes, against GameSessions holding a HangmanGame
+ * object per session. Also checks that a handle plays like a HangmanGame,
+ * that removed ids stop working when their slot is reused, and that idle
+ * sessions are evicted, and times moves on random sessions. Run from the
+ * repository root so the word file is found.
+ *
+ * Arguments: [table sessions] [object sessions].
+ */
+public class SessionTableFootprint
+{
+    private static final int LIMIT_BYTES = 64;
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+
+    public static void main(String[] args) throws Exception
+    {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int objects = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        // * load the word lists first so only the sessions are measured
+        checkPlay();
+        checkEviction();
+
+        long baseline = usedHeap();
+        GameSessions games = new GameSessions(Long.MAX_VALUE);
+        for (int i = 0; i < objects; i++)
+        {
+            games.create(DIFFICULTIES[i % DIFFICULTIES.length]);
+        }
+        double objectBytes = (usedHeap() - baseline) / (double) objects;
+        // * keep the sessions reachable until they have been measured
+        if (games.size() != objects) throw new AssertionError("Lost games");
+        games = null;
+
+        baseline = usedHeap();
+        SessionTable table = new SessionTable(sessions);
+        for (int i = 0; i < sessions; i++)
+        {
+            table.create(DIFFICULTIES[i % DIFFICULTIES.length]);
+        }
+        double tableBytes = (usedHeap() - baseline) / (double) sessions;
+        if (table.size() != sessions) throw new AssertionError("Lost games");
+
+        System.out.printf("%,12d HangmanGame sessions %8.1f B/session%n",
+                objects, objectBytes);
+        System.out.printf("%,12d table sessions       %8.1f B/session "
+                + "(%.1f estimated)%n", sessions, tableBytes,
+                table.getFootprintBytes() / (double) sessions);
+        if (tableBytes >= LIMIT_BYTES)
+            throw new AssertionError("Table takes " + tableBytes
+                    + " bytes per session");
+        timeMoves(table, sessions);
+        System.out.println("OK");
+    }
+
+    /**
+     * Plays a game to the end through a handle and checks it against a
+     * HangmanGame on the same word, then removes it and checks that the old
+     * id is not given the slot's next session.
+     */
+    private static void checkPlay() throws InvalidGuessException
+    {
+        SessionTable table = new SessionTable(4);
+        for (Difficulty difficulty : DIFFICULTIES)
+        {
+            SessionTable.Handle handle = table.create(difficulty);
+            String word = handle.getWordToGuess();
+            HangmanGame game = new HangmanGame(difficulty,
+                    difficulty.getMaxAttempts())
+            {
+                @Override
+                protected char[] chooseWord()
+                {
+                    return word.toCharArray();
+                }
+            };
+            game.startGame();
+            SplittableRandom random = new SplittableRandom(word.hashCode());
+            while (!handle.didPlayerWin() && !handle.isGameOver())
+            {
+                char letter = (char) ('a' + random.nextInt(26));
+                if (handle.playerMove(letter) != game.playerMove(letter)
+                        || handle.getAttemptsLeft() != game.getAttemptsLeft()
+                        || !String.valueOf(handle.getCurrentGuess()).equals(
+                                String.valueOf(game.getCurrentGuess()))
+                        || handle.getWrongMask() != game.getWrongMask())
+                    throw new AssertionError("Handle and game differ on "
+                            + word + " after " + letter);
+            }
+            if (handle.getAllGuessesMade().size()
+                    != game.getAllGuessesMade().size())
+                throw new AssertionError("Guess lists differ on " + word);
+
+            long id = handle.getId();
+            if (!table.remove(id) || table.get(id) != null)
+                throw new AssertionError("Session " + id + " not removed");
+            SessionTable.Handle next = table.create(difficulty);
+            if (next.getId() == id || table.get(id) != null)
+                throw new AssertionError("Old id reaches the reused slot");
+            try
+            {
+                handle.getAttemptsLeft();
+                throw new AssertionError("Removed handle still works");
+            }
+            catch (IllegalStateException e)
+            {
+                // * expected
+            }
+            table.remove(next.getId());
+        }
+        if (table.size() != 0 || table.get(3) != null)
+            throw new AssertionError("Table not empty");
+        System.out.println("handles play like HangmanGame, removed ids "
+                + "stay removed");
+    }
+
+    /**
+     * Checks that sessions unused for longer than the idle time are evicted
+     * and those used since are kept.
+     */
+    private static void checkEviction() throws InterruptedException
+    {
+        SessionTable table = new SessionTable(1000);
+        long[] ids = new long[1000];
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = table.create(Difficulty.MEDIUM).getId();
+        }
+        Thread.sleep(2100);
+        for (int i = 0; i < ids.length; i += 2)
+        {
+            table.get(ids[i]);
+        }
+        int evicted = table.evictIdle(1000);
+        if (evicted != ids.length / 2 || table.size() != ids.length / 2
+                || table.get(ids[1]) != null || table.get(ids[0]) == null)
+            throw new AssertionError("Evicted " + evicted + " sessions");
+        System.out.println("idle sessions evicted, used ones kept");
+    }
+
+    /**
+     * Times guesses on random sessions of a full table.
+     */
+    private static void timeMoves(SessionTable table, int sessions)
+            throws InvalidGuessException
+    {
+        SplittableRandom random = new SplittableRandom(sessions);
+        int moves = 2_000_000;
+        long played = 0;
+        for (int round = 0; round < 3; round++)
+        {
+            long start = System.nanoTime();
+            for (int i = 0; i < moves; i++)
+            {
+                // * ids of sessions never removed are generation 1
+                SessionTable.Handle handle = table.get(1L << 32
+                        | random.nextInt(sessions));
+                try
+                {
+                    if (handle.playerMove((char) ('A' + random.nextInt(26))))
+                        played++;
+                }
+                catch (IllegalStateException e)
+                {
+                    // * the game already ended
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round == 2)
+                System.out.printf("get and move on a random session %.0f ns "
+                        + "(%,d correct guesses)%n",
+                        elapsed / (double) moves, played);
+        }
+    }
+
+    /**
+     * Gets the heap in use after collecting garbage.
+     *
+     * @return the used heap in bytes.
+     */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // * collect a few times until the number settles
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
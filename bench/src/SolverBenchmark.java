@@ -0,0 +1,92 @@
+import java.util.SplittableRandom;
+
+/**
+ * Measures how many games HangmanSolver solves per second, on the bundled
+ * word list for each difficulty and on a large made-up corpus.
+ *
+ * Arguments: [seconds per run] [synthetic corpus size].
+ */
+public class SolverBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int syntheticSize = args.length > 1 ? Integer.parseInt(args[1])
+                : 200_000;
+
+        HangmanSolver solver = new HangmanSolver();
+        for (Difficulty difficulty : Difficulty.values())
+        {
+            run(difficulty.toString(), solver, () -> difficulty.newGame(),
+                    seconds);
+        }
+
+        WordCorpus corpus = EngineBenchmarks.syntheticCorpus(syntheticSize);
+        HangmanSolver bigSolver = new HangmanSolver(new WordBuckets(corpus));
+        WordList wordList = new WordList(corpus, new SplittableRandom(1));
+        run(String.format("synthetic %,d", syntheticSize), bigSolver,
+                () -> new CorpusGame(wordList), seconds);
+    }
+
+    /**
+     * Plays games with the solver for a fixed time and prints the results.
+     *
+     * @param name    The name of the run.
+     * @param solver  The solver to play with.
+     * @param games   Makes a new game.
+     * @param seconds How long to play.
+     */
+    private static void run(String name, HangmanSolver solver,
+            GameFactory games, int seconds) throws InvalidGuessException
+    {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long begin = System.nanoTime();
+        int played = 0;
+        int won = 0;
+        long guesses = 0;
+        while (System.nanoTime() < deadline)
+        {
+            HangmanGame game = games.newGame();
+            game.startGame();
+            HangmanSolver.Session session = solver.follow(game);
+            while (!game.didPlayerWin() && !game.isGameOver())
+            {
+                game.playerMove(session.nextGuess());
+                guesses++;
+            }
+            played++;
+            if (game.didPlayerWin()) won++;
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        System.out.printf(
+                "%-18s %,10.0f games/s %,10.0f solved/s  win rate %5.1f%%"
+                        + "  %.1f guesses/game%n",
+                name, played / elapsed, won / elapsed, 100.0 * won / played,
+                (double) guesses / played);
+    }
+
+    private interface GameFactory
+    {
+        HangmanGame newGame();
+    }
+
+    /**
+     * A hard game whose words come from a given word list.
+     */
+    private static class CorpusGame extends HangmanGame
+    {
+        private final WordList wordList;
+
+        CorpusGame(WordList wordList)
+        {
+            super(Difficulty.HARD, 6);
+            this.wordList = wordList;
+        }
+
+        @Override
+        protected char[] chooseWord()
+        {
+            return wordList.getRandomWordFromList().toCharArray();
+        }
+    }
+}
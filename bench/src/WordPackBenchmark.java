@@ -0,0 +1,306 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Measures WordPack and WordPackGame on large made-up Turkish and Deseret
+ * corpora. Turkish words are written in lower, upper and title case with the
+ * Turkish rules, and a tenth of them decomposed, so they need both locale
+ * casing and normalization; Deseret letters are all outside the Basic
+ * Multilingual Plane. Each corpus is packed, then every word is played to the
+ * end by WordPackGame and by a baseline that compares code points with
+ * Character.toLowerCase on every check, the way HangmanGame used to. The
+ * baseline's results are compared with the pack's to count the games it gets
+ * wrong.
+ *
+ * Arguments: [words] [rounds].
+ */
+public class WordPackBenchmark
+{
+    private static final Locale TURKISH = Locale.forLanguageTag("tr");
+    private static final String TURKISH_LETTERS =
+            "abcçdefgğhıijklmnoöprsştuüvyz";
+    private static final int DESERET_CAPITAL = 0x10400;
+    private static final int DESERET_LETTERS = 40;
+    private static final int MAX_ATTEMPTS = 7;
+    private static long sink;
+
+    public static void main(String[] args) throws Exception
+    {
+        int words = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        checkFolding();
+
+        int[] turkish = TURKISH_LETTERS.codePoints().toArray();
+        run("Turkish", turkishWords(words), TURKISH, turkish, rounds);
+
+        // * guesses are typed in capitals, the words are mostly lower case
+        int[] deseret = new int[DESERET_LETTERS];
+        for (int i = 0; i < DESERET_LETTERS; i++)
+        {
+            deseret[i] = DESERET_CAPITAL + i;
+        }
+        run("Deseret", deseretWords(words), Locale.ROOT, deseret, rounds);
+        System.out.println("sink " + sink);
+        System.out.println("OK");
+    }
+
+    /**
+     * Packs a corpus and plays every word with both engines.
+     */
+    private static void run(String name, List<String> words, Locale locale,
+            int[] guesses, int rounds) throws InvalidGuessException
+    {
+        long chars = 0;
+        for (String word : words)
+        {
+            chars += word.length();
+        }
+        WordPack pack = null;
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++)
+        {
+            long start = System.nanoTime();
+            pack = WordPack.of(words, locale, false);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%s: %,d words, %,d chars, %d letters%n", name,
+                pack.size(), chars, pack.getAlphabetSize());
+        System.out.printf("  pack     %,8.1f ns/word%n",
+                best / (double) pack.size());
+
+        String[] guessStrings = new String[guesses.length];
+        for (int i = 0; i < guesses.length; i++)
+        {
+            guessStrings[i] = new String(Character.toChars(guesses[i]));
+        }
+        WordPackGame game = new WordPackGame(pack, MAX_ATTEMPTS,
+                new SplittableRandom(1));
+        long packBest = Long.MAX_VALUE;
+        long naiveBest = Long.MAX_VALUE;
+        long packMoves = 0;
+        long naiveMoves = 0;
+        int wrong = 0;
+        for (int r = 0; r < rounds; r++)
+        {
+            long start = System.nanoTime();
+            packMoves = 0;
+            for (int w = 0; w < pack.size(); w++)
+            {
+                packMoves += Math.abs(playPack(game, w, guessStrings));
+            }
+            packBest = Math.min(packBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            naiveMoves = 0;
+            for (int w = 0; w < pack.size(); w++)
+            {
+                naiveMoves += Math.abs(playNaive(words.get(w), guesses));
+            }
+            naiveBest = Math.min(naiveBest, System.nanoTime() - start);
+        }
+        // * the move counts differ only where the baseline misreads a word
+        for (int w = 0; w < pack.size(); w++)
+        {
+            int packResult = playPack(game, w, guessStrings);
+            if (packResult != playNaive(words.get(w), guesses)) wrong++;
+        }
+        System.out.printf("  pack     %,8.1f ns/game %,6.1f ns/move%n",
+                packBest / (double) pack.size(), packBest / (double) packMoves);
+        System.out.printf("  baseline %,8.1f ns/game %,6.1f ns/move, "
+                + "%,d games (%.1f%%) played wrong%n",
+                naiveBest / (double) pack.size(),
+                naiveBest / (double) naiveMoves, wrong,
+                100.0 * wrong / pack.size());
+    }
+
+    /**
+     * Plays a word of a pack with WordPackGame until it is won or lost.
+     *
+     * @return the number of moves, negated if the game was lost.
+     */
+    private static int playPack(WordPackGame game, int word, String[] guesses)
+            throws InvalidGuessException
+    {
+        game.startGame(word);
+        int moves = 0;
+        for (String guess : guesses)
+        {
+            game.playerMove(guess);
+            moves++;
+            if (game.didPlayerWin()) return moves;
+            if (game.isGameOver()) break;
+        }
+        sink += game.getAttemptsLeft();
+        return -moves;
+    }
+
+    /**
+     * Plays a word the way HangmanGame did, on the raw word, folding case on
+     * every comparison and scanning the word for a win after every move.
+     *
+     * @return the number of moves, negated if the game was lost.
+     */
+    private static int playNaive(String word, int[] guesses)
+    {
+        int[] codePoints = word.codePoints().toArray();
+        boolean[] revealed = new boolean[codePoints.length];
+        int attemptsLeft = MAX_ATTEMPTS;
+        int moves = 0;
+        for (int guess : guesses)
+        {
+            moves++;
+            boolean found = false;
+            for (int i = 0; i < codePoints.length; i++)
+            {
+                if (Character.toLowerCase(codePoints[i])
+                        == Character.toLowerCase(guess))
+                {
+                    revealed[i] = true;
+                    found = true;
+                }
+            }
+            if (!found) attemptsLeft--;
+            boolean won = true;
+            for (int i = 0; i < codePoints.length; i++)
+            {
+                if (!revealed[i] && Character.isLetter(codePoints[i]))
+                    won = false;
+            }
+            if (won) return moves;
+            if (attemptsLeft == 0) break;
+        }
+        return -moves;
+    }
+
+    /**
+     * Checks that guesses match the letters they should in each script.
+     */
+    private static void checkFolding() throws InvalidGuessException
+    {
+        WordPack turkish = WordPack.of(List.of("IĞDIR", "İstanbul"),
+                TURKISH, false);
+        expect(turkish, 0, "ı", true, "I__I_");
+        expect(turkish, 0, "i", false, "_____");
+        expect(turkish, 1, "i", true, "İ_______");
+        expect(turkish, 1, "I", false, "________");
+        // * folding accents away must not turn the dotted capital into a
+        // dotless I
+        WordPack plainTurkish = WordPack.of(List.of("İstanbul", "IĞDIR"),
+                TURKISH, true);
+        if (plainTurkish.fold(0x130) != 'i')
+            throw new AssertionError("İ folds to " + plainTurkish.fold(0x130));
+        expect(plainTurkish, 0, "i", true, "İ_______");
+        expect(plainTurkish, 0, "ı", false, "________");
+        expect(plainTurkish, 1, "ı", true, "I__I_");
+        expect(plainTurkish, 1, "g", true, "_Ğ___");
+
+        WordPack root = WordPack.of(List.of("IĞDIR"), Locale.ROOT, false);
+        expect(root, 0, "i", true, "I__I_");
+        expect(root, 0, "ğ", true, "_Ğ___");
+
+        // * a decomposed guess and a decomposed word both match the
+        // precomposed letter
+        WordPack french = WordPack.of(List.of("cafe\u0301"), Locale.FRENCH,
+                false);
+        expect(french, 0, "E\u0301", true, "___é");
+        expect(french, 0, "e", false, "____");
+        WordPack plain = WordPack.of(List.of("Été"), Locale.FRENCH,
+                true);
+        expect(plain, 0, "e", true, "É_é");
+
+        String deseretWord = new String(new int[] { DESERET_CAPITAL,
+                DESERET_CAPITAL + 40, DESERET_CAPITAL + 41 }, 0, 3);
+        WordPack deseret = WordPack.of(List.of(deseretWord), Locale.ROOT,
+                false);
+        expect(deseret, 0, new String(Character.toChars(DESERET_CAPITAL + 40)),
+                true, new String(new int[] { DESERET_CAPITAL,
+                        DESERET_CAPITAL + 40, '_' }, 0, 3));
+        if (deseret.getLength(0) != 3)
+            throw new AssertionError("Deseret word is not 3 letters");
+    }
+
+    /**
+     * Plays one guess on a fresh game and checks the result.
+     */
+    private static void expect(WordPack pack, int word, String guess,
+            boolean correct, String shown) throws InvalidGuessException
+    {
+        WordPackGame game = new WordPackGame(pack, MAX_ATTEMPTS,
+                new SplittableRandom(1));
+        game.startGame(word);
+        if (game.playerMove(guess) != correct)
+            throw new AssertionError("Guess " + guess + " in "
+                    + pack.get(word) + " should be " + correct);
+        String current = game.getCurrentGuess();
+        String expected = Normalizer.normalize(shown, Normalizer.Form.NFC);
+        if (!current.equals(expected))
+            throw new AssertionError("Guess " + guess + " in "
+                    + pack.get(word) + " shows " + current + ", not "
+                    + expected);
+    }
+
+    /**
+     * Makes up Turkish words in mixed case, a tenth of them decomposed.
+     */
+    private static List<String> turkishWords(int size)
+    {
+        int[] letters = TURKISH_LETTERS.codePoints().toArray();
+        SplittableRandom random = new SplittableRandom(size);
+        ArrayList<String> words = new ArrayList<String>(size);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++)
+        {
+            sb.setLength(0);
+            int length = 4 + random.nextInt(9);
+            for (int j = 0; j < length; j++)
+            {
+                sb.appendCodePoint(letters[random.nextInt(letters.length)]);
+            }
+            String word = sb.toString();
+            switch (random.nextInt(3))
+            {
+                case 0:
+                    word = word.toUpperCase(TURKISH);
+                    break;
+                case 1:
+                    word = word.substring(0, 1).toUpperCase(TURKISH)
+                            + word.substring(1);
+                    break;
+                default:
+                    break;
+            }
+            if (random.nextInt(10) == 0)
+                word = Normalizer.normalize(word, Normalizer.Form.NFD);
+            words.add(word);
+        }
+        return words;
+    }
+
+    /**
+     * Makes up Deseret words, a third of them capitalized.
+     */
+    private static List<String> deseretWords(int size)
+    {
+        SplittableRandom random = new SplittableRandom(size + 1);
+        ArrayList<String> words = new ArrayList<String>(size);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++)
+        {
+            sb.setLength(0);
+            int length = 4 + random.nextInt(9);
+            for (int j = 0; j < length; j++)
+            {
+                int letter = random.nextInt(DESERET_LETTERS);
+                boolean capital = j == 0 && random.nextInt(3) == 0;
+                sb.appendCodePoint(DESERET_CAPITAL + letter
+                        + (capital ? 0 : DESERET_LETTERS));
+            }
+            words.add(sb.toString());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the cost of drawing every index from a ShuffleBag at corpus sizes
+ * up to millions of words, and checks that word lists made one per game
+ * share their shuffle, so no word repeats until every word has been played.
+ * Run from the repository root so the word file is found.
+ */
+public class WordSamplerBenchmark
+{
+    public static void main(String[] args)
+    {
+        checkAcrossGames();
+        int[] sizes = { 40, 10_000, 1_000_000, 10_000_000 };
+        // * let the JIT compile the draw path before anything is measured
+        drain(new ShuffleBag(1_000, new SplittableRandom(7)), 5_000_000);
+        for (int size : sizes)
+        {
+            ShuffleBag bag = new ShuffleBag(size, new SplittableRandom(42));
+            // * first round warms up, second round is measured
+            drain(bag, size);
+            long begin = System.nanoTime();
+            long checksum = drain(bag, size);
+            long elapsed = System.nanoTime() - begin;
+            System.out.printf("%,12d words: %6.1f ns/draw (checksum %d)%n",
+                    size, (double) elapsed / size, checksum);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Plays one full round of every difficulty with a new WordList per game,
+     * as the games do, and checks that no word came up twice.
+     */
+    private static void checkAcrossGames()
+    {
+        for (Difficulty difficulty : Difficulty.values())
+        {
+            int size = WordCorpus.forDifficulty(difficulty).size();
+            Set<String> seen = new HashSet<String>();
+            for (int i = 0; i < size; i++)
+            {
+                String word = new WordList(difficulty)
+                        .getRandomWordFromList();
+                if (!seen.add(word))
+                    throw new AssertionError(difficulty + " repeated " + word
+                            + " after " + i + " games");
+            }
+            System.out.printf("%-6s %,d games with a new list each, no "
+                    + "repeats%n", difficulty, size);
+        }
+    }
+
+    /**
+     * Draws one full round from the bag.
+     *
+     * @param bag  The bag to draw from.
+     * @param size The number of indices in the bag.
+     * @return the sum of the drawn indices.
+     */
+    private static long drain(ShuffleBag bag, int size)
+    {
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+        {
+            sum += bag.next();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks WordSchedule and measures how fast it looks games up. The first
+ * games of a schedule must be the same on every run, play every word once per
+ * round, and be split between shards without overlap or gaps. A small corpus
+ * checks that each round's order is close to uniform. Looking up games far
+ * into a schedule is timed against drawing the next word from a ShuffleBag.
+ *
+ * Arguments: [words] [shards].
+ */
+public class WordScheduleCheck
+{
+    private static final long SEED = 20_241_018;
+    private static long sink;
+
+    public static void main(String[] args)
+    {
+        int words = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        WordCorpus corpus = EngineBenchmarks.syntheticCorpus(words);
+
+        checkRounds(corpus);
+        checkShards(corpus, shards);
+        checkUniform();
+
+        WordSchedule schedule = new WordSchedule(corpus, SEED, 0, 1);
+        long[] games = new SplittableRandom(SEED).longs(1 << 20, 0,
+                Long.MAX_VALUE / 2).toArray();
+        ShuffleBag bag = new ShuffleBag(words, new SplittableRandom(SEED));
+        for (int round = 0; round < 5; round++)
+        {
+            long start = System.nanoTime();
+            for (long game : games)
+            {
+                sink += schedule.wordIndex(game);
+            }
+            long jump = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < games.length; i++)
+            {
+                sink += bag.next();
+            }
+            long next = System.nanoTime() - start;
+            if (round == 4)
+                System.out.printf("jump to any game %.1f ns, "
+                        + "ShuffleBag.next %.1f ns%n",
+                        jump / (double) games.length,
+                        next / (double) games.length);
+        }
+        System.out.println("sink " + sink);
+        System.out.println("OK");
+    }
+
+    /**
+     * Checks that each round plays every word once and that the schedule is
+     * the same when built again, and differs for another seed.
+     */
+    private static void checkRounds(WordCorpus corpus)
+    {
+        int size = corpus.size();
+        WordSchedule schedule = new WordSchedule(corpus, SEED, 0, 1);
+        WordSchedule again = new WordSchedule(corpus, SEED, 0, 1);
+        WordSchedule other = new WordSchedule(corpus, SEED + 1, 0, 1);
+        int same = 0;
+        for (int round = 0; round < 3; round++)
+        {
+            boolean[] seen = new boolean[size];
+            for (int i = 0; i < size; i++)
+            {
+                long game = (long) round * size + i;
+                int word = schedule.wordIndex(game);
+                if (seen[word])
+                    throw new AssertionError("Word " + word
+                            + " repeated in round " + round);
+                seen[word] = true;
+                if (again.wordIndex(game) != word)
+                    throw new AssertionError("Game " + game + " changed");
+                if (other.wordIndex(game) == word) same++;
+            }
+        }
+        if (same > size / 100)
+            throw new AssertionError("Another seed shares " + same + " games");
+        System.out.printf("%,d words: 3 rounds each a permutation, "
+                + "reproducible, %d games shared with another seed%n", size,
+                same);
+    }
+
+    /**
+     * Checks that the shards together play every game of the whole schedule
+     * exactly once.
+     */
+    private static void checkShards(WordCorpus corpus, int shards)
+    {
+        WordSchedule whole = new WordSchedule(corpus, SEED, 0, 1);
+        int games = corpus.size() * 2;
+        int[] played = new int[games];
+        for (int s = 0; s < shards; s++)
+        {
+            WordSchedule shard = new WordSchedule(corpus, SEED, s, shards);
+            for (long g = 0; shard.toScheduleGame(g) < games; g++)
+            {
+                int game = (int) shard.toScheduleGame(g);
+                played[game]++;
+                if (shard.wordIndex(g) != whole.wordIndex(game))
+                    throw new AssertionError("Shard " + s + " game " + g
+                            + " differs from game " + game);
+            }
+        }
+        for (int g = 0; g < games; g++)
+        {
+            if (played[g] != 1)
+                throw new AssertionError("Game " + g + " played "
+                        + played[g] + " times");
+        }
+        System.out.printf("%d shards play each of %,d games once%n", shards,
+                games);
+    }
+
+    /**
+     * Checks that the first word of a round is close to uniform over the
+     * words of a small corpus, with a chi-squared test.
+     */
+    private static void checkUniform()
+    {
+        WordCorpus corpus = WordCorpus.of(List.of("alpha", "bravo", "charlie",
+                "delta", "echo", "foxtrot", "golf", "hotel", "india",
+                "juliett"));
+        int size = corpus.size();
+        int rounds = 200_000;
+        long[] counts = new long[size];
+        WordSchedule schedule = new WordSchedule(corpus, SEED, 0, 1);
+        for (long round = 0; round < rounds; round++)
+        {
+            counts[schedule.wordIndex(round * size)]++;
+        }
+        double expected = rounds / (double) size;
+        double chiSquared = 0;
+        for (long count : counts)
+        {
+            chiSquared += (count - expected) * (count - expected) / expected;
+        }
+        // * 27.9 is the 0.1% critical value for 9 degrees of freedom
+        if (chiSquared > 27.9)
+            throw new AssertionError("First words are not uniform: "
+                    + Arrays.toString(counts));
+        System.out.printf("first word of %,d rounds: chi-squared %.1f "
+                + "(9 degrees of freedom)%n", rounds, chiSquared);
+    }
+}
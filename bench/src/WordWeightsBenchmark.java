@@ -0,0 +1,231 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures WordWeights at corpus sizes up to millions of words. Recorder
+ * threads feed outcomes as fast as they can while the table is rebuilt in
+ * the background and a drawing thread times its draws, which must stay as
+ * fast as before any outcome. A quarter of the words are always solved and
+ * a quarter never, the rest at the target rate; once the outcomes stop, the
+ * share of draws of each kind of word must match its share of the weight.
+ * Looking words up by name, as the game does when one ends, is timed too.
+ *
+ * Outcomes are recorded until every word has been played a few times on
+ * average, so the weights have moved away from the prior.
+ *
+ * Arguments: [largest corpus] [recorder threads] [games per word].
+ */
+public class WordWeightsBenchmark
+{
+    private static final double TARGET = 0.6;
+    private static final int DRAW_BATCH = 1 << 16;
+    private static long sink;
+
+    public static void main(String[] args) throws Exception
+    {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int gamesPerWord = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        ScheduledExecutorService scheduler = Executors
+                .newSingleThreadScheduledExecutor(r ->
+                {
+                    Thread thread = new Thread(r, "rebuilder");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        for (int size = 1_000_000; size <= largest; size *= 10)
+        {
+            run(size, threads, gamesPerWord, scheduler);
+        }
+        System.out.println("sink " + sink);
+        System.out.println("OK");
+    }
+
+    /**
+     * Runs every measurement over a corpus of the specified size.
+     */
+    private static void run(int size, int threads, int gamesPerWord,
+            ScheduledExecutorService scheduler) throws Exception
+    {
+        WordWeights weights = new WordWeights(corpus(size), TARGET);
+        SplittableRandom random = new SplittableRandom(size);
+        draws(weights, random, 20);
+        double uniform = draws(weights, random, 20);
+
+        weights.start(scheduler, 100);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        Thread[] recorders = new Thread[threads];
+        for (int t = 0; t < threads; t++)
+        {
+            SplittableRandom own = random.split();
+            recorders[t] = new Thread(() ->
+            {
+                while (recording.get())
+                {
+                    for (int i = 0; i < 1024; i++)
+                    {
+                        int word = own.nextInt(size);
+                        weights.recordOutcome(word, solves(word, own));
+                    }
+                }
+            });
+            recorders[t].start();
+        }
+        long start = System.nanoTime();
+        long[] batches = new long[1024];
+        int count = 0;
+        while (weights.getOutcomes() < (long) gamesPerWord * size)
+        {
+            long begin = System.nanoTime();
+            draws(weights, random, 1);
+            if (count == batches.length)
+                batches = Arrays.copyOf(batches, count * 2);
+            batches[count++] = System.nanoTime() - begin;
+        }
+        recording.set(false);
+        for (Thread recorder : recorders)
+        {
+            recorder.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        weights.stop();
+        Arrays.sort(batches, 0, count);
+
+        System.out.printf("%,11d words: draw %5.1f ns uniform, %5.1f ns p50 "
+                + "%5.1f ns max while updating%n", size, uniform,
+                batches[count / 2] / (double) DRAW_BATCH,
+                batches[count - 1] / (double) DRAW_BATCH);
+        System.out.printf("%,11d outcomes/s, %d rebuilds, last %,d ms%n",
+                weights.getOutcomes() * 1_000_000_000L / elapsed,
+                weights.getRebuilds(), weights.getLastRebuildNanos()
+                        / 1_000_000);
+        checkShares(weights, random);
+        lookups(weights, random);
+    }
+
+    /**
+     * Makes a corpus of distinct words without keeping the strings.
+     */
+    private static WordCorpus corpus(int size)
+    {
+        return WordCorpus.of(new AbstractList<String>()
+        {
+            @Override
+            public String get(int index)
+            {
+                return "w" + Integer.toString(index, 36);
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+        });
+    }
+
+    /**
+     * Plays a game of a word: words 0 mod 4 are always solved, words 1 mod 4
+     * never, and the rest at the target rate.
+     */
+    private static boolean solves(int word, SplittableRandom random)
+    {
+        switch (word & 3)
+        {
+            case 0:
+                return true;
+            case 1:
+                return false;
+            default:
+                return random.nextDouble() < TARGET;
+        }
+    }
+
+    /**
+     * Draws batches of words and gets the time per draw.
+     */
+    private static double draws(WordWeights weights, SplittableRandom random,
+            int batches)
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < batches * DRAW_BATCH; i++)
+        {
+            sink += weights.draw(random);
+        }
+        return (System.nanoTime() - start) / (double) (batches * DRAW_BATCH);
+    }
+
+    /**
+     * Rebuilds the table with the last outcomes and checks that each kind of
+     * word is drawn in proportion to its weight.
+     */
+    private static void checkShares(WordWeights weights,
+            SplittableRandom random)
+    {
+        weights.rebuild();
+        int size = weights.getCorpus().size();
+        double[] weight = new double[4];
+        for (int i = 0; i < size; i++)
+        {
+            weight[i & 3] += weights.getWeight(i);
+        }
+        double total = weight[0] + weight[1] + weight[2] + weight[3];
+        long[] drawn = new long[4];
+        int draws = 10_000_000;
+        for (int i = 0; i < draws; i++)
+        {
+            drawn[weights.draw(random) & 3]++;
+        }
+        StringBuilder shares = new StringBuilder();
+        for (int kind = 0; kind < 4; kind++)
+        {
+            double expected = weight[kind] / total;
+            double observed = drawn[kind] / (double) draws;
+            if (Math.abs(observed - expected) > 0.002)
+                throw new AssertionError("Kind " + kind + " drawn " + observed
+                        + " of the time, expected " + expected);
+            shares.append(String.format(" %.3f/%.3f", observed, expected));
+        }
+        System.out.println("            share drawn/weight, always solved, "
+                + "never, at target x2:" + shares);
+        if (drawn[0] >= drawn[2] || drawn[1] >= drawn[2])
+            throw new AssertionError("Words off target are not drawn less");
+    }
+
+    /**
+     * Times looking words up by name, as recording a finished game does.
+     * The first lookup builds the table.
+     */
+    private static void lookups(WordWeights weights, SplittableRandom random)
+    {
+        WordCorpus corpus = weights.getCorpus();
+        long start = System.nanoTime();
+        corpus.indexOf(corpus.get(0));
+        long build = System.nanoTime() - start;
+        String[] words = new String[1 << 16];
+        int[] indices = new int[words.length];
+        for (int i = 0; i < words.length; i++)
+        {
+            indices[i] = random.nextInt(corpus.size());
+            words[i] = corpus.get(indices[i]);
+        }
+        start = System.nanoTime();
+        for (int round = 0; round < 16; round++)
+        {
+            for (int i = 0; i < words.length; i++)
+            {
+                if (corpus.indexOf(words[i]) != indices[i])
+                    throw new AssertionError("Looked up the wrong word");
+            }
+        }
+        double lookup = (System.nanoTime() - start) / (16.0 * words.length);
+        if (corpus.indexOf("not a word") != -1)
+            throw new AssertionError("Found a word not in the corpus");
+        System.out.printf("            lookup by word %.1f ns, table built "
+                + "in %,d ms%n", lookup, build / 1_000_000);
+    }
+}
@@ -1,8 +1,18 @@
+import javax.swing.SwingUtilities;
+
 public class App
 {
     public static void main(String[] args) throws Exception
     {
-        GUI gui = new GUI();
-        gui.open();
+        StartupTimer.mark(StartupTimer.Milestone.MAIN);
+        // * start loading words and art before Swing starts up
+        Preloader preloader = new Preloader();
+        SwingUtilities.invokeLater(() ->
+        {
+            GUI gui = new GUI(preloader);
+            gui.open();
+        });
+        GameMetrics.install();
+        WordListReloader.startDefault();
     }
 }
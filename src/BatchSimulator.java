@@ -0,0 +1,496 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * Runs large numbers of headless Hangman games to measure how often each word
+ * is solved. Games are split into chunks on a work-stealing fork/join pool.
+ * Each chunk has its own game, strategy and random number generator, so workers
+ * share nothing while playing. The generator is reseeded for every game from
+ * the seed and the game's number in the whole schedule, so a run can be
+ * repeated exactly however it is chunked or sharded. Games are counted in plain
+ * arrays of the worker thread, and every finished chunk appends a row for each
+ * word it played to a CSV file right away. The per-word totals over the whole
+ * run can be written as a summary once it is over.
+ *
+ * The words come from the WordSchedule of the seed, so a run can also be
+ * split between processes: each plays one shard of the schedule, the shards
+ * play different games, and together they play the games of the unsharded
+ * run exactly as it would.
+ *
+ * Usage: BatchSimulator [games] [difficulty|ALL] [frequency|random|solver]
+ * [max attempts|default] [output.csv] [seed] [shard/shard count]
+ */
+public class BatchSimulator
+{
+    // Fields
+    private static final int CHUNK_GAMES = 8192;
+    private final Difficulty difficulty;
+    private final int maxAttempts;
+    private final Function<RandomGenerator, GuessStrategy> strategies;
+    private final WordCorpus corpus;
+    private final BufferedWriter output;
+    private final ConcurrentLinkedQueue<Tally> tallies = new ConcurrentLinkedQueue<Tally>();
+    private final ThreadLocal<Tally> workerTally = ThreadLocal
+            .withInitial(this::newTally);
+
+    /**
+     * Constructs a BatchSimulator object.
+     *
+     * @param difficulty  The difficulty whose words are played.
+     * @param maxAttempts The attempts each game allows.
+     * @param strategies  Makes the strategy for a chunk from its random
+     *                    number generator, which is reseeded every game.
+     * @param output      Where per-chunk results are appended.
+     */
+    public BatchSimulator(Difficulty difficulty, int maxAttempts,
+            Function<RandomGenerator, GuessStrategy> strategies,
+            BufferedWriter output)
+    {
+        this.difficulty = difficulty;
+        this.maxAttempts = maxAttempts;
+        this.strategies = strategies;
+        this.output = output;
+        corpus = WordCorpus.forDifficulty(difficulty);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        String level = args.length > 1 ? args[1].toUpperCase(Locale.ROOT)
+                : "ALL";
+        String strategy = args.length > 2 ? args[2] : "frequency";
+        String attempts = args.length > 3 ? args[3] : "default";
+        Path path = Paths.get(args.length > 4 ? args[4] : "simulation.csv");
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+        String shardArg = args.length > 6 ? args[6] : "0/1";
+        String[] shardOf = shardArg.split("/");
+        if (shardOf.length != 2)
+            throw new IllegalArgumentException(
+                    "Shard must be written shard/shard count, such as 0/4: "
+                            + shardArg);
+        int shard = Integer.parseInt(shardOf[0]);
+        int shardCount = Integer.parseInt(shardOf[1]);
+
+        String name = path.getFileName().toString();
+        Path summaryPath = path.resolveSibling(
+                name.replaceFirst("(\\.csv)?$", "-summary.csv"));
+
+        GameMetrics.install();
+        Difficulty[] levels = level.equals("ALL") ? Difficulty.values()
+                : new Difficulty[] { Difficulty.valueOf(level) };
+        try (BufferedWriter output = Files.newBufferedWriter(path);
+                BufferedWriter summary = Files.newBufferedWriter(summaryPath))
+        {
+            output.write("difficulty,max_attempts,word,games,wins,"
+                    + "attempts_used\n");
+            summary.write("difficulty,max_attempts,word,games,wins,win_rate,"
+                    + "average_attempts_used\n");
+            for (Difficulty d : levels)
+            {
+                int max = attempts.equals("default") ? d.getMaxAttempts()
+                        : Integer.parseInt(attempts);
+                BatchSimulator simulator = new BatchSimulator(d, max,
+                        strategyFor(strategy, d), output);
+                long begin = System.nanoTime();
+                simulator.run(games, seed, shard, shardCount);
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                System.out.printf(Locale.ROOT,
+                        "%-6s %,d games in %.1f s (%,.0f games/min), "
+                                + "win rate %.1f%%%n",
+                        d, games, seconds, games / seconds * 60,
+                        100.0 * simulator.getWinRate());
+                simulator.writeResults(summary);
+            }
+        }
+        System.out.println("Per-chunk results written to " + path);
+        System.out.println("Per-word totals written to " + summaryPath);
+        System.out.println(GameMetrics.shared().dump());
+    }
+
+    /**
+     * Gets the strategy factory for a strategy name.
+     *
+     * @param name       frequency, random or solver.
+     * @param difficulty The difficulty being played.
+     * @return the strategy factory.
+     */
+    private static Function<RandomGenerator, GuessStrategy> strategyFor(
+            String name, Difficulty difficulty)
+    {
+        switch (name)
+        {
+            case "random":
+                return GuessStrategy::random;
+            case "solver":
+                HangmanSolver solver = new HangmanSolver(new WordBuckets(
+                        WordCorpus.forDifficulty(difficulty)));
+                return random -> GuessStrategy.solver(solver);
+            case "frequency":
+            default:
+                return random -> GuessStrategy.frequency();
+        }
+    }
+
+    /**
+     * Plays the specified number of games on the common fork/join pool.
+     *
+     * @param games The number of games to play.
+     * @param seed  The seed all randomness is mixed from.
+     */
+    public void run(long games, long seed)
+    {
+        run(games, seed, 0, 1);
+    }
+
+    /**
+     * Plays the first games of a shard of the run on the common fork/join
+     * pool. The shards of a seed play different words in different games,
+     * and each game's strategy is seeded from the seed and the game's number
+     * in the whole schedule, so the shards play their games just as the
+     * unsharded run does.
+     *
+     * @param games      The number of games of the shard to play.
+     * @param seed       The seed all randomness is mixed from.
+     * @param shard      The index of the shard, from 0 to shardCount - 1.
+     * @param shardCount The number of shards the run is split into.
+     */
+    public void run(long games, long seed, int shard, int shardCount)
+    {
+        WordSchedule schedule = WordSchedule.of(difficulty, corpus, seed,
+                shard, shardCount);
+        ForkJoinPool.commonPool()
+                .invoke(new ChunkTask(0, games, schedule, seed));
+        try
+        {
+            output.flush();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes the tally of a worker thread and adds it to those summed up by
+     * the totals.
+     *
+     * @return the new tally.
+     */
+    private Tally newTally()
+    {
+        Tally tally = new Tally(corpus.size());
+        tallies.add(tally);
+        return tally;
+    }
+
+    /**
+     * Writes one CSV row per word played so far: the games, the wins, the
+     * win rate and the average attempts used. Call it between runs.
+     *
+     * @param summary Where the rows are written.
+     */
+    public void writeResults(BufferedWriter summary)
+    {
+        try
+        {
+            for (int w = 0; w < corpus.size(); w++)
+            {
+                long games = total(w, 0);
+                if (games == 0) continue;
+                summary.write(String.format(Locale.ROOT,
+                        "%s,%d,%s,%d,%d,%.4f,%.3f\n", difficulty, maxAttempts,
+                        corpus.get(w), games, total(w, 1), getWinRate(w),
+                        getAverageAttemptsUsed(w)));
+            }
+            summary.flush();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds up one count of a word over the tallies of every worker. The
+     * tallies are only read between runs, once the workers have joined.
+     *
+     * @param word  The index of the word in the difficulty's corpus.
+     * @param count 0 for games, 1 for wins and 2 for attempts used.
+     * @return the total of the count.
+     */
+    private long total(int word, int count)
+    {
+        long total = 0;
+        for (Tally tally : tallies)
+        {
+            total += count == 0 ? tally.games[word]
+                    : count == 1 ? tally.wins[word]
+                    : tally.attemptsUsed[word];
+        }
+        return total;
+    }
+
+    /**
+     * Gets the share of all games played so far that were won.
+     *
+     * @return the win rate from 0 to 1.
+     */
+    public double getWinRate()
+    {
+        long games = 0;
+        long wins = 0;
+        for (Tally tally : tallies)
+        {
+            for (int w = 0; w < corpus.size(); w++)
+            {
+                games += tally.games[w];
+                wins += tally.wins[w];
+            }
+        }
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * Gets the share of games won for a word.
+     *
+     * @param word The index of the word in the difficulty's corpus.
+     * @return the win rate from 0 to 1, or NaN if the word wasn't played.
+     */
+    public double getWinRate(int word)
+    {
+        long games = total(word, 0);
+        return games == 0 ? Double.NaN : (double) total(word, 1) / games;
+    }
+
+    /**
+     * Gets the average number of attempts used on a word.
+     *
+     * @param word The index of the word in the difficulty's corpus.
+     * @return the average attempts used, or NaN if the word wasn't played.
+     */
+    public double getAverageAttemptsUsed(int word)
+    {
+        long games = total(word, 0);
+        return games == 0 ? Double.NaN : (double) total(word, 2) / games;
+    }
+
+    /**
+     * Plays one chunk, counts its games in the worker's tally and appends
+     * its per-word rows.
+     *
+     * @param firstGame The number of the first game of the chunk in the
+     *                  schedule.
+     * @param games     The number of games in the chunk.
+     * @param schedule  The schedule of the words to play.
+     * @param seed      The seed of the run.
+     */
+    private void playChunk(long firstGame, long games, WordSchedule schedule,
+            long seed)
+    {
+        Tally tally = workerTally.get();
+        int won = 0;
+        int moves = 0;
+        SimulatedGame game = new SimulatedGame(difficulty, maxAttempts,
+                schedule, firstGame);
+        GameRandom random = new GameRandom();
+        GuessStrategy strategy = strategies.apply(random);
+
+        for (long g = 0; g < games; g++)
+        {
+            random.reseed(seed, schedule.toScheduleGame(firstGame + g));
+            game.startGame();
+            strategy.start(game);
+            try
+            {
+                while (!game.didPlayerWin() && !game.isGameOver())
+                {
+                    game.playerMove(strategy.nextGuess(game));
+                }
+            }
+            catch (InvalidGuessException e)
+            {
+                throw new IllegalStateException(e);
+            }
+            boolean playerWon = game.didPlayerWin();
+            tally.add(game.getWordIndex(), playerWon,
+                    maxAttempts - game.getAttemptsLeft());
+            moves += game.getAllGuessesMade().size();
+            if (playerWon) won++;
+        }
+
+        GameMetrics.shared().recordGames(difficulty, won, (int) games - won,
+                moves);
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < tally.touched; i++)
+        {
+            int w = tally.touchedWords[i];
+            rows.append(difficulty).append(',').append(maxAttempts)
+                    .append(',').append(corpus.get(w)).append(',')
+                    .append(tally.chunkGames[w]).append(',')
+                    .append(tally.chunkWins[w]).append(',')
+                    .append(tally.chunkAttemptsUsed[w]).append('\n');
+        }
+        tally.endChunk();
+        synchronized (output)
+        {
+            try
+            {
+                output.append(rows);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The counts of the games played by one worker thread, over the whole
+     * run and over its current chunk. Only its own worker writes to it, so
+     * the counts are plain arrays. A chunk's counts are cleared through the
+     * list of words it played, so a chunk costs nothing per unplayed word.
+     */
+    private static class Tally
+    {
+        private final long[] games;
+        private final long[] wins;
+        private final long[] attemptsUsed;
+        private final int[] chunkGames;
+        private final int[] chunkWins;
+        private final int[] chunkAttemptsUsed;
+        private final int[] touchedWords = new int[CHUNK_GAMES];
+        private int touched;
+
+        Tally(int words)
+        {
+            games = new long[words];
+            wins = new long[words];
+            attemptsUsed = new long[words];
+            chunkGames = new int[words];
+            chunkWins = new int[words];
+            chunkAttemptsUsed = new int[words];
+        }
+
+        void add(int word, boolean won, int attempts)
+        {
+            if (chunkGames[word]++ == 0) touchedWords[touched++] = word;
+            games[word]++;
+            attemptsUsed[word] += attempts;
+            chunkAttemptsUsed[word] += attempts;
+            if (won)
+            {
+                wins[word]++;
+                chunkWins[word]++;
+            }
+        }
+
+        void endChunk()
+        {
+            for (int i = 0; i < touched; i++)
+            {
+                int word = touchedWords[i];
+                chunkGames[word] = 0;
+                chunkWins[word] = 0;
+                chunkAttemptsUsed[word] = 0;
+            }
+            touched = 0;
+        }
+    }
+
+    /**
+     * A random number generator that is reseeded for every game, stepping
+     * like SplittableRandom from a seed mixed from the run's seed and the
+     * game's number in the whole schedule.
+     */
+    private static class GameRandom implements RandomGenerator
+    {
+        private long state;
+
+        void reseed(long seed, long scheduleGame)
+        {
+            long game = WordSchedule.mix(scheduleGame
+                    + WordSchedule.GOLDEN_GAMMA);
+            state = WordSchedule.mix(seed ^ game);
+        }
+
+        @Override
+        public long nextLong()
+        {
+            return WordSchedule.mix(state += WordSchedule.GOLDEN_GAMMA);
+        }
+    }
+
+    /**
+     * Splits a range of games in half until it is one chunk.
+     */
+    private class ChunkTask extends RecursiveAction
+    {
+        private final long from;
+        private final long to;
+        private final WordSchedule schedule;
+        private final long seed;
+
+        ChunkTask(long from, long to, WordSchedule schedule, long seed)
+        {
+            this.from = from;
+            this.to = to;
+            this.schedule = schedule;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= CHUNK_GAMES)
+            {
+                playChunk(from, to - from, schedule, seed);
+                return;
+            }
+            long mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, schedule, seed),
+                    new ChunkTask(mid, to, schedule, seed));
+        }
+    }
+
+    /**
+     * A game that plays the games of a schedule in order and remembers which
+     * word it is playing.
+     */
+    private static class SimulatedGame extends HangmanGame
+    {
+        private final WordSchedule schedule;
+        private long nextGame;
+        private int wordIndex;
+
+        SimulatedGame(Difficulty difficulty, int maxAttempts,
+                WordSchedule schedule, long firstGame)
+        {
+            // * the simulator adds its own totals to GameMetrics per chunk
+            super(difficulty, maxAttempts, false);
+            this.schedule = schedule;
+            nextGame = firstGame;
+        }
+
+        @Override
+        protected char[] chooseWord()
+        {
+            wordIndex = schedule.wordIndex(nextGame++);
+            return schedule.getCorpus().get(wordIndex).toCharArray();
+        }
+
+        int getWordIndex()
+        {
+            return wordIndex;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The ConcurrentHangmanGame class represents a game of Hangman that many
+ * threads may read and play at once. Its whole state is one immutable
+ * GameSnapshot, and every guess replaces it with compare-and-set, so readers
+ * always see a consistent state without copying or locking. Concurrent
+ * guesses take effect one after another in the order their compare-and-set
+ * succeeds, which is the order recorded by GameSnapshot.getGuesses().
+ */
+public class ConcurrentHangmanGame
+{
+    // Fields
+    private final Difficulty difficulty;
+    private final AtomicReference<GameSnapshot> state;
+
+    /**
+     * Constructs a ConcurrentHangmanGame object for the specified word.
+     *
+     * @param difficulty  The difficulty level of the game.
+     * @param maxAttempts The maximum number of attempts allowed.
+     * @param word        The word to be guessed.
+     */
+    public ConcurrentHangmanGame(Difficulty difficulty, int maxAttempts,
+            String word)
+    {
+        this.difficulty = difficulty;
+        state = new AtomicReference<GameSnapshot>(
+                GameSnapshot.start(word, maxAttempts));
+    }
+
+    /**
+     * Starts a game of the specified difficulty, choosing the word and the
+     * maximum attempts the same way the matching HangmanGame subclass does.
+     *
+     * @param difficulty The difficulty level of the game.
+     * @return the started game.
+     */
+    public static ConcurrentHangmanGame start(Difficulty difficulty)
+    {
+        HangmanGame game = difficulty.newGame();
+        game.startGame();
+        return new ConcurrentHangmanGame(difficulty, game.getMaxAttempts(),
+                game.getWordToGuess());
+    }
+
+    /**
+     * Processes the player's move. Guessing a letter that was already guessed
+     * does not cost an attempt.
+     *
+     * @param playerGuess The character guessed by the player.
+     * @return true if the guess is correct, false otherwise.
+     * @throws InvalidGuessException if the input character is not a letter
+     *                               from A-Z.
+     * @throws IllegalStateException if the game has already been won or lost.
+     */
+    public boolean playerMove(char playerGuess) throws InvalidGuessException
+    {
+        GameSnapshot current;
+        GameSnapshot next;
+        do
+        {
+            current = state.get();
+            next = current.afterGuess(playerGuess);
+        }
+        while (next != current && !state.compareAndSet(current, next));
+        return next.isInWord(playerGuess);
+    }
+
+    /**
+     * Gets the current state of the game. The snapshot never changes, so all
+     * of its values are consistent with each other.
+     *
+     * @return the current snapshot.
+     */
+    public GameSnapshot snapshot()
+    {
+        return state.get();
+    }
+
+    /**
+     * Gets the difficulty level of the game.
+     *
+     * @return the difficulty level.
+     */
+    public Difficulty getDifficulty()
+    {
+        return difficulty;
+    }
+}
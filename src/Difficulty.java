@@ -1,7 +1,97 @@
 /**
- * The Difficulty enum represents the options for game difficulty level
+ * The Difficulty enum represents the options for game difficulty level. Each
+ * level is a band of WordIndex difficulty scores, with the share of games
+ * players should win at that level.
  */
 public enum Difficulty
 {
-    EASY, MEDIUM, HARD
+    EASY(0, 33, 0.8), MEDIUM(34, 66, 0.6), HARD(67, WordIndex.MAX_SCORE, 0.4);
+
+    private final int minScore;
+    private final int maxScore;
+    private final double targetSolveRate;
+
+    /**
+     * Constructs a Difficulty with the specified score band and target solve
+     * rate.
+     *
+     * @param minScore        The lowest word score, inclusive.
+     * @param maxScore        The highest word score, inclusive.
+     * @param targetSolveRate The share of games players should win.
+     */
+    Difficulty(int minScore, int maxScore, double targetSolveRate)
+    {
+        this.minScore = minScore;
+        this.maxScore = maxScore;
+        this.targetSolveRate = targetSolveRate;
+    }
+
+    /**
+     * Gets the lowest word score of this level.
+     *
+     * @return the lowest score, inclusive.
+     */
+    public int getMinScore()
+    {
+        return minScore;
+    }
+
+    /**
+     * Gets the highest word score of this level.
+     *
+     * @return the highest score, inclusive.
+     */
+    public int getMaxScore()
+    {
+        return maxScore;
+    }
+
+    /**
+     * Gets the share of games players should win at this level. WordWeights
+     * favours the words whose observed solve rate is closest to it.
+     *
+     * @return the target solve rate, from 0 to 1.
+     */
+    public double getTargetSolveRate()
+    {
+        return targetSolveRate;
+    }
+
+    /**
+     * Gets the number of wrong guesses a game of this level allows.
+     *
+     * @return the maximum attempts.
+     */
+    public int getMaxAttempts()
+    {
+        switch (this)
+        {
+            case EASY:
+                return EasyHangmanGame.MAX_ATTEMPTS;
+            case MEDIUM:
+                return MediumHangmanGame.MAX_ATTEMPTS;
+            case HARD:
+            default:
+                return HardHangmanGame.MAX_ATTEMPTS;
+        }
+    }
+
+    /**
+     * Creates a new game of this difficulty level.
+     *
+     * @return the new game, not yet started.
+     */
+    public HangmanGame newGame()
+    {
+        switch (this)
+        {
+            case EASY:
+                return new EasyHangmanGame();
+            case MEDIUM:
+                return new MediumHangmanGame();
+            case HARD:
+            default:
+                return new HardHangmanGame();
+        }
+    }
 }
@@ -5,7 +5,7 @@
  */
 public class EasyHangmanGame extends HangmanGame
 {
-    private final static int MAX_ATTEMPTS = 10;
+    final static int MAX_ATTEMPTS = 10;
     private WordList wordList;
 
     /**
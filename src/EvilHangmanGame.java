@@ -0,0 +1,91 @@
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * The EvilHangmanGame class represents an adversarial implementation of the
+ * Hangman game that never commits to a word. After each guess it splits the
+ * words still consistent with the board into families by where the guessed
+ * letter appears, and keeps playing on the largest family.
+ */
+public class EvilHangmanGame extends HangmanGame
+{
+    private final static int MAX_ATTEMPTS = 8;
+    private final WordBuckets buckets;
+    private final RandomGenerator random;
+    private final WordBuckets.FamilyCounter familyCounter;
+    private WordBuckets.LengthBucket bucket;
+    private long[] candidates;
+
+    /**
+     * Constructs an EvilHangmanGame object over the bundled word list.
+     */
+    public EvilHangmanGame()
+    {
+        this(WordBuckets.shared(), new Random());
+    }
+
+    /**
+     * Constructs an EvilHangmanGame object over the specified words.
+     *
+     * @param buckets    The words the game may switch between.
+     * @param random     The random number generator used to pick the word
+     *                   length.
+     */
+    public EvilHangmanGame(WordBuckets buckets, RandomGenerator random)
+    {
+        super(Difficulty.HARD, MAX_ATTEMPTS);
+        this.buckets = buckets;
+        this.random = random;
+        familyCounter = new WordBuckets.FamilyCounter();
+    }
+
+    /**
+     * Picks a word length and starts with every word of that length as a
+     * candidate.
+     *
+     * @return any word of the chosen length converted into a character array.
+     */
+    @Override
+    protected char[] chooseWord()
+    {
+        bucket = buckets.randomBucket(random);
+        candidates = bucket.allCandidates();
+        return bucket.getWord(random.nextInt(bucket.size())).toCharArray();
+    }
+
+    /**
+     * Keeps the largest family of candidates for the guess and switches to
+     * one of its words.
+     *
+     * @param playerGuess The letter about to be checked, in upper case.
+     * @return a word from the kept family.
+     */
+    @Override
+    protected char[] reviseWord(char playerGuess)
+    {
+        bucket.keepLargestFamily(candidates, playerGuess - 'A', familyCounter);
+        for (int k = 0; k < candidates.length; k++)
+        {
+            if (candidates[k] != 0)
+                return bucket.getWord((k << 6)
+                        + Long.numberOfTrailingZeros(candidates[k]))
+                        .toCharArray();
+        }
+        throw new IllegalStateException("No candidate words left");
+    }
+
+    /**
+     * Gets the number of words still consistent with the board.
+     *
+     * @return the number of candidate words.
+     */
+    public int getCandidateCount()
+    {
+        int count = 0;
+        for (long block : candidates)
+        {
+            count += Long.bitCount(block);
+        }
+        return count;
+    }
+}
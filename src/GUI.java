@@ -1,26 +1,37 @@
 import java.awt.GridLayout;
-import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
-import java.util.ArrayList;
+import java.awt.Graphics;
 
+import javax.swing.AbstractAction;
+import javax.swing.ActionMap;
 import javax.swing.BorderFactory;
-import javax.swing.ImageIcon;
+import javax.swing.InputMap;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
 
 /**
  * This class represents the graphical user interface for a Hangman game.
  * It extends JFrame to create the game window.
+ *
+ * Guesses are made by typing a letter anywhere in the window or clicking it
+ * on the on-screen keyboard, and the time from the keystroke until its result
+ * is painted is recorded in GameMetrics. Setting the system property
+ * hangman.input to field brings back the text field and Guess button. With
+ * hangman.words.adaptive set to true, each game won or lost is recorded in
+ * WordWeights, which weights the words drawn for later games.
  */
 public class GUI extends JFrame
 {
@@ -32,14 +43,39 @@ public class GUI extends JFrame
     private JPanel playerWonPanel;
     private JPanel playerLostPanel;
     private StickFigure stickFigure;
-    private final double ASSET_ASPECT_RATIO = 0.27;
+    private StickFigureFrames stickFigureFrames;
+    private JLabel attemptsLeftLabel;
+    private final GameCanvas gameCanvas;
+    private JButton[] keyButtons;
+    private int keyboardMask;
+    private final Preloader preloader;
+    private static final boolean KEYBOARD_INPUT = !"field"
+            .equals(System.getProperty("hangman.input"));
+    private static final String GUESS_ACTION = "guess";
+    private static final String PLAYER = System.getProperty("hangman.player",
+            System.getProperty("user.name"));
+    private static final double ASSET_ASPECT_RATIO = 0.27;
+    private static final int ART_WIDTH = (int) (StickFigure.WIDTH
+            * ASSET_ASPECT_RATIO);
+    private static final int ART_HEIGHT = (int) (StickFigure.HEIGHT
+            * ASSET_ASPECT_RATIO);
 
-    public GUI()
+    /**
+     * Constructs the game window, loading the stick figure art on the
+     * preloader's executor.
+     *
+     * @param preloader The preloader loading the word lists.
+     */
+    public GUI(Preloader preloader)
     {
         setSize(800, 800);
         setTitle("Hangman Game");
         setResizable(false);
+        this.preloader = preloader;
         stickFigure = new StickFigure();
+        stickFigureFrames = new StickFigureFrames(ART_WIDTH, ART_HEIGHT,
+                preloader.getExecutor());
+        gameCanvas = new GameCanvas(stickFigureFrames, ART_WIDTH, ART_HEIGHT);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     }
 
@@ -59,6 +95,8 @@ public class GUI extends JFrame
         difficultyPanel.setVisible(true);
         setVisible(true);
         stickFigure.reset();
+        if (StartupTimer.isAutoStart())
+            SwingUtilities.invokeLater(this::startGame);
     }
 
     /**
@@ -76,7 +114,15 @@ public class GUI extends JFrame
      */
     private JPanel getNewDifficultyPanel()
     {
-        JPanel panel = new JPanel(new BorderLayout());
+        JPanel panel = new JPanel(new BorderLayout())
+        {
+            @Override
+            protected void paintComponent(Graphics g)
+            {
+                super.paintComponent(g);
+                StartupTimer.mark(StartupTimer.Milestone.FIRST_FRAME);
+            }
+        };
         panel.setBorder(BorderFactory.createEmptyBorder(100, 100, 100, 100));
 
         JPanel directionsPanel = new JPanel();
@@ -145,7 +191,7 @@ public class GUI extends JFrame
         difficultyLabel.setHorizontalAlignment(JLabel.CENTER);
         panel.add(difficultyLabel);
 
-        JLabel attemptsLeftLabel = new JLabel(
+        attemptsLeftLabel = new JLabel(
                 "Attempts Left: " + hangmanGame.getAttemptsLeft());
         attemptsLeftLabel.setHorizontalAlignment(JLabel.CENTER);
         panel.add(attemptsLeftLabel);
@@ -153,75 +199,6 @@ public class GUI extends JFrame
         return panel;
     }
 
-    /**
-     * Gets the panel that displays the wrong letters guessed
-     * 
-     * @return the JPanel with the current wrong guesses
-     */
-    private JPanel getWrongGuessesPanel()
-    {
-        JPanel panel = new JPanel(new GridLayout(2, 0));
-        ArrayList<Character> wrongGuesses = hangmanGame.getWrongGuesses();
-
-        JLabel label = new JLabel("Wrong guesses: ");
-        label.setHorizontalAlignment(JLabel.CENTER);
-        panel.add(label);
-
-        JPanel wrongLettersPanel = new JPanel(
-                new GridLayout(0, wrongGuesses.size() | 1));
-
-        for (char c : wrongGuesses)
-        {
-            JLabel charLabel = new JLabel(Character.toString(c));
-            wrongLettersPanel.add(charLabel);
-        }
-
-        panel.add(wrongLettersPanel);
-        return panel;
-    }
-
-    /**
-     * Gets the panel that displays letters guessed and blank slots that still
-     * need to be guessed
-     * 
-     * @return the JPanel that displays the current guess
-     */
-    private JPanel getCurrentGuessPanel()
-    {
-        JPanel panel = new JPanel();
-        char[] currentGuess = hangmanGame.getCurrentGuess();
-        panel.setLayout(new GridLayout(0, currentGuess.length));
-
-        for (char c : currentGuess)
-        {
-            JLabel label = new JLabel(Character.toString(c));
-            label.setHorizontalAlignment(JLabel.CENTER);
-            panel.add(label);
-        }
-
-        return panel;
-    }
-
-    /**
-     * Gets the panel that displays the hangman art figure
-     * 
-     * @return the JPanel that has the hangman stick figure image
-     */
-    private JPanel getHangmanArtPanel()
-    {
-        JPanel panel = new JPanel();
-
-        JLabel label = new JLabel();
-        label.setIcon(new ImageIcon(
-                new ImageIcon(stickFigure.getCurrentSequencePath().toString())
-                        .getImage().getScaledInstance(
-                                (int) (StickFigure.WIDTH * ASSET_ASPECT_RATIO),
-                                (int) (StickFigure.HEIGHT * ASSET_ASPECT_RATIO),
-                                Image.SCALE_SMOOTH)));
-        panel.add(label);
-        return panel;
-    }
-
     /**
      * Gets the panel that allows the player to guess a letter
      * 
@@ -267,49 +244,206 @@ public class GUI extends JFrame
                 String textFieldValue = textField.getText();
                 if (textFieldValue.length() == 0) return;
 
+                textField.setText("");
+                textField.requestFocusInWindow();
                 try
                 {
                     char playerMove = textFieldValue.charAt(0);
-                    if (hangmanGame.getAllGuessesMade().contains(playerMove))
+                    if (hangmanGame.hasGuessed(playerMove))
                     {
                         return;
                     }
-                    boolean isCorrect = hangmanGame.playerMove(playerMove);
-                    if (!isCorrect) stickFigure.getNextSequencePath();
+                    // * the game listener updates the view
+                    hangmanGame.playerMove(playerMove);
                 }
                 catch (InvalidGuessException exp)
                 {
-                    // TODO: display exp.getMessage()
-                    return;
+                    JOptionPane.showMessageDialog(GUI.this, exp.getMessage(),
+                            "Invalid guess", JOptionPane.WARNING_MESSAGE);
                 }
+            }
+
+        });
+        getRootPane().setDefaultButton(button);
+        panel.add(button);
+
+        return panel;
+    }
+
+    /**
+     * Gets the on-screen keyboard with one button per letter, with the
+     * letters already guessed disabled
+     * 
+     * @return the JPanel with the letter buttons
+     */
+    private JPanel getKeyboardPanel()
+    {
+        JPanel panel = new JPanel(new GridLayout(2, 13, 4, 4));
+        keyButtons = new JButton[26];
+        keyboardMask = 0;
+        for (int i = 0; i < keyButtons.length; i++)
+        {
+            char letter = (char) ('A' + i);
+            JButton button = new JButton(Character.toString(letter));
+            // * keep the focus off the buttons so typed letters always reach
+            // the key bindings
+            button.setFocusable(false);
+            button.addActionListener(new ActionListener()
+            {
+
+                @Override
+                public void actionPerformed(ActionEvent e)
+                {
+                    guess(letter, e.getWhen());
+                }
+            });
+            keyButtons[i] = button;
+            panel.add(button);
+        }
+        return panel;
+    }
+
+    /**
+     * Binds every letter typed anywhere in the window, in either case, to a
+     * guess
+     * 
+     * @param panel The game panel to hold the bindings
+     */
+    private void bindLetterKeys(JPanel panel)
+    {
+        InputMap inputs = panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actions = panel.getActionMap();
+        for (char c = 'A'; c <= 'Z'; c++)
+        {
+            char letter = c;
+            String name = GUESS_ACTION + letter;
+            inputs.put(KeyStroke.getKeyStroke(letter), name);
+            inputs.put(KeyStroke.getKeyStroke(Character.toLowerCase(letter)),
+                    name);
+            actions.put(name, new AbstractAction()
+            {
+                @Override
+                public void actionPerformed(ActionEvent e)
+                {
+                    guess(letter, e.getWhen());
+                }
+            });
+        }
+    }
+
+    /**
+     * Makes a guess typed or clicked on the keyboard and times it until the
+     * view showing its result has been painted. Letters already guessed and
+     * keys pressed after the game ended are ignored.
+     * 
+     * @param letter The guessed letter
+     * @param when   The time the key was pressed, in epoch milliseconds
+     */
+    private void guess(char letter, long when)
+    {
+        if (hangmanGame.didPlayerWin() || hangmanGame.isGameOver()
+                || hangmanGame.hasGuessed(letter))
+            return;
+        // * count from the key press, so the time the event spent queued
+        // counts too
+        long start = System.nanoTime() - Math.max(0,
+                System.currentTimeMillis() - when) * 1_000_000;
+        // * the canvas records the time once it has painted the result
+        gameCanvas.timeKeystroke(start);
+        try
+        {
+            // * the game listener updates the view
+            hangmanGame.playerMove(letter);
+        }
+        catch (InvalidGuessException e)
+        {
+            gameCanvas.timeKeystroke(0);
+            return;
+        }
+        updateKeyboard();
+    }
 
-                if (hangmanGame.didPlayerWin())
+    /**
+     * Disables the keys of the letters guessed since the last update
+     */
+    private void updateKeyboard()
+    {
+        int guessed = hangmanGame.getGuessedMask();
+        for (int changed = guessed & ~keyboardMask; changed != 0;
+                changed &= changed - 1)
+        {
+            keyButtons[Integer.numberOfTrailingZeros(changed)]
+                    .setEnabled(false);
+        }
+        keyboardMask = guessed;
+    }
+
+    /**
+     * Gets the listener that keeps the game panel in step with the game,
+     * updating only the components affected by each change
+     * 
+     * @return the listener for the current game
+     */
+    private HangmanGameListener getGameListener()
+    {
+        return new HangmanGameListener()
+        {
+            @Override
+            public void letterRevealed(char letter, long positions)
+            {
+                long start = System.nanoTime();
+                gameCanvas.revealLetter(letter, positions);
+                GameMetrics.shared().recordGamePanelUpdate(
+                        System.nanoTime() - start);
+            }
+
+            @Override
+            public void wrongGuessAdded(char guess)
+            {
+                long start = System.nanoTime();
+                gameCanvas.addWrongGuess(guess);
+                GameMetrics.shared().recordGamePanelUpdate(
+                        System.nanoTime() - start);
+            }
+
+            @Override
+            public void attemptsChanged(int attemptsLeft)
+            {
+                long start = System.nanoTime();
+                attemptsLeftLabel.setText("Attempts Left: " + attemptsLeft);
+                stickFigure.getNextSequencePath();
+                gameCanvas.showFigure(stickFigure.getCurrentSequenceNumber());
+                GameMetrics.shared().recordGamePanelUpdate(
+                        System.nanoTime() - start);
+            }
+
+            @Override
+            public void gameEnded(boolean playerWon)
+            {
+                PlayerStats stats = preloader.getStats().record(PLAYER,
+                        selectedDifficulty, playerWon,
+                        hangmanGame.getAttemptsLeft());
+                if (WordWeights.ENABLED)
+                    WordWeights.forDifficulty(selectedDifficulty).recordOutcome(
+                            hangmanGame.getWordToGuess(), playerWon);
+                gamePanel.removeAll();
+                gamePanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                        .clear();
+                if (playerWon)
                 {
-                    gamePanel.removeAll();
-                    playerWonPanel = getPlayerWonPanel();
+                    playerWonPanel = getPlayerWonPanel(stats);
                     add(playerWonPanel);
                     playerWonPanel.setVisible(true);
-                    revalidate();
                 }
-                else if (hangmanGame.isGameOver())
+                else
                 {
-                    gamePanel.removeAll();
-                    playerLostPanel = getPlayerLostPanel();
+                    playerLostPanel = getPlayerLostPanel(stats);
                     add(playerLostPanel);
                     playerLostPanel.setVisible(true);
-                    revalidate();
-                }
-                else
-                {
-                    rePaintGamePanel();
                 }
+                revalidate();
             }
-
-        });
-        getRootPane().setDefaultButton(button);
-        panel.add(button);
-
-        return panel;
+        };
     }
 
     /**
@@ -320,7 +454,15 @@ public class GUI extends JFrame
      */
     private JPanel getGamePanel()
     {
-        JPanel gamePanel = new JPanel();
+        JPanel gamePanel = new JPanel()
+        {
+            @Override
+            protected void paintComponent(Graphics g)
+            {
+                super.paintComponent(g);
+                StartupTimer.mark(StartupTimer.Milestone.FIRST_GAME);
+            }
+        };
         gamePanel.setLayout(new BorderLayout());
         gamePanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
 
@@ -329,21 +471,22 @@ public class GUI extends JFrame
         northPanel.add(gameInfoPanel);
         gamePanel.add(northPanel, BorderLayout.NORTH);
 
-        JPanel centerPanel = new JPanel(new GridLayout(3, 0));
-        JPanel wrongGuessesPanel = getWrongGuessesPanel();
-        centerPanel.add(wrongGuessesPanel);
-
-        JPanel hangmanArtPanel = getHangmanArtPanel();
-
-        centerPanel.add(hangmanArtPanel);
-
-        JPanel currentGuessPanel = getCurrentGuessPanel();
-        centerPanel.add(currentGuessPanel);
-        gamePanel.add(centerPanel, BorderLayout.CENTER);
+        // * the canvas is kept from game to game and only shown the new game
+        gameCanvas.startGame(hangmanGame.getCurrentGuess(),
+                hangmanGame.getMaxAttempts(),
+                stickFigure.getCurrentSequenceNumber());
+        gamePanel.add(gameCanvas, BorderLayout.CENTER);
 
         JPanel southPanel = new JPanel();
-        JPanel guesserPanel = getGuesserPanel();
-        southPanel.add(guesserPanel);
+        if (KEYBOARD_INPUT)
+        {
+            southPanel.add(getKeyboardPanel());
+            bindLetterKeys(gamePanel);
+        }
+        else
+        {
+            southPanel.add(getGuesserPanel());
+        }
 
         gamePanel.add(southPanel, BorderLayout.SOUTH);
         return gamePanel;
@@ -352,9 +495,10 @@ public class GUI extends JFrame
     /**
      * Gets the panel that is displayed when a user wins
      * 
+     * @param stats The stats of the player, including this game
      * @return the JPanel that is used when a player wins a game
      */
-    private JPanel getPlayerWonPanel()
+    private JPanel getPlayerWonPanel(PlayerStats stats)
     {
         JPanel panel = new JPanel();
         panel.setLayout(new BorderLayout());
@@ -365,6 +509,7 @@ public class GUI extends JFrame
                 + ".");
         label.setHorizontalAlignment(JLabel.CENTER);
         panel.add(label, BorderLayout.NORTH);
+        panel.add(getStatsLabel(stats), BorderLayout.CENTER);
 
         JButton button = new JButton("New Game");
         button.setPreferredSize(new Dimension(300, 40));
@@ -388,9 +533,10 @@ public class GUI extends JFrame
     /**
      * Gets the panel that is displayed when a player loses the game
      * 
+     * @param stats The stats of the player, including this game
      * @return the JPanel that is used when the player loses
      */
-    private JPanel getPlayerLostPanel()
+    private JPanel getPlayerLostPanel(PlayerStats stats)
     {
         JPanel panel = new JPanel();
         panel.setLayout(new BorderLayout());
@@ -400,6 +546,7 @@ public class GUI extends JFrame
                 "YOU LOST! The word was " + hangmanGame.getWordToGuess() + ".");
         label.setHorizontalAlignment(JLabel.CENTER);
         panel.add(label, BorderLayout.NORTH);
+        panel.add(getStatsLabel(stats), BorderLayout.CENTER);
 
         JButton button = new JButton("New Game");
         button.setPreferredSize(new Dimension(300, 40));
@@ -420,43 +567,39 @@ public class GUI extends JFrame
         return panel;
     }
 
+    /**
+     * Gets the label summarizing the player's stats on the won and lost
+     * panels
+     * 
+     * @param stats The stats of the player
+     * @return the JLabel showing the stats
+     */
+    private JLabel getStatsLabel(PlayerStats stats)
+    {
+        JLabel label = new JLabel(String.format(
+                "%d wins in %d games, streak %d (best %d), %.1f tries left on average",
+                stats.getWins(), stats.getGames(), stats.getCurrentStreak(),
+                stats.getBestStreak(), stats.getAverageAttemptsLeft()));
+        label.setHorizontalAlignment(JLabel.CENTER);
+        return label;
+    }
+
     /**
      * Handles the start of the game by instantiating the appropriate hangman
      * game by chosen difficulty
      */
     private void startGame()
     {
-        switch (selectedDifficulty)
-        {
-            case EASY:
-                hangmanGame = new EasyHangmanGame();
-                break;
-            case MEDIUM:
-                hangmanGame = new MediumHangmanGame();
-                break;
-            case HARD:
-                hangmanGame = new HardHangmanGame();
-                break;
-            default:
-                break;
-        }
+        hangmanGame = selectedDifficulty.newGame();
 
         difficultyPanel.removeAll();
+        hangmanGame.addListener(getGameListener());
         hangmanGame.startGame();
+        long start = System.nanoTime();
         gamePanel = getGamePanel();
         add(gamePanel);
         gamePanel.setVisible(true);
         revalidate();
-    }
-
-    /**
-     * Repaints the game panel
-     */
-    private void rePaintGamePanel()
-    {
-        gamePanel.removeAll();
-        gamePanel = getGamePanel();
-        add(gamePanel);
-        revalidate();
+        GameMetrics.shared().recordGamePanelBuild(System.nanoTime() - start);
     }
 }
@@ -0,0 +1,446 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+/**
+ * Draws the whole Hangman board in one component: the stick figure, the wrong
+ * guesses and a slot for every letter of the word. Nothing is rebuilt when
+ * the game changes; each change marks only the region it affects as dirty and
+ * Swing repaints that region into its back buffer.
+ *
+ * Revealed letters and wrong guesses fade in, and the stick figure fades from
+ * one frame of its sequence to the next. While anything is moving a timer
+ * repaints the moving regions about 60 times a second, and it stops as soon
+ * as everything is still. The glyphs of every character are laid out once
+ * per font and the figure frames come already scaled from StickFigureFrames.
+ *
+ * A keystroke whose result is being drawn can be handed to the canvas, which
+ * records in GameMetrics the time from the keystroke until the end of the
+ * first paint after it.
+ */
+public class GameCanvas extends JComponent
+{
+    // Fields
+    private static final int FRAME_MILLIS = 16;
+    private static final long REVEAL_NANOS = 200_000_000;
+    private static final long FIGURE_NANOS = 250_000_000;
+    private static final int MARGIN = 10;
+    private static final int MAX_SLOT_WIDTH = 40;
+    private static final int WRONG_LETTER_WIDTH = 24;
+    private static final int ROW_HEIGHT = 40;
+    private static final int RISE = 8;
+    private static final String WRONG_LABEL = "Wrong guesses:";
+    private static final Font SLOT_FONT = new Font(Font.SANS_SERIF, Font.BOLD,
+            28);
+    private static final Font WRONG_FONT = new Font(Font.SANS_SERIF,
+            Font.PLAIN, 20);
+    private final StickFigureFrames frames;
+    private final int artWidth;
+    private final int artHeight;
+    private final Timer timer;
+    private final GlyphVector[] slotGlyphs = new GlyphVector[128];
+    private final GlyphVector[] wrongGlyphs = new GlyphVector[128];
+    private GlyphVector wrongLabel;
+    private FontRenderContext glyphContext;
+    private char[] shown = new char[0];
+    private long[] revealStarts = new long[0];
+    private char[] wrongLetters = new char[0];
+    private long[] wrongStarts = new long[0];
+    private int wrongCount;
+    private int fromSequence;
+    private int sequence;
+    private long figureStart;
+    private long frameNanos;
+    // * System.nanoTime of the keystroke waiting for its paint, or 0
+    private long keystrokeNanos;
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+    private int wrongLabelWidth;
+    private final Rectangle artBounds = new Rectangle();
+    private final Rectangle wrongBounds = new Rectangle();
+    private Rectangle[] slotBounds = new Rectangle[0];
+
+    /**
+     * Constructs a GameCanvas object.
+     *
+     * @param frames    The stick figure frames to draw.
+     * @param artWidth  The width to draw the stick figure at.
+     * @param artHeight The height to draw the stick figure at.
+     */
+    public GameCanvas(StickFigureFrames frames, int artWidth, int artHeight)
+    {
+        this.frames = frames;
+        this.artWidth = artWidth;
+        this.artHeight = artHeight;
+        timer = new Timer(FRAME_MILLIS, e -> animate());
+        timer.setCoalesce(true);
+        setOpaque(true);
+        setDoubleBuffered(true);
+        setPreferredSize(new Dimension(artWidth * 4,
+                artHeight + 2 * ROW_HEIGHT + 4 * MARGIN));
+    }
+
+    /**
+     * Starts showing a new game, with its letters hidden and no wrong
+     * guesses.
+     *
+     * @param currentGuess The current guess of the game, with '_' for the
+     *                     letters still hidden.
+     * @param maxWrong     The most wrong guesses the game allows.
+     * @param figure       The sequence number of the stick figure.
+     */
+    public void startGame(char[] currentGuess, int maxWrong, int figure)
+    {
+        shown = currentGuess.clone();
+        revealStarts = new long[shown.length];
+        wrongLetters = new char[maxWrong];
+        wrongStarts = new long[maxWrong];
+        wrongCount = 0;
+        fromSequence = figure;
+        sequence = figure;
+        figureStart = 0;
+        layoutWidth = -1;
+        keystrokeNanos = 0;
+        timer.stop();
+        repaint();
+    }
+
+    /**
+     * Times a keystroke until its result has been painted. Call it on the
+     * event dispatch thread along with the changes the keystroke makes; the
+     * time is recorded at the end of the next paint.
+     *
+     * @param startNanos The System.nanoTime of the keystroke.
+     */
+    public void timeKeystroke(long startNanos)
+    {
+        keystrokeNanos = startNanos;
+    }
+
+    /**
+     * Reveals a letter at its positions in the word, fading it in.
+     *
+     * @param letter    The revealed letter.
+     * @param positions A bit mask of the word positions the letter is at.
+     */
+    public void revealLetter(char letter, long positions)
+    {
+        long now = System.nanoTime();
+        placeRegions();
+        for (long p = positions; p != 0; p &= p - 1)
+        {
+            int i = Long.numberOfTrailingZeros(p);
+            shown[i] = letter;
+            revealStarts[i] = now;
+            repaint(slotBounds[i]);
+        }
+        startAnimation(now);
+    }
+
+    /**
+     * Adds a wrong guess after the ones already shown, fading it in.
+     *
+     * @param letter The wrong guess.
+     */
+    public void addWrongGuess(char letter)
+    {
+        long now = System.nanoTime();
+        if (wrongCount == wrongLetters.length)
+        {
+            wrongLetters = Arrays.copyOf(wrongLetters, wrongCount * 2 + 1);
+            wrongStarts = Arrays.copyOf(wrongStarts, wrongLetters.length);
+        }
+        wrongLetters[wrongCount] = letter;
+        wrongStarts[wrongCount++] = now;
+        placeRegions();
+        repaint(wrongLetterBounds(wrongCount - 1));
+        startAnimation(now);
+    }
+
+    /**
+     * Moves the stick figure to a frame of its sequence, fading from the
+     * frame shown now.
+     *
+     * @param figure The sequence number of the new frame.
+     */
+    public void showFigure(int figure)
+    {
+        long now = System.nanoTime();
+        fromSequence = sequence;
+        sequence = figure;
+        figureStart = now;
+        placeRegions();
+        repaint(artBounds);
+        startAnimation(now);
+    }
+
+    /**
+     * Checks if anything is still moving.
+     *
+     * @return true if an animation is running.
+     */
+    public boolean isAnimating()
+    {
+        return timer.isRunning();
+    }
+
+    /**
+     * Starts the animation timer if it isn't running.
+     *
+     * @param now The current time.
+     */
+    private void startAnimation(long now)
+    {
+        frameNanos = now;
+        if (!timer.isRunning()) timer.start();
+    }
+
+    /**
+     * Runs on every timer tick: repaints the regions that are moving, and
+     * stops the timer once none are.
+     */
+    private void animate()
+    {
+        long now = System.nanoTime();
+        frameNanos = now;
+        boolean moving = false;
+        for (int i = 0; i < revealStarts.length; i++)
+        {
+            if (revealStarts[i] == 0) continue;
+            repaint(slotBounds[i]);
+            if (now - revealStarts[i] >= REVEAL_NANOS) revealStarts[i] = 0;
+            else moving = true;
+        }
+        for (int i = 0; i < wrongCount; i++)
+        {
+            if (wrongStarts[i] == 0) continue;
+            repaint(wrongLetterBounds(i));
+            if (now - wrongStarts[i] >= REVEAL_NANOS) wrongStarts[i] = 0;
+            else moving = true;
+        }
+        if (figureStart != 0)
+        {
+            repaint(artBounds);
+            if (now - figureStart >= FIGURE_NANOS) figureStart = 0;
+            else moving = true;
+        }
+        if (!moving) timer.stop();
+    }
+
+    /**
+     * Gets how far an animation has gone.
+     *
+     * @param start    The time the animation started, or 0 if it is done.
+     * @param duration The length of the animation.
+     * @return the progress from 0 to 1.
+     */
+    private float progress(long start, long duration)
+    {
+        if (start == 0) return 1f;
+        return Math.min(1f, Math.max(0f,
+                (frameNanos - start) / (float) duration));
+    }
+
+    /**
+     * Places the figure, the wrong guesses row and the word slots for the
+     * current size, if it changed.
+     */
+    private void placeRegions()
+    {
+        int width = getWidth();
+        int height = getHeight();
+        if (width == layoutWidth && height == layoutHeight
+                && slotBounds.length == shown.length)
+            return;
+        layoutWidth = width;
+        layoutHeight = height;
+        artBounds.setBounds((width - artWidth) / 2, MARGIN, artWidth,
+                artHeight);
+        wrongBounds.setBounds(MARGIN, artBounds.y + artHeight + MARGIN,
+                width - 2 * MARGIN, ROW_HEIGHT);
+        wrongLabelWidth = getFontMetrics(WRONG_FONT).stringWidth(WRONG_LABEL);
+        int slotWidth = Math.min(MAX_SLOT_WIDTH, (width - 2 * MARGIN)
+                / Math.max(1, shown.length));
+        int left = (width - slotWidth * shown.length) / 2;
+        int top = wrongBounds.y + ROW_HEIGHT + MARGIN;
+        slotBounds = new Rectangle[shown.length];
+        for (int i = 0; i < shown.length; i++)
+        {
+            slotBounds[i] = new Rectangle(left + i * slotWidth, top,
+                    slotWidth, ROW_HEIGHT);
+        }
+    }
+
+    /**
+     * Gets the region of a wrong guess in the wrong guesses row.
+     *
+     * @param index The index of the wrong guess.
+     * @return the region it is drawn in.
+     */
+    private Rectangle wrongLetterBounds(int index)
+    {
+        return new Rectangle(wrongBounds.x + wrongLabelWidth + MARGIN
+                + index * WRONG_LETTER_WIDTH, wrongBounds.y,
+                WRONG_LETTER_WIDTH, ROW_HEIGHT);
+    }
+
+    /**
+     * Paints the parts of the board that intersect the clip.
+     */
+    @Override
+    protected void paintComponent(Graphics graphics)
+    {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try
+        {
+            placeRegions();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON);
+            updateGlyphContext(g.getFontRenderContext());
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(),
+                    getHeight());
+            g.setColor(getBackground() != null ? getBackground()
+                    : Color.WHITE);
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            g.setColor(getForeground() != null ? getForeground()
+                    : Color.BLACK);
+
+            if (clip.intersects(artBounds)) paintFigure(g);
+            if (clip.intersects(wrongBounds)) paintWrongGuesses(g, clip);
+            for (int i = 0; i < slotBounds.length; i++)
+            {
+                if (clip.intersects(slotBounds[i])) paintSlot(g, i);
+            }
+        }
+        finally
+        {
+            g.dispose();
+        }
+        if (keystrokeNanos != 0)
+        {
+            GameMetrics.shared().recordKeystrokeToPaint(
+                    System.nanoTime() - keystrokeNanos);
+            keystrokeNanos = 0;
+        }
+    }
+
+    /**
+     * Paints the stick figure, blending the previous frame into the current
+     * one while it changes.
+     */
+    private void paintFigure(Graphics2D g)
+    {
+        float p = progress(figureStart, FIGURE_NANOS);
+        Composite composite = g.getComposite();
+        if (p < 1f)
+        {
+            g.drawImage(frames.getFrame(fromSequence, artWidth, artHeight),
+                    artBounds.x, artBounds.y, null);
+            g.setComposite(AlphaComposite.getInstance(
+                    AlphaComposite.SRC_OVER, p));
+        }
+        g.drawImage(frames.getFrame(sequence, artWidth, artHeight),
+                artBounds.x, artBounds.y, null);
+        g.setComposite(composite);
+    }
+
+    /**
+     * Paints the wrong guesses label and the wrong guesses in the clip.
+     */
+    private void paintWrongGuesses(Graphics2D g, Rectangle clip)
+    {
+        float baseline = wrongBounds.y + ROW_HEIGHT * 0.7f;
+        g.drawGlyphVector(wrongLabel, wrongBounds.x, baseline);
+        Composite composite = g.getComposite();
+        for (int i = 0; i < wrongCount; i++)
+        {
+            Rectangle bounds = wrongLetterBounds(i);
+            if (!clip.intersects(bounds)) continue;
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+                    progress(wrongStarts[i], REVEAL_NANOS)));
+            g.drawGlyphVector(glyph(wrongGlyphs, WRONG_FONT, wrongLetters[i]),
+                    bounds.x, baseline);
+        }
+        g.setComposite(composite);
+    }
+
+    /**
+     * Paints one word slot: its underline, and its letter once revealed,
+     * rising and fading in while it is new.
+     */
+    private void paintSlot(Graphics2D g, int i)
+    {
+        Rectangle bounds = slotBounds[i];
+        int gap = bounds.width / 8;
+        int underline = bounds.y + bounds.height - 4;
+        char c = shown[i];
+        if (c == '_')
+        {
+            g.drawLine(bounds.x + gap, underline, bounds.x + bounds.width - gap,
+                    underline);
+            return;
+        }
+        float p = progress(revealStarts[i], REVEAL_NANOS);
+        GlyphVector glyph = glyph(slotGlyphs, SLOT_FONT, c);
+        Rectangle2D box = glyph.getLogicalBounds();
+        float x = (float) (bounds.x + (bounds.width - box.getWidth()) / 2);
+        float y = underline - 6 + RISE * (1f - p);
+        Composite composite = g.getComposite();
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+                p));
+        g.drawGlyphVector(glyph, x, y);
+        g.setComposite(composite);
+        if (Character.isLetter(c))
+            g.drawLine(bounds.x + gap, underline,
+                    bounds.x + bounds.width - gap, underline);
+    }
+
+    /**
+     * Drops the cached glyphs if the font rendering context changed, as it
+     * does when the window moves to a screen with a different scale.
+     */
+    private void updateGlyphContext(FontRenderContext context)
+    {
+        if (context.equals(glyphContext)) return;
+        glyphContext = context;
+        Arrays.fill(slotGlyphs, null);
+        Arrays.fill(wrongGlyphs, null);
+        wrongLabel = WRONG_FONT.createGlyphVector(context, WRONG_LABEL);
+    }
+
+    /**
+     * Gets the glyphs of a character, laying them out on first use.
+     *
+     * @param cache The cache of the font, indexed by character.
+     * @param font  The font to lay the character out in.
+     * @param c     The character.
+     * @return the laid out glyphs.
+     */
+    private GlyphVector glyph(GlyphVector[] cache, Font font, char c)
+    {
+        if (c >= cache.length)
+            return font.createGlyphVector(glyphContext, Character.toString(c));
+        GlyphVector glyph = cache[c];
+        if (glyph == null)
+        {
+            glyph = font.createGlyphVector(glyphContext,
+                    Character.toString(c));
+            cache[c] = glyph;
+        }
+        return glyph;
+    }
+}
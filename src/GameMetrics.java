@@ -0,0 +1,369 @@
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for the hot paths of the game, shared by
+ * the whole process. Everything is recorded into striped adders so recording
+ * never allocates or blocks. Calls that take tens of nanoseconds are timed
+ * only on the first call and then once every SAMPLE_INTERVAL calls or games
+ * per thread. The countdowns are kept per thread rather than per game or
+ * word list, since the game makes a new one of each for every round. The
+ * batch simulator keeps its games out of the per-game counters and adds its
+ * totals once per chunk, which keeps the cost of metrics in that path below
+ * one percent.
+ *
+ * Setting the system property hangman.metrics to false turns recording off,
+ * and setting hangman.metrics.log to a number of seconds logs every metric at
+ * that interval.
+ */
+public final class GameMetrics implements GameMetricsMXBean
+{
+    // Fields
+    public static final boolean ENABLED = !"false"
+            .equals(System.getProperty("hangman.metrics"));
+    public static final int SAMPLE_INTERVAL = 1024;
+    public static final long FRAME_NANOS = 16_000_000;
+    private static final String OBJECT_NAME = "hangman:type=GameMetrics";
+    private static final GameMetrics SHARED = new GameMetrics();
+    private static final Logger LOG = Logger.getLogger("hangman.metrics");
+    private final LatencyHistogram wordListLoad = new LatencyHistogram();
+    private final LongAdder randomWordCalls = new LongAdder();
+    private final LatencyHistogram randomWord = new LatencyHistogram();
+    private final LongAdder playerMoves = new LongAdder();
+    private final LatencyHistogram playerMove = new LatencyHistogram();
+    private final LongAdder[] wins = newAdders();
+    private final LongAdder[] losses = newAdders();
+    private final LatencyHistogram gamePanelBuild = new LatencyHistogram();
+    private final LatencyHistogram gamePanelUpdate = new LatencyHistogram();
+    private final LatencyHistogram keystrokeToPaint = new LatencyHistogram();
+    private final LongAdder keystrokesOverFrame = new LongAdder();
+    // * calls left on this thread until the next sample, starting at 0 so
+    // the first call is sampled
+    private final ThreadLocal<int[]> gamesUntilSample = ThreadLocal
+            .withInitial(() -> new int[1]);
+    private final ThreadLocal<int[]> drawsUntilSample = ThreadLocal
+            .withInitial(() -> new int[1]);
+    private ScheduledExecutorService logger;
+
+    /**
+     * Constructs a GameMetrics object. Use shared to get the one the game
+     * records into.
+     */
+    private GameMetrics()
+    {
+    }
+
+    /**
+     * Gets the metrics of this process.
+     *
+     * @return the shared metrics.
+     */
+    public static GameMetrics shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Registers the shared metrics with the platform MBean server, and starts
+     * logging them if hangman.metrics.log is set. Calling this again does
+     * nothing.
+     */
+    public static synchronized void install()
+    {
+        if (!ENABLED) return;
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(SHARED,
+                    new ObjectName(OBJECT_NAME));
+        }
+        catch (InstanceAlreadyExistsException e)
+        {
+            return;
+        }
+        catch (JMException e)
+        {
+            throw new IllegalStateException(e);
+        }
+        String seconds = System.getProperty("hangman.metrics.log");
+        if (seconds != null) SHARED.startLogging(Long.parseLong(seconds));
+    }
+
+    /**
+     * Logs every metric at a fixed interval on a daemon thread.
+     *
+     * @param periodSeconds The interval between logs.
+     */
+    public synchronized void startLogging(long periodSeconds)
+    {
+        if (logger != null) return;
+        logger = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(() -> LOG.info(dump()), periodSeconds,
+                periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates one adder per difficulty.
+     *
+     * @return the adders, indexed by difficulty ordinal.
+     */
+    private static LongAdder[] newAdders()
+    {
+        LongAdder[] adders = new LongAdder[Difficulty.values().length];
+        for (int i = 0; i < adders.length; i++)
+        {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Counts down to the next sample on a thread.
+     *
+     * @param untilSample The countdown of the thread.
+     * @return true if this call is to be timed.
+     */
+    private static boolean sample(ThreadLocal<int[]> untilSample)
+    {
+        int[] countdown = untilSample.get();
+        if (--countdown[0] > 0) return false;
+        countdown[0] = SAMPLE_INTERVAL;
+        return true;
+    }
+
+    /**
+     * Decides whether the moves of a game starting on this thread are
+     * timed: those of the thread's first game and then of one in every
+     * SAMPLE_INTERVAL games.
+     *
+     * @return true if the moves of the game are to be timed.
+     */
+    public boolean sampleGame()
+    {
+        return sample(gamesUntilSample);
+    }
+
+    /**
+     * Decides whether a getRandomWordFromList call on this thread is timed:
+     * the thread's first call and then one in every SAMPLE_INTERVAL calls.
+     *
+     * @return true if the call is to be timed.
+     */
+    public boolean sampleRandomWord()
+    {
+        return sample(drawsUntilSample);
+    }
+
+    /**
+     * Records the time taken to load the words of a difficulty level.
+     *
+     * @param nanos The time taken.
+     */
+    public void recordWordListLoad(long nanos)
+    {
+        if (!ENABLED) return;
+        wordListLoad.record(nanos);
+    }
+
+    /**
+     * Records a word drawn with getRandomWordFromList.
+     */
+    public void countRandomWord()
+    {
+        if (!ENABLED) return;
+        randomWordCalls.increment();
+    }
+
+    /**
+     * Records the time taken by a sampled getRandomWordFromList call.
+     *
+     * @param nanos The time taken.
+     */
+    public void recordRandomWord(long nanos)
+    {
+        if (!ENABLED) return;
+        randomWord.record(nanos);
+    }
+
+    /**
+     * Records the time taken by a sampled playerMove call.
+     *
+     * @param nanos The time taken.
+     */
+    public void recordPlayerMove(long nanos)
+    {
+        if (!ENABLED) return;
+        playerMove.record(nanos);
+    }
+
+    /**
+     * Records games that ended and the moves made in them.
+     *
+     * @param difficulty The difficulty of the games.
+     * @param won        The number of games won.
+     * @param lost       The number of games lost.
+     * @param moves      The number of letters guessed, not counting repeated
+     *                   guesses.
+     */
+    public void recordGames(Difficulty difficulty, int won, int lost,
+            int moves)
+    {
+        if (!ENABLED) return;
+        if (won != 0) wins[difficulty.ordinal()].add(won);
+        if (lost != 0) losses[difficulty.ordinal()].add(lost);
+        if (moves != 0) playerMoves.add(moves);
+    }
+
+    /**
+     * Records the time taken to build the GUI's game panel.
+     *
+     * @param nanos The time taken.
+     */
+    public void recordGamePanelBuild(long nanos)
+    {
+        if (!ENABLED) return;
+        gamePanelBuild.record(nanos);
+    }
+
+    /**
+     * Records the time taken to update the GUI's game panel after a move.
+     *
+     * @param nanos The time taken.
+     */
+    public void recordGamePanelUpdate(long nanos)
+    {
+        if (!ENABLED) return;
+        gamePanelUpdate.record(nanos);
+    }
+
+    /**
+     * Records the time from a guess typed or clicked in the GUI until the
+     * view showing its result was painted.
+     *
+     * @param nanos The time taken.
+     */
+    public void recordKeystrokeToPaint(long nanos)
+    {
+        if (!ENABLED) return;
+        keystrokeToPaint.record(nanos);
+        if (nanos > FRAME_NANOS) keystrokesOverFrame.increment();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getWordListLoad()
+    {
+        return wordListLoad.summarize();
+    }
+
+    @Override
+    public long getRandomWordCalls()
+    {
+        return randomWordCalls.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getRandomWordSampled()
+    {
+        return randomWord.summarize();
+    }
+
+    @Override
+    public long getPlayerMoves()
+    {
+        return playerMoves.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getPlayerMoveSampled()
+    {
+        return playerMove.summarize();
+    }
+
+    @Override
+    public Map<String, Long> getWins()
+    {
+        return perDifficulty(wins);
+    }
+
+    @Override
+    public Map<String, Long> getLosses()
+    {
+        return perDifficulty(losses);
+    }
+
+    /**
+     * Sums adders indexed by difficulty ordinal.
+     *
+     * @param adders The adders.
+     * @return the sums keyed by difficulty name.
+     */
+    private static Map<String, Long> perDifficulty(LongAdder[] adders)
+    {
+        Map<String, Long> sums = new LinkedHashMap<String, Long>();
+        for (Difficulty d : Difficulty.values())
+        {
+            sums.put(d.name(), adders[d.ordinal()].sum());
+        }
+        return sums;
+    }
+
+    @Override
+    public LatencyHistogram.Summary getGamePanelBuild()
+    {
+        return gamePanelBuild.summarize();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getGamePanelUpdate()
+    {
+        return gamePanelUpdate.summarize();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getKeystrokeToPaint()
+    {
+        return keystrokeToPaint.summarize();
+    }
+
+    @Override
+    public long getKeystrokesOverFrame()
+    {
+        return keystrokesOverFrame.sum();
+    }
+
+    @Override
+    public String dump()
+    {
+        Map<Difficulty, String> outcomes = new EnumMap<Difficulty, String>(
+                Difficulty.class);
+        for (Difficulty d : Difficulty.values())
+        {
+            outcomes.put(d, wins[d.ordinal()].sum() + " won / "
+                    + losses[d.ordinal()].sum() + " lost");
+        }
+        return "wordListLoad: " + getWordListLoad()
+                + "\nrandomWord: calls=" + getRandomWordCalls() + " sampled "
+                + getRandomWordSampled()
+                + "\nplayerMove: moves=" + getPlayerMoves() + " sampled "
+                + getPlayerMoveSampled()
+                + "\noutcomes: " + outcomes
+                + "\ngamePanelBuild: " + getGamePanelBuild()
+                + "\ngamePanelUpdate: " + getGamePanelUpdate()
+                + "\nkeystrokeToPaint: " + getKeystrokeToPaint()
+                + " over frame=" + getKeystrokesOverFrame();
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.Map;
+
+/**
+ * The management interface of GameMetrics, published over JMX as
+ * hangman:type=GameMetrics. Durations are in nanoseconds.
+ */
+public interface GameMetricsMXBean
+{
+    /**
+     * @return the time taken to load the words of a difficulty level.
+     */
+    LatencyHistogram.Summary getWordListLoad();
+
+    /**
+     * @return the number of words drawn with getRandomWordFromList.
+     */
+    long getRandomWordCalls();
+
+    /**
+     * @return the time taken by a sample of getRandomWordFromList calls.
+     */
+    LatencyHistogram.Summary getRandomWordSampled();
+
+    /**
+     * @return the number of letters guessed in games that ended, not counting
+     *         repeated guesses.
+     */
+    long getPlayerMoves();
+
+    /**
+     * @return the time taken by a sample of playerMove calls.
+     */
+    LatencyHistogram.Summary getPlayerMoveSampled();
+
+    /**
+     * @return the number of games won, per difficulty.
+     */
+    Map<String, Long> getWins();
+
+    /**
+     * @return the number of games lost, per difficulty.
+     */
+    Map<String, Long> getLosses();
+
+    /**
+     * @return the time taken to build the GUI's game panel for a new game.
+     */
+    LatencyHistogram.Summary getGamePanelBuild();
+
+    /**
+     * @return the time taken to update the GUI's game panel after a move.
+     */
+    LatencyHistogram.Summary getGamePanelUpdate();
+
+    /**
+     * @return the time from a guess typed or clicked in the GUI until its
+     *         result was painted.
+     */
+    LatencyHistogram.Summary getKeystrokeToPaint();
+
+    /**
+     * @return the number of guesses whose result took longer than one 16 ms
+     *         frame to paint.
+     */
+    long getKeystrokesOverFrame();
+
+    /**
+     * @return every metric formatted for a log.
+     */
+    String dump();
+}
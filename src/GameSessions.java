@@ -0,0 +1,414 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents the in-memory registry of live games hosted by the server. Each
+ * session is guarded by its own lock, so moves on different games never wait on
+ * each other. With a MoveJournal attached, every start, move and removal is
+ * journaled before it is acknowledged: a move is appended to the journal under
+ * the session lock, and the caller waits for it with
+ * {@link #awaitJournaled(Session)} once it has let go of the lock, so a thread
+ * waiting for the disk never holds a monitor. The sessions are rebuilt from the
+ * journal when it is opened again. A game's end is journaled by the move that
+ * wins or loses it, so only games still in progress are rebuilt and finished
+ * games never hold back compaction.
+ */
+public class GameSessions
+{
+    // Fields
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<Long, Session>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final long idleTimeoutMillis;
+    private volatile MoveJournal journal;
+
+    /**
+     * A hosted game together with its id and the last time it was used.
+     */
+    public static class Session
+    {
+        private final long id;
+        private final HangmanGame game;
+        private volatile long lastAccessMillis;
+        // * position of the last journal record of the session, or -1
+        private volatile long journalPosition = -1;
+
+        /**
+         * Constructs a Session object.
+         *
+         * @param id   The session id.
+         * @param game The started game.
+         */
+        private Session(long id, HangmanGame game)
+        {
+            this.id = id;
+            this.game = game;
+            touch();
+        }
+
+        /**
+         * Gets the id of the session.
+         *
+         * @return the session id.
+         */
+        public long getId()
+        {
+            return id;
+        }
+
+        /**
+         * Gets the game of the session. Callers must hold the session lock,
+         * see {@link #lock()}, while using it.
+         *
+         * @return the game.
+         */
+        public HangmanGame getGame()
+        {
+            return game;
+        }
+
+        /**
+         * Gets the lock guarding the game.
+         *
+         * @return the session lock.
+         */
+        public Object lock()
+        {
+            return game;
+        }
+
+        /**
+         * Marks the session as used now.
+         */
+        private void touch()
+        {
+            lastAccessMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * A game rebuilt from the journal, playing on the word it was started
+     * with.
+     */
+    private static class ReplayedGame extends HangmanGame
+    {
+        private final String word;
+
+        /**
+         * Constructs a ReplayedGame object.
+         *
+         * @param difficulty  The difficulty of the game.
+         * @param maxAttempts The maximum number of attempts of the game.
+         * @param word        The word to guess.
+         */
+        ReplayedGame(Difficulty difficulty, int maxAttempts, String word)
+        {
+            // * the game was counted by GameMetrics when it was first played
+            super(difficulty, maxAttempts, false);
+            this.word = word;
+        }
+
+        /**
+         * Returns the journaled word.
+         */
+        @Override
+        protected char[] chooseWord()
+        {
+            return word.toCharArray();
+        }
+    }
+
+    /**
+     * Constructs a GameSessions object.
+     *
+     * @param idleTimeoutMillis How long a session may go unused before
+     *                          {@link #evictIdle()} removes it.
+     */
+    public GameSessions(long idleTimeoutMillis)
+    {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Creates and starts a game of the specified difficulty.
+     *
+     * @param difficulty The difficulty of the game.
+     * @return the new session.
+     */
+    public Session create(Difficulty difficulty)
+    {
+        HangmanGame game = difficulty.newGame();
+        game.startGame();
+        Session session = new Session(nextId.getAndIncrement(), game);
+        MoveJournal journal = this.journal;
+        if (journal != null)
+        {
+            long position;
+            synchronized (session.lock())
+            {
+                position = journal.recordStart(session.getId(), difficulty,
+                        game.getMaxAttempts(), game.getWordToGuess());
+                game.addListener(journalListener(journal, session));
+            }
+            journal.awaitDurable(position);
+        }
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Gets a session by id and marks it as used.
+     *
+     * @param id The session id.
+     * @return the session, or null if there is no session with the id.
+     */
+    public Session get(long id)
+    {
+        Session session = sessions.get(id);
+        if (session != null) session.touch();
+        return session;
+    }
+
+    /**
+     * Waits until the last move made on a session, and the end of its game
+     * if that move ended it, is durable in the journal. Call it after making
+     * moves and after letting go of the session lock, before acknowledging
+     * them; it returns at once if there is no journal.
+     *
+     * @param session The session moves were made on.
+     */
+    public void awaitJournaled(Session session)
+    {
+        MoveJournal journal = this.journal;
+        long position = session.journalPosition;
+        if (journal != null && position >= 0) journal.awaitDurable(position);
+    }
+
+    /**
+     * Removes a session, waiting until its removal is journaled.
+     *
+     * @param id The session id.
+     * @return the removed session, or null if there is no session with the id.
+     */
+    public Session remove(long id)
+    {
+        Session session = sessions.remove(id);
+        if (session == null) return null;
+        MoveJournal journal = this.journal;
+        long position = journalEnd(journal, session);
+        if (position >= 0) journal.awaitDurable(position);
+        return session;
+    }
+
+    /**
+     * Journals the end of a removed session, unless the move that ended its
+     * game already did.
+     *
+     * @param journal The journal to write to, or null if there is none.
+     * @param session The removed session.
+     * @return the position of the end record, or -1 if none was written.
+     */
+    private static long journalEnd(MoveJournal journal, Session session)
+    {
+        if (journal == null) return -1;
+        synchronized (session.lock())
+        {
+            HangmanGame game = session.getGame();
+            if (game.didPlayerWin() || game.isGameOver()) return -1;
+            return journal.recordEnd(session.getId());
+        }
+    }
+
+    /**
+     * Gets the number of live sessions.
+     *
+     * @return the number of sessions.
+     */
+    public int size()
+    {
+        return sessions.size();
+    }
+
+    /**
+     * Removes every session that has not been used within the idle timeout.
+     *
+     * @return the number of sessions removed.
+     */
+    public int evictIdle()
+    {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        MoveJournal journal = this.journal;
+        int removed = 0;
+        long position = -1;
+        for (Session session : sessions.values())
+        {
+            if (session.lastAccessMillis < cutoff
+                    && sessions.remove(session.getId(), session))
+            {
+                removed++;
+                position = Math.max(position,
+                        journalEnd(journal, session));
+            }
+        }
+        // * one flush covers every removal
+        if (position >= 0) journal.awaitDurable(position);
+        return removed;
+    }
+
+    /**
+     * Opens a journal and rebuilds the sessions recorded in it. From then on
+     * every start, move and removal is journaled. Must be called before any
+     * session is created.
+     *
+     * @param directory   The journal directory.
+     * @param segmentSize The size of each journal segment in bytes.
+     * @param sync        true to wait for the disk before acknowledging a
+     *                    start or move, false to flush in the background.
+     * @return the number of sessions rebuilt.
+     * @throws IOException if the journal can't be read or created.
+     */
+    public int openJournal(Path directory, int segmentSize, boolean sync)
+            throws IOException
+    {
+        HashMap<Long, HangmanGame> games = new HashMap<Long, HangmanGame>();
+        long[] maxId = new long[1];
+        MoveJournal opened = MoveJournal.open(directory, segmentSize, sync,
+                new MoveJournal.Replay()
+                {
+                    public void start(long id, Difficulty difficulty,
+                            int maxAttempts, String word)
+                    {
+                        HangmanGame game = new ReplayedGame(difficulty,
+                                maxAttempts, word);
+                        game.startGame();
+                        games.put(id, game);
+                        maxId[0] = Math.max(maxId[0], id);
+                    }
+
+                    public void move(long id, char letter)
+                    {
+                        HangmanGame game = games.get(id);
+                        if (game == null) return;
+                        try
+                        {
+                            game.playerMove(letter);
+                        }
+                        catch (InvalidGuessException | IllegalStateException e)
+                        {
+                            // * only accepted moves are journaled
+                        }
+                    }
+
+                    public void end(long id)
+                    {
+                        games.remove(id);
+                        maxId[0] = Math.max(maxId[0], id);
+                    }
+                });
+
+        for (Map.Entry<Long, HangmanGame> entry : games.entrySet())
+        {
+            long id = entry.getKey();
+            Session session = new Session(id, entry.getValue());
+            session.getGame().addListener(journalListener(opened, session));
+            sessions.put(id, session);
+        }
+        // * never hand out an id the journal has already seen
+        nextId.accumulateAndGet(maxId[0] + 1, Math::max);
+        journal = opened;
+        return games.size();
+    }
+
+    /**
+     * Deletes the journal segments only removed sessions were started in,
+     * writing the sessions that still need an older segment again first.
+     *
+     * @return the number of segments deleted.
+     */
+    public int compactJournal()
+    {
+        MoveJournal journal = this.journal;
+        if (journal == null) return 0;
+        try
+        {
+            return journal.compact(id ->
+            {
+                Session session = sessions.get(id);
+                if (session == null) return;
+                synchronized (session.lock())
+                {
+                    // * a session removed or finished meanwhile has its end
+                    // journaled
+                    HangmanGame game = session.getGame();
+                    if (sessions.get(id) != session || game.didPlayerWin()
+                            || game.isGameOver())
+                        return;
+                    journal.recordStart(id, game.getDifficulty(),
+                            game.getMaxAttempts(), game.getWordToGuess());
+                    for (char c : game.getAllGuessesMade())
+                    {
+                        journal.recordMove(id, c);
+                    }
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            // * the segments are kept and deleted by a later compaction
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Flushes and closes the journal, if there is one.
+     *
+     * @throws IOException if the journal can't be closed.
+     */
+    public void closeJournal() throws IOException
+    {
+        MoveJournal journal = this.journal;
+        this.journal = null;
+        if (journal != null) journal.close();
+    }
+
+    /**
+     * Creates the listener that journals the moves of a session, and its end
+     * once a move wins or loses the game. Each record is appended under the
+     * session lock without waiting; its position is kept on the session for
+     * {@link #awaitJournaled(Session)}, so a move that ends the game waits
+     * for one group commit covering both records.
+     *
+     * @param journal The journal to write to.
+     * @param session The session.
+     * @return the listener.
+     */
+    private static HangmanGameListener journalListener(MoveJournal journal,
+            Session session)
+    {
+        long id = session.getId();
+        return new HangmanGameListener()
+        {
+            @Override
+            public void letterRevealed(char letter, long positions)
+            {
+                session.journalPosition = journal.recordMove(id, letter);
+            }
+
+            @Override
+            public void wrongGuessAdded(char guess)
+            {
+                session.journalPosition = journal.recordMove(id, guess);
+            }
+
+            @Override
+            public void gameEnded(boolean playerWon)
+            {
+                session.journalPosition = journal.recordEnd(id);
+            }
+        };
+    }
+}
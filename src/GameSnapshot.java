@@ -0,0 +1,227 @@
+/**
+ * Represents the complete state of a Hangman game at one point in time. A
+ * snapshot never changes; applying a guess returns a new snapshot. Letters are
+ * tracked as bit masks over A-Z where bit 0 is A and bit 25 is Z.
+ */
+public final class GameSnapshot
+{
+    // Fields
+    private final String wordToGuess;
+    private final String currentGuess;
+    private final String guesses;
+    private final String wrongGuesses;
+    private final int wordMask;
+    private final int guessedMask;
+    private final int wrongMask;
+    private final int attemptsLeft;
+    private final int maxAttempts;
+
+    /**
+     * Constructs a GameSnapshot object.
+     */
+    private GameSnapshot(String wordToGuess, String currentGuess,
+            String guesses, String wrongGuesses, int wordMask,
+            int guessedMask, int wrongMask, int attemptsLeft, int maxAttempts)
+    {
+        this.wordToGuess = wordToGuess;
+        this.currentGuess = currentGuess;
+        this.guesses = guesses;
+        this.wrongGuesses = wrongGuesses;
+        this.wordMask = wordMask;
+        this.guessedMask = guessedMask;
+        this.wrongMask = wrongMask;
+        this.attemptsLeft = attemptsLeft;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Creates the snapshot of a game that has just started.
+     *
+     * @param word        The word to be guessed.
+     * @param maxAttempts The maximum number of attempts allowed.
+     * @return the starting snapshot.
+     */
+    public static GameSnapshot start(String word, int maxAttempts)
+    {
+        char[] current = new char[word.length()];
+        int wordMask = 0;
+        for (int i = 0; i < current.length; i++)
+        {
+            int letter = HangmanGame.letterIndex(word.charAt(i));
+            if (letter < 0)
+            {
+                // * characters that can't be guessed are shown from the start
+                current[i] = word.charAt(i);
+                continue;
+            }
+            current[i] = '_';
+            wordMask |= 1 << letter;
+        }
+        return new GameSnapshot(word, new String(current), "", "", wordMask,
+                0, 0, maxAttempts, maxAttempts);
+    }
+
+    /**
+     * Applies a guess to this snapshot. A letter that was already guessed
+     * leaves the state unchanged and this snapshot is returned.
+     *
+     * @param playerGuess The character guessed by the player.
+     * @return the snapshot after the guess.
+     * @throws InvalidGuessException if the character is not a letter from
+     *                               A-Z.
+     * @throws IllegalStateException if the game has already been won or lost.
+     */
+    public GameSnapshot afterGuess(char playerGuess)
+            throws InvalidGuessException
+    {
+        int letter = HangmanGame.letterIndex(playerGuess);
+        if (letter < 0) throw new InvalidGuessException();
+        if (didPlayerWin() || isGameOver())
+            throw new IllegalStateException("Game is already over");
+
+        int bit = 1 << letter;
+        if ((guessedMask & bit) != 0) return this;
+
+        String newGuesses = guesses + playerGuess;
+        if ((wordMask & bit) != 0)
+        {
+            char[] current = currentGuess.toCharArray();
+            char revealed = (char) ('A' + letter);
+            for (int i = 0; i < current.length; i++)
+            {
+                if (HangmanGame.letterIndex(wordToGuess.charAt(i)) == letter)
+                    current[i] = revealed;
+            }
+            return new GameSnapshot(wordToGuess, new String(current),
+                    newGuesses, wrongGuesses, wordMask, guessedMask | bit,
+                    wrongMask, attemptsLeft, maxAttempts);
+        }
+        return new GameSnapshot(wordToGuess, currentGuess, newGuesses,
+                wrongGuesses + playerGuess, wordMask, guessedMask | bit,
+                wrongMask | bit, attemptsLeft - 1, maxAttempts);
+    }
+
+    /**
+     * Checks if the player has won the game.
+     *
+     * @return true if every letter in the word has been guessed.
+     */
+    public boolean didPlayerWin()
+    {
+        return (wordMask & ~guessedMask) == 0;
+    }
+
+    /**
+     * Checks if the game is over.
+     *
+     * @return true if attempts left are zero.
+     */
+    public boolean isGameOver()
+    {
+        return attemptsLeft == 0;
+    }
+
+    /**
+     * Checks if the player already guessed a letter, ignoring case.
+     *
+     * @param c The letter to check.
+     * @return true if the letter was already guessed.
+     */
+    public boolean hasGuessed(char c)
+    {
+        int letter = HangmanGame.letterIndex(c);
+        return letter >= 0 && (guessedMask & (1 << letter)) != 0;
+    }
+
+    /**
+     * Checks if a letter is in the word, ignoring case.
+     *
+     * @param c The letter to check.
+     * @return true if the letter is in the word.
+     */
+    public boolean isInWord(char c)
+    {
+        int letter = HangmanGame.letterIndex(c);
+        return letter >= 0 && (wordMask & (1 << letter)) != 0;
+    }
+
+    /**
+     * Gets the word to be guessed.
+     *
+     * @return the word to be guessed.
+     */
+    public String getWordToGuess()
+    {
+        return wordToGuess;
+    }
+
+    /**
+     * Gets the current guessed word status, with '_' for hidden letters.
+     *
+     * @return the current guessed word.
+     */
+    public String getCurrentGuess()
+    {
+        return currentGuess;
+    }
+
+    /**
+     * Gets every guess in the order it was applied.
+     *
+     * @return the guesses made so far.
+     */
+    public String getGuesses()
+    {
+        return guesses;
+    }
+
+    /**
+     * Gets the wrong guesses in the order they were made.
+     *
+     * @return the wrong guesses.
+     */
+    public String getWrongGuesses()
+    {
+        return wrongGuesses;
+    }
+
+    /**
+     * Gets the letters guessed so far as a bit mask.
+     *
+     * @return the mask of guessed letters.
+     */
+    public int getGuessedMask()
+    {
+        return guessedMask;
+    }
+
+    /**
+     * Gets the wrongly guessed letters as a bit mask.
+     *
+     * @return the mask of wrong guesses.
+     */
+    public int getWrongMask()
+    {
+        return wrongMask;
+    }
+
+    /**
+     * Gets the number of attempts left.
+     *
+     * @return the number of attempts left.
+     */
+    public int getAttemptsLeft()
+    {
+        return attemptsLeft;
+    }
+
+    /**
+     * Gets the maximum number of attempts allowed.
+     *
+     * @return the maximum number of attempts.
+     */
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * The GuessStrategy interface represents a way of playing a HangmanGame
+ * without a person, used by the BatchSimulator. A strategy instance is only
+ * ever used by one thread.
+ */
+public interface GuessStrategy
+{
+    /**
+     * Called when a new game has been started.
+     *
+     * @param game The started game.
+     */
+    void start(HangmanGame game);
+
+    /**
+     * Picks the next letter to guess. The letter must not have been guessed
+     * yet.
+     *
+     * @param game The game being played.
+     * @return the letter to guess.
+     */
+    char nextGuess(HangmanGame game);
+
+    /**
+     * Creates a strategy that guesses letters from the most to the least
+     * common in English.
+     *
+     * @return the strategy.
+     */
+    static GuessStrategy frequency()
+    {
+        return new GuessStrategy()
+        {
+            private static final String ORDER = "ETAOINSHRDLCUMWFGYPBVKJXQZ";
+
+            @Override
+            public void start(HangmanGame game)
+            {
+            }
+
+            @Override
+            public char nextGuess(HangmanGame game)
+            {
+                int guessed = game.getGuessedMask();
+                for (int i = 0; i < ORDER.length(); i++)
+                {
+                    char c = ORDER.charAt(i);
+                    if ((guessed & (1 << (c - 'A'))) == 0) return c;
+                }
+                throw new IllegalStateException("Every letter was guessed");
+            }
+        };
+    }
+
+    /**
+     * Creates a strategy that guesses a random letter not yet guessed.
+     *
+     * @param random The random number generator of the strategy.
+     * @return the strategy.
+     */
+    static GuessStrategy random(RandomGenerator random)
+    {
+        return new GuessStrategy()
+        {
+            @Override
+            public void start(HangmanGame game)
+            {
+            }
+
+            @Override
+            public char nextGuess(HangmanGame game)
+            {
+                int open = ~game.getGuessedMask() & ((1 << 26) - 1);
+                if (open == 0)
+                    throw new IllegalStateException("Every letter was guessed");
+                // * pick the n-th letter still open
+                int n = random.nextInt(Integer.bitCount(open));
+                for (int i = 0; i < n; i++)
+                {
+                    open &= open - 1;
+                }
+                return (char) ('A' + Integer.numberOfTrailingZeros(open));
+            }
+        };
+    }
+
+    /**
+     * Creates a strategy that plays the guesses of a HangmanSolver.
+     *
+     * @param solver The solver to follow games with.
+     * @return the strategy.
+     */
+    static GuessStrategy solver(HangmanSolver solver)
+    {
+        return new GuessStrategy()
+        {
+            private HangmanSolver.Session session;
+
+            @Override
+            public void start(HangmanGame game)
+            {
+                session = solver.follow(game);
+            }
+
+            @Override
+            public char nextGuess(HangmanGame game)
+            {
+                return session.nextGuess();
+            }
+        };
+    }
+}
@@ -5,15 +5,32 @@ import java.util.Arrays;
  * The HangmanGame abstract class represents a game of Hangman with
  * functionality
  * for managing game logic and player interactions.
+ *
+ * At the start of each game the word is indexed into one position mask per
+ * letter, and guesses are tracked as bit masks over the 26 letters A-Z, so a
+ * move, a repeated guess check and the win and loss checks take constant time
+ * and do not allocate.
  */
 public abstract class HangmanGame
 {
+    static final int ALPHABET_SIZE = 26;
+    private static final int MAX_WORD_LENGTH = Long.SIZE;
+
     private int attemptsLeft;
     private char[] wordToGuess;
     private char[] currentGuess;
+    private final long[] letterPositions;
+    private int guessedMask;
+    private int wrongMask;
+    private int revealedMask;
+    private int lettersRemaining;
     private ArrayList<Character> wrongGuesses;
+    private ArrayList<Character> allGuesses;
+    private final ArrayList<HangmanGameListener> listeners;
     private final Difficulty difficulty;
     private final int maxAttempts;
+    private final HangmanGameListener metricsListener;
+    private boolean timeMoves;
 
     /**
      * Constructs a HangmanGame object with the specified difficulty and maximum
@@ -23,10 +40,72 @@ public abstract class HangmanGame
      * @param ma The maximum number of attempts allowed.
      */
     public HangmanGame(Difficulty d, int ma)
+    {
+        this(d, ma, true);
+    }
+
+    /**
+     * Constructs a HangmanGame object with the specified difficulty and maximum
+     * attempts, optionally leaving it out of GameMetrics. Callers that play
+     * very many games and record their own totals use this to keep the
+     * per-game cost of metrics off the engine.
+     *
+     * @param d             The difficulty level of the game.
+     * @param ma            The maximum number of attempts allowed.
+     * @param recordMetrics Whether games and moves are added to GameMetrics.
+     */
+    protected HangmanGame(Difficulty d, int ma, boolean recordMetrics)
     {
         difficulty = d;
         maxAttempts = ma;
-        wrongGuesses = new ArrayList<Character>();
+        letterPositions = new long[ALPHABET_SIZE];
+        wrongGuesses = new ArrayList<Character>(ma);
+        allGuesses = new ArrayList<Character>(ALPHABET_SIZE);
+        listeners = new ArrayList<HangmanGameListener>();
+        metricsListener = GameMetrics.ENABLED && recordMetrics
+                ? getMetricsListener()
+                : null;
+        if (metricsListener != null) listeners.add(metricsListener);
+    }
+
+    /**
+     * Gets the listener that adds each game to the shared metrics as it
+     * ends.
+     *
+     * @return the metrics listener.
+     */
+    private HangmanGameListener getMetricsListener()
+    {
+        return new HangmanGameListener()
+        {
+            @Override
+            public void gameEnded(boolean playerWon)
+            {
+                GameMetrics.shared().recordGames(difficulty, playerWon ? 1 : 0,
+                        playerWon ? 0 : 1, allGuesses.size());
+            }
+        };
+    }
+
+    /**
+     * Adds a listener that is notified of every change to the game state.
+     * Listeners are called on the thread that makes the move.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(HangmanGameListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with addListener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(HangmanGameListener listener)
+    {
+        listeners.remove(listener);
     }
 
     /**
@@ -36,13 +115,7 @@ public abstract class HangmanGame
      */
     protected boolean didPlayerWin()
     {
-        for (int i = 0; i < wordToGuess.length; i++)
-        {
-            if (Character.toLowerCase(wordToGuess[i]) != Character
-                    .toLowerCase(currentGuess[i]))
-                return false;
-        }
-        return true;
+        return lettersRemaining == 0;
     }
 
     /**
@@ -65,58 +138,234 @@ public abstract class HangmanGame
     /**
      * Initializes the game by choosing a word and setting up initial
      * parameters.
+     *
+     * @throws IllegalStateException if the chosen word is longer than 64
+     *                               characters.
      */
     public void startGame()
     {
         wordToGuess = chooseWord();
+        if (wordToGuess.length > MAX_WORD_LENGTH)
+            throw new IllegalStateException(
+                    "Word must be at most " + MAX_WORD_LENGTH + " characters");
+
         currentGuess = new char[wordToGuess.length];
-        Arrays.fill(currentGuess, '_');
+        for (int i = 0; i < wordToGuess.length; i++)
+        {
+            // * characters that can't be guessed are shown from the start
+            currentGuess[i] = letterIndex(wordToGuess[i]) < 0 ? wordToGuess[i]
+                    : '_';
+        }
+        guessedMask = 0;
+        wrongMask = 0;
+        revealedMask = 0;
+        lettersRemaining = Integer.bitCount(indexWord());
+        wrongGuesses.clear();
+        allGuesses.clear();
         attemptsLeft = maxAttempts;
+        // * time the moves of one in every SAMPLE_INTERVAL games on a thread
+        timeMoves = metricsListener != null
+                && GameMetrics.shared().sampleGame();
+    }
+
+    /**
+     * Builds the position mask of every letter in the word to guess.
+     *
+     * @return the mask of the letters in the word.
+     */
+    private int indexWord()
+    {
+        Arrays.fill(letterPositions, 0L);
+        int wordMask = 0;
+        for (int i = 0; i < wordToGuess.length; i++)
+        {
+            int letter = letterIndex(wordToGuess[i]);
+            if (letter < 0) continue;
+            letterPositions[letter] |= 1L << i;
+            wordMask |= 1 << letter;
+        }
+        return wordMask;
     }
 
     /**
-     * Processes the player's move.
+     * Called before a letter that hasn't been guessed yet is checked against
+     * the word. Subclasses may return a different word of the same length to
+     * play on from here, as long as it agrees with every letter revealed and
+     * every wrong guess so far. The default keeps the current word.
+     *
+     * @param playerGuess The letter about to be checked, in upper case.
+     * @return the word to check the guess against.
+     */
+    protected char[] reviseWord(char playerGuess)
+    {
+        return wordToGuess;
+    }
+
+    /**
+     * Processes the player's move. Guessing a letter that was already guessed
+     * does not cost an attempt. The moves of sampled games are timed for
+     * GameMetrics.
      *
      * @param playerGuess The character guessed by the player.
      * @return true if the guess is correct, false otherwise.
-     * @throws InvalidGuessException if the input character is not a letter.
+     * @throws InvalidGuessException if the input character is not a letter
+     *                               from A-Z.
+     * @throws IllegalStateException if the game has already been won or lost.
      */
     public boolean playerMove(char playerGuess) throws InvalidGuessException
     {
-        if (!Character.isLetter(playerGuess)) throw new InvalidGuessException();
+        if (!timeMoves) return makeMove(playerGuess);
+        long start = System.nanoTime();
+        try
+        {
+            return makeMove(playerGuess);
+        }
+        finally
+        {
+            GameMetrics.shared().recordPlayerMove(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Checks a guess against the word and updates the game state.
+     *
+     * @param playerGuess The character guessed by the player.
+     * @return true if the guess is correct, false otherwise.
+     * @throws InvalidGuessException if the input character is not a letter
+     *                               from A-Z.
+     * @throws IllegalStateException if the game has already been won or lost.
+     */
+    private boolean makeMove(char playerGuess) throws InvalidGuessException
+    {
+        int letter = letterIndex(playerGuess);
+        if (letter < 0) throw new InvalidGuessException();
+        if (didPlayerWin() || isGameOver())
+            throw new IllegalStateException("Game is already over");
+
+        int bit = 1 << letter;
+        if ((guessedMask & bit) != 0) return (revealedMask & bit) != 0;
+        char[] revised = reviseWord((char) ('A' + letter));
+        if (revised != wordToGuess)
+        {
+            if (revised.length != wordToGuess.length)
+                throw new IllegalStateException(
+                        "Revised word must keep the same length");
+            wordToGuess = revised;
+            lettersRemaining = Integer
+                    .bitCount(indexWord() & ~revealedMask);
+        }
+        guessedMask |= bit;
+        allGuesses.add(playerGuess);
 
-        ArrayList<Integer> occurrences = findOccurrenceIndices(playerGuess);
-        if (!occurrences.isEmpty())
+        long positions = letterPositions[letter];
+        if (positions != 0)
         {
-            for (int i : occurrences)
+            char revealed = (char) ('A' + letter);
+            while (positions != 0)
             {
-                currentGuess[i] = Character.toUpperCase(playerGuess);
+                currentGuess[Long.numberOfTrailingZeros(positions)] = revealed;
+                positions &= positions - 1;
             }
+            revealedMask |= bit;
+            lettersRemaining--;
+            fireLetterRevealed(revealed, letterPositions[letter]);
             return true;
         }
 
         addToWrongGuesses(playerGuess);
         attemptsLeft--;
+        fireAttemptsChanged();
         return false;
     }
 
     /**
-     * Finds the indices of occurrences of the guessed character in the word.
+     * Notifies the listeners that a letter was revealed, and that the game
+     * was won if it was the last one.
      *
-     * @param playerGuess The character guessed by the player.
-     * @return ArrayList containing the indices of the guessed character in the
-     *         word.
+     * @param letter    The revealed letter.
+     * @param positions The positions of the letter in the word.
      */
-    private ArrayList<Integer> findOccurrenceIndices(char playerGuess)
+    private void fireLetterRevealed(char letter, long positions)
     {
-        ArrayList<Integer> indices = new ArrayList<Integer>();
-        for (int i = 0; i < wordToGuess.length; i++)
+        for (int i = 0; i < listeners.size(); i++)
         {
-            if (Character.toLowerCase(playerGuess) == Character
-                    .toLowerCase(wordToGuess[i]))
-                indices.add(i);
+            listeners.get(i).letterRevealed(letter, positions);
+        }
+        if (didPlayerWin())
+        {
+            for (int i = 0; i < listeners.size(); i++)
+            {
+                listeners.get(i).gameEnded(true);
+            }
         }
-        return indices;
+    }
+
+    /**
+     * Notifies the listeners that the attempts left changed, and that the
+     * game was lost if none are left.
+     */
+    private void fireAttemptsChanged()
+    {
+        for (int i = 0; i < listeners.size(); i++)
+        {
+            listeners.get(i).attemptsChanged(attemptsLeft);
+        }
+        if (isGameOver())
+        {
+            for (int i = 0; i < listeners.size(); i++)
+            {
+                listeners.get(i).gameEnded(false);
+            }
+        }
+    }
+
+    /**
+     * Gets the index of a letter in the alphabet, ignoring case. The other
+     * classes that index letters from A to Z use this too, so they all agree
+     * on what counts as a letter.
+     *
+     * @param c The character to look up.
+     * @return the index of the letter from 0 to 25, or -1 if the character is
+     *         not a letter from A-Z.
+     */
+    static int letterIndex(char c)
+    {
+        int letter = (c | 0x20) - 'a';
+        return letter >= 0 && letter < ALPHABET_SIZE ? letter : -1;
+    }
+
+    /**
+     * Checks if the player already guessed a letter, ignoring case.
+     *
+     * @param c The letter to check.
+     * @return true if the letter was already guessed, false otherwise.
+     */
+    public boolean hasGuessed(char c)
+    {
+        int letter = letterIndex(c);
+        return letter >= 0 && (guessedMask & (1 << letter)) != 0;
+    }
+
+    /**
+     * Gets the letters guessed so far as a bit mask where bit 0 is A and bit
+     * 25 is Z.
+     *
+     * @return the mask of guessed letters.
+     */
+    public int getGuessedMask()
+    {
+        return guessedMask;
+    }
+
+    /**
+     * Gets the wrongly guessed letters as a bit mask where bit 0 is A and bit
+     * 25 is Z.
+     *
+     * @return the mask of wrong guesses.
+     */
+    public int getWrongMask()
+    {
+        return wrongMask;
     }
 
     /**
@@ -136,12 +385,7 @@ public abstract class HangmanGame
      */
     public String getWordToGuess()
     {
-        StringBuilder sb = new StringBuilder();
-        for (char c : wordToGuess)
-        {
-            sb.append(c);
-        }
-        return sb.toString();
+        return new String(wordToGuess);
     }
 
     /**
@@ -181,26 +425,33 @@ public abstract class HangmanGame
      */
     private void addToWrongGuesses(char playerGuess)
     {
+        wrongMask |= 1 << letterIndex(playerGuess);
         wrongGuesses.add(playerGuess);
+        fireWrongGuessAdded(playerGuess);
     }
 
     /**
-     * Gets all the guesses made by the player (correct and wrong).
+     * Notifies the listeners that a wrong guess was added.
      *
-     * @return the list of all guesses made by the player.
+     * @param playerGuess The wrong guess made by the player.
      */
-    public ArrayList<Character> getAllGuessesMade()
+    private void fireWrongGuessAdded(char playerGuess)
     {
-        ArrayList<Character> guesses = new ArrayList<Character>();
-
-        for (char c : currentGuess)
+        for (int i = 0; i < listeners.size(); i++)
         {
-            if (c != '_') guesses.add(c);
+            listeners.get(i).wrongGuessAdded(playerGuess);
         }
+    }
 
-        guesses.addAll(wrongGuesses);
-
-        return guesses;
+    /**
+     * Gets all the guesses made by the player (correct and wrong), in the
+     * order they were made. The list is kept up to date as the game goes on.
+     *
+     * @return the list of all guesses made by the player.
+     */
+    public ArrayList<Character> getAllGuessesMade()
+    {
+        return allGuesses;
     }
 
     /**
@@ -0,0 +1,45 @@
+/**
+ * The listener interface for receiving changes to the state of a HangmanGame.
+ * Every method has an empty default, so implementations only override the
+ * changes they care about.
+ */
+public interface HangmanGameListener
+{
+    /**
+     * Invoked when a correct guess reveals a letter in the word.
+     *
+     * @param letter    The revealed letter in upper case.
+     * @param positions A bit mask of the word positions the letter is at, where
+     *                  bit 0 is the first position.
+     */
+    default void letterRevealed(char letter, long positions)
+    {
+    }
+
+    /**
+     * Invoked when a wrong guess is added to the wrong guesses.
+     *
+     * @param guess The wrong guess.
+     */
+    default void wrongGuessAdded(char guess)
+    {
+    }
+
+    /**
+     * Invoked when the number of attempts left changes.
+     *
+     * @param attemptsLeft The number of attempts left.
+     */
+    default void attemptsChanged(int attemptsLeft)
+    {
+    }
+
+    /**
+     * Invoked once when the game is won or lost.
+     *
+     * @param playerWon true if the player won, false if the player lost.
+     */
+    default void gameEnded(boolean playerWon)
+    {
+    }
+}
@@ -0,0 +1,574 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A headless server hosting many Hangman games at once over HTTP. The API is:
+ *
+ * <pre>
+ * POST   /games?difficulty=EASY       create a game, add &amp;player=name to
+ *                                     count its result for the player
+ * GET    /games/{id}                  get the state of a game
+ * POST   /games/{id}/guess?letter=a   make a guess
+ * DELETE /games/{id}                  end a game, sending its last state
+ * GET    /leaderboard?k=10            get the players with the most wins
+ * </pre>
+ *
+ * Every response is a JSON object. The word is only included once the game is
+ * over.
+ *
+ * <p>Setting the system property hangman.journal to a directory journals every
+ * game there, so the games survive a restart. hangman.journal.sync=false
+ * acknowledges moves before they reach the disk. Setting hangman.stats to a
+ * file keeps the player stats there across restarts.
+ */
+public class HangmanServer
+{
+    // Fields
+    private static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_LEADERBOARD_SIZE = 10;
+    private static final int MAX_LEADERBOARD_SIZE = 1000;
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES
+            .toMillis(30);
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService evictor;
+    private final GameSessions sessions;
+    private final PlayerStatsStore stats;
+
+    /**
+     * Constructs a HangmanServer object listening on the specified port.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException if the server socket or the journal can't be
+     *                     opened.
+     */
+    public HangmanServer(int port) throws IOException
+    {
+        // * responses are small, so without TCP_NODELAY each one can wait on
+        // the client's delayed ACK for tens of milliseconds
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        sessions = new GameSessions(IDLE_TIMEOUT_MILLIS);
+        String journal = System.getProperty("hangman.journal");
+        if (journal != null)
+        {
+            int restored = sessions.openJournal(Paths.get(journal),
+                    MoveJournal.DEFAULT_SEGMENT_SIZE, !"false".equals(
+                            System.getProperty("hangman.journal.sync")));
+            System.out.println("Restored " + restored + " games from "
+                    + journal);
+        }
+        stats = System.getProperty("hangman.stats") != null
+                ? PlayerStatsStore.openDefault() : new PlayerStatsStore();
+        executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.createContext("/games", this::handle);
+        server.createContext("/leaderboard", this::handleLeaderboard);
+        server.setExecutor(executor);
+        evictor = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "session-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameMetrics.install();
+        WordListReloader.startDefault();
+        HangmanServer server = new HangmanServer(port);
+        server.start();
+        System.out.println("Hangman server listening on port "
+                + server.getPort());
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start()
+    {
+        server.start();
+        evictor.scheduleWithFixedDelay(() ->
+        {
+            sessions.evictIdle();
+            sessions.compactJournal();
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the server, waiting up to a second for running requests, and
+     * closes the journal.
+     */
+    public void stop()
+    {
+        server.stop(1);
+        evictor.shutdownNow();
+        executor.shutdownNow();
+        try
+        {
+            sessions.closeJournal();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port.
+     */
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the sessions hosted by the server.
+     *
+     * @return the session registry.
+     */
+    public GameSessions getSessions()
+    {
+        return sessions;
+    }
+
+    /**
+     * Gets the stats of the players of the server.
+     *
+     * @return the player stats store.
+     */
+    public PlayerStatsStore getStats()
+    {
+        return stats;
+    }
+
+    /**
+     * Creates the executor requests run on: a virtual thread per request when
+     * the JDK has them (21 and later), otherwise a cached pool of platform
+     * threads.
+     *
+     * @return the request executor.
+     */
+    private static ExecutorService newRequestExecutor()
+    {
+        try
+        {
+            Method factory = Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Routes a request under /games.
+     *
+     * @param exchange The request and response.
+     */
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            String method = exchange.getRequestMethod();
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            // * parts[0] is empty and parts[1] is "games"
+            if (parts.length == 2 && method.equals("POST"))
+            {
+                createGame(exchange);
+            }
+            else if (parts.length == 3 && method.equals("GET"))
+            {
+                getGame(exchange, parseId(parts[2]));
+            }
+            else if (parts.length == 3 && method.equals("DELETE"))
+            {
+                deleteGame(exchange, parseId(parts[2]));
+            }
+            else if (parts.length == 4 && parts[3].equals("guess")
+                    && method.equals("POST"))
+            {
+                guess(exchange, parseId(parts[2]));
+            }
+            else
+            {
+                sendError(exchange, 404, "Not found");
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            sendError(exchange, 400, e.getMessage());
+        }
+        catch (RuntimeException e)
+        {
+            internalError(exchange, e);
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends the players with the most wins, at most MAX_LEADERBOARD_SIZE
+     * of them; a larger k is rejected.
+     *
+     * @param exchange The request and response.
+     */
+    private void handleLeaderboard(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            if (!exchange.getRequestMethod().equals("GET"))
+            {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            String value = queryParameter(exchange, "k");
+            int k = DEFAULT_LEADERBOARD_SIZE;
+            try
+            {
+                if (value != null) k = Integer.parseInt(value);
+            }
+            catch (NumberFormatException e)
+            {
+                k = -1;
+            }
+            if (k < 0 || k > MAX_LEADERBOARD_SIZE)
+            {
+                sendError(exchange, 400, "Invalid leaderboard size " + value);
+                return;
+            }
+            send(exchange, 200, toJson(stats.top(k)));
+        }
+        catch (IllegalArgumentException e)
+        {
+            sendError(exchange, 400, e.getMessage());
+        }
+        catch (RuntimeException e)
+        {
+            internalError(exchange, e);
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Creates a game of the requested difficulty, EASY if none is given. If
+     * a player is given, the result of the game is added to their stats.
+     *
+     * @param exchange The request and response.
+     */
+    private void createGame(HttpExchange exchange) throws IOException
+    {
+        String value = queryParameter(exchange, "difficulty");
+        Difficulty difficulty = value == null ? Difficulty.EASY
+                : Difficulty.valueOf(value.toUpperCase(Locale.ROOT));
+        String name = queryParameter(exchange, "player");
+        GameSessions.Session session = sessions.create(difficulty);
+        String body;
+        synchronized (session.lock())
+        {
+            if (name != null)
+            {
+                HangmanGame game = session.getGame();
+                game.addListener(new HangmanGameListener()
+                {
+                    @Override
+                    public void gameEnded(boolean playerWon)
+                    {
+                        stats.record(name, difficulty, playerWon,
+                                game.getAttemptsLeft());
+                    }
+                });
+            }
+            body = toJson(session);
+        }
+        send(exchange, 201, body);
+    }
+
+    /**
+     * Sends the state of a game.
+     *
+     * @param exchange The request and response.
+     * @param id       The game id.
+     */
+    private void getGame(HttpExchange exchange, long id) throws IOException
+    {
+        GameSessions.Session session = sessions.get(id);
+        if (session == null)
+        {
+            sendError(exchange, 404, "No game with id " + id);
+            return;
+        }
+        String body;
+        synchronized (session.lock())
+        {
+            body = toJson(session);
+        }
+        send(exchange, 200, body);
+    }
+
+    /**
+     * Ends a game, removes its session and sends its last state.
+     *
+     * @param exchange The request and response.
+     * @param id       The game id.
+     */
+    private void deleteGame(HttpExchange exchange, long id) throws IOException
+    {
+        GameSessions.Session session = sessions.remove(id);
+        if (session == null)
+        {
+            sendError(exchange, 404, "No game with id " + id);
+            return;
+        }
+        String body;
+        synchronized (session.lock())
+        {
+            body = toJson(session);
+        }
+        send(exchange, 200, body);
+    }
+
+    /**
+     * Applies a guess to a game and sends the new state.
+     *
+     * @param exchange The request and response.
+     * @param id       The game id.
+     */
+    private void guess(HttpExchange exchange, long id) throws IOException
+    {
+        String letter = queryParameter(exchange, "letter");
+        if (letter == null || letter.length() != 1)
+            throw new IllegalArgumentException("Guess must be one letter");
+
+        GameSessions.Session session = sessions.get(id);
+        if (session == null)
+        {
+            sendError(exchange, 404, "No game with id " + id);
+            return;
+        }
+        String body;
+        synchronized (session.lock())
+        {
+            try
+            {
+                session.getGame().playerMove(letter.charAt(0));
+                body = toJson(session);
+            }
+            catch (InvalidGuessException e)
+            {
+                throw new IllegalArgumentException(e.getMessage());
+            }
+            catch (IllegalStateException e)
+            {
+                body = null;
+            }
+        }
+        // * wait for the journal outside the lock, so the wait pins no
+        // carrier thread and other moves can join the same group commit
+        sessions.awaitJournaled(session);
+        if (body == null)
+            sendError(exchange, 409, "Game " + id + " is already over");
+        else
+            send(exchange, 200, body);
+    }
+
+    /**
+     * Writes the state of a game as JSON. The caller must hold the session
+     * lock.
+     *
+     * @param session The session to write.
+     * @return the JSON object.
+     */
+    static String toJson(GameSessions.Session session)
+    {
+        HangmanGame game = session.getGame();
+        String status = game.didPlayerWin() ? "WON"
+                : game.isGameOver() ? "LOST" : "IN_PROGRESS";
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("{\"id\":").append(session.getId());
+        sb.append(",\"difficulty\":\"").append(game.getDifficulty())
+                .append('"');
+        sb.append(",\"status\":\"").append(status).append('"');
+        sb.append(",\"currentGuess\":\"").append(game.getCurrentGuess())
+                .append('"');
+        sb.append(",\"wrongGuesses\":\"");
+        for (char c : game.getWrongGuesses())
+        {
+            sb.append(c);
+        }
+        sb.append('"');
+        sb.append(",\"attemptsLeft\":").append(game.getAttemptsLeft());
+        sb.append(",\"maxAttempts\":").append(game.getMaxAttempts());
+        if (!status.equals("IN_PROGRESS"))
+            sb.append(",\"word\":\"").append(game.getWordToGuess()).append('"');
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Writes a leaderboard as JSON.
+     *
+     * @param players The players, best first.
+     * @return the JSON object.
+     */
+    static String toJson(List<PlayerStats> players)
+    {
+        StringBuilder sb = new StringBuilder(32 + players.size() * 120);
+        sb.append("{\"players\":[");
+        for (int i = 0; i < players.size(); i++)
+        {
+            PlayerStats p = players.get(i);
+            if (i > 0) sb.append(',');
+            synchronized (p)
+            {
+                sb.append("{\"name\":\"").append(escape(p.getName()))
+                        .append('"');
+                sb.append(",\"games\":").append(p.getGames());
+                sb.append(",\"wins\":").append(p.getWins());
+                sb.append(",\"currentStreak\":")
+                        .append(p.getCurrentStreak());
+                sb.append(",\"bestStreak\":").append(p.getBestStreak());
+                sb.append(",\"averageAttemptsLeft\":")
+                        .append(p.getAverageAttemptsLeft());
+                sb.append('}');
+            }
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * Escapes a string for a JSON string literal.
+     *
+     * @param value The string.
+     * @return the escaped string.
+     */
+    private static String escape(String value)
+    {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses a game id from the request path.
+     *
+     * @param value The path segment holding the id.
+     * @return the game id.
+     */
+    private static long parseId(String value)
+    {
+        try
+        {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid game id " + value);
+        }
+    }
+
+    /**
+     * Gets a parameter from the query string of a request, decoded from
+     * UTF-8 percent-encoding.
+     *
+     * @param exchange The request.
+     * @param name     The parameter name.
+     * @return the parameter value, or null if it is missing.
+     * @throws IllegalArgumentException if the value is not validly encoded.
+     */
+    private static String queryParameter(HttpExchange exchange, String name)
+    {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&"))
+        {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name))
+                return URLDecoder.decode(pair.substring(equals + 1),
+                        StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    /**
+     * Logs an unexpected failure and answers the request with a 500 error,
+     * so the client gets a response instead of a closed connection.
+     *
+     * @param exchange The response.
+     * @param e        The failure.
+     */
+    private static void internalError(HttpExchange exchange,
+            RuntimeException e) throws IOException
+    {
+        e.printStackTrace();
+        sendError(exchange, 500, "Internal error");
+    }
+
+    /**
+     * Sends a JSON error response.
+     *
+     * @param exchange The response.
+     * @param status   The HTTP status code.
+     * @param message  The error message.
+     */
+    private static void sendError(HttpExchange exchange, int status,
+            String message) throws IOException
+    {
+        send(exchange, status, "{\"error\":\"" + escape(message) + "\"}");
+    }
+
+    /**
+     * Sends a JSON response.
+     *
+     * @param exchange The response.
+     * @param status   The HTTP status code.
+     * @param body     The JSON body.
+     */
+    private static void send(HttpExchange exchange, int status, String body)
+            throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+}
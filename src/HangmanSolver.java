@@ -0,0 +1,192 @@
+import java.util.stream.IntStream;
+
+/**
+ * Represents a player that works out the best next guess for a HangmanGame.
+ * It keeps the set of words that still fit the board and picks the letter
+ * whose answer is expected to tell it the most, that is the letter that splits
+ * the candidates into families with the highest entropy. Large candidate sets
+ * are scored on all cores.
+ */
+public class HangmanSolver
+{
+    // Fields
+    private static final int PARALLEL_THRESHOLD = 20_000;
+    // * used when no word in the corpus fits the board
+    private static final String FALLBACK_ORDER = "ETAOINSHRDLCUMWFGYPBVKJXQZ";
+    private final WordBuckets buckets;
+
+    /**
+     * Constructs a HangmanSolver object over the bundled word list.
+     */
+    public HangmanSolver()
+    {
+        this(WordBuckets.shared());
+    }
+
+    /**
+     * Constructs a HangmanSolver object over the specified words.
+     *
+     * @param buckets The words the solver considers.
+     */
+    public HangmanSolver(WordBuckets buckets)
+    {
+        this.buckets = buckets;
+    }
+
+    /**
+     * Starts following a game. The game must already be started.
+     *
+     * @param game The game to solve.
+     * @return the session tracking the game's candidates.
+     */
+    public Session follow(HangmanGame game)
+    {
+        return new Session(game);
+    }
+
+    /**
+     * Tracks the candidate words of one game and narrows them as the game's
+     * board changes, instead of filtering the whole corpus on every guess.
+     */
+    public class Session
+    {
+        private final HangmanGame game;
+        private final WordBuckets.LengthBucket bucket;
+        private final long[] candidates;
+        private final WordBuckets.FamilyCounter counter;
+        private int appliedMask;
+
+        /**
+         * Constructs a Session object for a started game.
+         *
+         * @param game The game to follow.
+         */
+        private Session(HangmanGame game)
+        {
+            this.game = game;
+            bucket = buckets.bucket(game.getCurrentGuess().length);
+            candidates = bucket.allCandidates();
+            counter = new WordBuckets.FamilyCounter();
+        }
+
+        /**
+         * Works out the best letter to guess next.
+         *
+         * @return the letter in upper case.
+         * @throws IllegalStateException if every letter has been guessed.
+         */
+        public char nextGuess()
+        {
+            update();
+            int guessed = game.getGuessedMask();
+            int remaining = getCandidateCount();
+            if (remaining == 0) return fallbackGuess(guessed);
+
+            double[] scores = new double[HangmanGame.ALPHABET_SIZE];
+            if (remaining >= PARALLEL_THRESHOLD)
+            {
+                IntStream.range(0, HangmanGame.ALPHABET_SIZE).parallel()
+                        .filter(letter -> (guessed & (1 << letter)) == 0)
+                        .forEach(letter -> scores[letter] = score(letter,
+                                remaining, new WordBuckets.FamilyCounter()));
+            }
+            else
+            {
+                for (int letter = 0; letter < HangmanGame.ALPHABET_SIZE;
+                        letter++)
+                {
+                    if ((guessed & (1 << letter)) == 0)
+                        scores[letter] = score(letter, remaining, counter);
+                }
+            }
+
+            int best = -1;
+            for (int letter = 0; letter < HangmanGame.ALPHABET_SIZE; letter++)
+            {
+                if ((guessed & (1 << letter)) != 0) continue;
+                if (best < 0 || scores[letter] > scores[best]) best = letter;
+            }
+            if (best < 0)
+                throw new IllegalStateException("Every letter was guessed");
+            return (char) ('A' + best);
+        }
+
+        /**
+         * Scores a letter by the entropy of the split it makes. A tiny bonus
+         * for the share of candidates holding the letter breaks ties in favor
+         * of letters likely to be correct.
+         *
+         * @param letter  The letter from 0 (A) to 25 (Z).
+         * @param total   The number of candidates.
+         * @param counter The scratch space to count families in.
+         * @return the score of the letter.
+         */
+        private double score(int letter, int total,
+                WordBuckets.FamilyCounter counter)
+        {
+            int without = bucket.countFamilies(candidates, letter, counter);
+            return counter.entropy(without)
+                    + 1e-6 * (total - without) / Math.max(1, total);
+        }
+
+        /**
+         * Narrows the candidates by every letter guessed since the last
+         * update.
+         */
+        private void update()
+        {
+            int newLetters = game.getGuessedMask() & ~appliedMask;
+            if (newLetters == 0) return;
+
+            int wrong = game.getWrongMask();
+            char[] board = game.getCurrentGuess();
+            for (int m = newLetters; m != 0; m &= m - 1)
+            {
+                int letter = Integer.numberOfTrailingZeros(m);
+                long pattern = 0;
+                if ((wrong & (1 << letter)) == 0)
+                {
+                    char revealed = (char) ('A' + letter);
+                    for (int p = 0; p < board.length; p++)
+                    {
+                        if (board[p] == revealed) pattern |= 1L << p;
+                    }
+                }
+                bucket.keepFamily(candidates, letter, pattern);
+            }
+            appliedMask |= newLetters;
+        }
+
+        /**
+         * Picks the most common English letter not yet guessed.
+         *
+         * @param guessed The mask of guessed letters.
+         * @return the letter in upper case.
+         */
+        private char fallbackGuess(int guessed)
+        {
+            for (int i = 0; i < FALLBACK_ORDER.length(); i++)
+            {
+                char c = FALLBACK_ORDER.charAt(i);
+                if ((guessed & (1 << (c - 'A'))) == 0) return c;
+            }
+            throw new IllegalStateException("Every letter was guessed");
+        }
+
+        /**
+         * Gets the number of words that still fit the board, as of the last
+         * guess worked out.
+         *
+         * @return the number of candidate words.
+         */
+        public int getCandidateCount()
+        {
+            int count = 0;
+            for (long block : candidates)
+            {
+                count += Long.bitCount(block);
+            }
+            return count;
+        }
+    }
+}
@@ -5,7 +5,7 @@
  */
 public class HardHangmanGame extends HangmanGame
 {
-    private final static int MAX_ATTEMPTS = 6;
+    final static int MAX_ATTEMPTS = 6;
     private WordList wordList;
 
     /**
@@ -3,15 +3,36 @@
  */
 public class InvalidGuessException extends Exception
 {
+    // Fields
+    private final String message;
+
+    /**
+     * Constructs an InvalidGuessException object for a guess that is not a
+     * letter from A-Z.
+     */
+    public InvalidGuessException()
+    {
+        this("Guess must be a letter from A-Z");
+    }
+
+    /**
+     * Constructs an InvalidGuessException object with the specified message.
+     *
+     * @param message The reason the guess is invalid.
+     */
+    public InvalidGuessException(String message)
+    {
+        this.message = message;
+    }
+
     /**
      * Retrieves the error message for the invalid guess exception.
      *
-     * @return The error message specifying that the guess must be a letter from
-     *         A-Z.
+     * @return The error message specifying what the guess must be.
      */
     @Override
     public String getMessage()
     {
-        return "Guess must be a letter from A-Z";
+        return message;
     }
 }
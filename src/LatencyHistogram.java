@@ -0,0 +1,203 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds with one fixed bucket per power of
+ * two. Recording is a pair of striped adder increments, so it never allocates
+ * and threads recording at the same time do not contend.
+ */
+public class LatencyHistogram
+{
+    // Fields
+    private static final int BUCKETS = Long.SIZE;
+    private final LongAdder[] counts;
+    private final LongAdder total;
+
+    /**
+     * Constructs an empty LatencyHistogram object.
+     */
+    public LatencyHistogram()
+    {
+        counts = new LongAdder[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++)
+        {
+            counts[b] = new LongAdder();
+        }
+        total = new LongAdder();
+    }
+
+    /**
+     * Records one duration. Bucket b holds durations from 2^(b-1) up to
+     * 2^b - 1 nanoseconds, and bucket 0 holds zero and negative durations.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(long nanos)
+    {
+        int bucket = nanos <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(nanos);
+        counts[Math.min(bucket, BUCKETS - 1)].increment();
+        total.add(Math.max(nanos, 0));
+    }
+
+    /**
+     * Records the time since a start time taken from System.nanoTime.
+     *
+     * @param startNanos The start time.
+     */
+    public void recordSince(long startNanos)
+    {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the number of durations recorded.
+     *
+     * @return the count.
+     */
+    public long getCount()
+    {
+        long count = 0;
+        for (LongAdder c : counts)
+        {
+            count += c.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     *
+     * @return the mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMeanNanos()
+    {
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+
+    /**
+     * Gets an upper bound of a percentile of the recorded durations, which is
+     * the top of the bucket the percentile falls in.
+     *
+     * @param percentile The percentile from 0 to 100.
+     * @return the percentile in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int b = 0; b < BUCKETS; b++)
+        {
+            snapshot[b] = counts[b].sum();
+            count += snapshot[b];
+        }
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++)
+        {
+            seen += snapshot[b];
+            if (seen >= Math.max(rank, 1))
+                return b == 0 ? 0 : b == BUCKETS - 1 ? Long.MAX_VALUE
+                        : (1L << b) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets a summary of the histogram.
+     *
+     * @return the count, mean, median, 99th percentile and maximum bucket.
+     */
+    public Summary summarize()
+    {
+        return new Summary(getCount(), getMeanNanos(), getPercentileNanos(50),
+                getPercentileNanos(99), getPercentileNanos(100));
+    }
+
+    /**
+     * A point-in-time summary of a histogram, published over JMX as a
+     * composite value.
+     */
+    public static class Summary
+    {
+        private final long count;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        /**
+         * Constructs a Summary object.
+         *
+         * @param count     The number of durations.
+         * @param meanNanos The mean duration.
+         * @param p50Nanos  The median bucket bound.
+         * @param p99Nanos  The 99th percentile bucket bound.
+         * @param maxNanos  The highest bucket bound.
+         */
+        @java.beans.ConstructorProperties({ "count", "meanNanos", "p50Nanos",
+                "p99Nanos", "maxNanos" })
+        public Summary(long count, double meanNanos, long p50Nanos,
+                long p99Nanos, long maxNanos)
+        {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * @return the number of durations.
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * @return the mean duration in nanoseconds.
+         */
+        public double getMeanNanos()
+        {
+            return meanNanos;
+        }
+
+        /**
+         * @return the upper bound of the median in nanoseconds.
+         */
+        public long getP50Nanos()
+        {
+            return p50Nanos;
+        }
+
+        /**
+         * @return the upper bound of the 99th percentile in nanoseconds.
+         */
+        public long getP99Nanos()
+        {
+            return p99Nanos;
+        }
+
+        /**
+         * @return the upper bound of the longest duration in nanoseconds.
+         */
+        public long getMaxNanos()
+        {
+            return maxNanos;
+        }
+
+        /**
+         * Formats the summary for a log line.
+         *
+         * @return the formatted summary.
+         */
+        @Override
+        public String toString()
+        {
+            return String.format(java.util.Locale.ROOT,
+                    "count=%d mean=%.0fns p50<=%dns p99<=%dns max<=%dns",
+                    count, meanNanos, p50Nanos, p99Nanos, maxNanos);
+        }
+    }
+}
@@ -10,7 +10,7 @@ public class MediumHangmanGame extends HangmanGame
      * Constructs an MediumHangmanGame object with the difficulty set to medium
      * and the maximum attempts set to the predefined value.
      */
-    private final static int MAX_ATTEMPTS = 8;
+    final static int MAX_ATTEMPTS = 8;
     private WordList wordList;
 
     public MediumHangmanGame()
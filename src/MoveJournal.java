@@ -0,0 +1,609 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of game starts, moves and ends, kept so the server
+ * can rebuild its sessions after a crash. The journal is a directory of
+ * memory-mapped segment files written one after another. Each record is:
+ *
+ * <pre>
+ * int    payload length (0 marks the end of a segment)
+ * int    CRC32C of the payload
+ * byte   type: START, MOVE or END
+ * long   session id
+ * START: byte difficulty, byte max attempts, short word length, word (Latin-1)
+ * MOVE:  byte letter
+ * </pre>
+ *
+ * Appending only copies the record into the mapped segment. A single flusher
+ * thread forces the segment to disk and wakes every caller waiting in
+ * {@link #awaitDurable(long)} whose record it covered, so the callers that
+ * arrive while one force is running all share the next one (group commit).
+ * A torn record at the end of a segment fails its checksum and ends the
+ * replay of that segment.
+ */
+public class MoveJournal implements AutoCloseable
+{
+    // Fields
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    private static final int MAGIC = 0x484A4E4C; // "HJNL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte START = 1;
+    private static final byte MOVE = 2;
+    private static final byte END = 3;
+    // * a game word is at most 64 characters
+    private static final int MAX_START_SIZE = 1 + 8 + 1 + 1 + 2
+            + Long.SIZE;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean sync;
+    private final CRC32C crc = new CRC32C();
+    private final ByteBuffer payload = ByteBuffer.allocate(MAX_START_SIZE);
+    // * segment number of the START record each live session is replayed from
+    private final Map<Long, Integer> liveStarts = new HashMap<Long, Integer>();
+    // * guards written, durable and closed; the flusher waits on flushNeeded
+    // and callers of awaitDurable on flushDone
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushNeeded = flushLock.newCondition();
+    private final Condition flushDone = flushLock.newCondition();
+    private final Thread flusher;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentNumber;
+    private int firstSegment;
+    // * positions are segmentNumber * segmentSize + offset, so they only grow
+    private long written;
+    private long durable;
+    private long forcedFrom;
+    private boolean closed;
+
+    /**
+     * Receives the records of a journal in the order they were written.
+     */
+    public interface Replay
+    {
+        /**
+         * Invoked for a game start. A later start with the same id replaces
+         * the game.
+         *
+         * @param id          The session id.
+         * @param difficulty  The difficulty of the game.
+         * @param maxAttempts The maximum number of attempts of the game.
+         * @param word        The word to guess.
+         */
+        void start(long id, Difficulty difficulty, int maxAttempts,
+                String word);
+
+        /**
+         * Invoked for a move.
+         *
+         * @param id     The session id.
+         * @param letter The guessed letter in upper case.
+         */
+        void move(long id, char letter);
+
+        /**
+         * Invoked when a session was removed.
+         *
+         * @param id The session id.
+         */
+        void end(long id);
+    }
+
+    /**
+     * Constructs a MoveJournal object.
+     */
+    private MoveJournal(Path directory, int segmentSize, boolean sync)
+    {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and replays
+     * every record already in it. New records are appended after the last
+     * valid record.
+     *
+     * @param directory   The journal directory.
+     * @param segmentSize The size of each segment file in bytes.
+     * @param sync        true if {@link #awaitDurable(long)} should wait for
+     *                    the disk, false to only flush in the background.
+     * @param replay      Receives the records already in the journal.
+     * @return the open journal.
+     * @throws IOException if the journal can't be read or created.
+     */
+    public static MoveJournal open(Path directory, int segmentSize,
+            boolean sync, Replay replay) throws IOException
+    {
+        if (segmentSize < HEADER_SIZE + RECORD_HEADER_SIZE + MAX_START_SIZE)
+            throw new IllegalArgumentException("Segment size too small");
+        Files.createDirectories(directory);
+        MoveJournal journal = new MoveJournal(directory, segmentSize, sync);
+        TreeMap<Integer, Path> segments = journal.listSegments();
+        int end = HEADER_SIZE;
+        for (Map.Entry<Integer, Path> entry : segments.entrySet())
+        {
+            end = journal.replaySegment(entry.getKey(), entry.getValue(),
+                    replay);
+        }
+        synchronized (journal)
+        {
+            if (segments.isEmpty())
+            {
+                journal.firstSegment = 1;
+                journal.openSegment(1, HEADER_SIZE);
+            }
+            else
+            {
+                journal.firstSegment = segments.firstKey();
+                journal.openSegment(segments.lastKey(), end);
+            }
+        }
+        journal.flusher.start();
+        return journal;
+    }
+
+    /**
+     * Records the start of a game.
+     *
+     * @param id          The session id.
+     * @param difficulty  The difficulty of the game.
+     * @param maxAttempts The maximum number of attempts of the game.
+     * @param word        The word to guess.
+     * @return the position to pass to {@link #awaitDurable(long)}.
+     */
+    public synchronized long recordStart(long id, Difficulty difficulty,
+            int maxAttempts, String word)
+    {
+        payload.clear();
+        payload.put(START).putLong(id);
+        payload.put((byte) difficulty.ordinal()).put((byte) maxAttempts);
+        byte[] bytes = word.getBytes(StandardCharsets.ISO_8859_1);
+        payload.putShort((short) bytes.length).put(bytes);
+        long position = append();
+        liveStarts.put(id, segmentNumber);
+        return position;
+    }
+
+    /**
+     * Records a move.
+     *
+     * @param id     The session id.
+     * @param letter The guessed letter.
+     * @return the position to pass to {@link #awaitDurable(long)}.
+     */
+    public synchronized long recordMove(long id, char letter)
+    {
+        payload.clear();
+        payload.put(MOVE).putLong(id)
+                .put((byte) Character.toUpperCase(letter));
+        return append();
+    }
+
+    /**
+     * Records that a session was removed. Once every session started in a
+     * segment has ended, {@link #compact(LongConsumer)} can delete it.
+     *
+     * @param id The session id.
+     * @return the position to pass to {@link #awaitDurable(long)}.
+     */
+    public synchronized long recordEnd(long id)
+    {
+        payload.clear();
+        payload.put(END).putLong(id);
+        long position = append();
+        liveStarts.remove(id);
+        return position;
+    }
+
+    /**
+     * Waits until every record up to a position is on disk. Returns at once
+     * if the journal was opened without sync.
+     *
+     * @param position The position returned when the record was written.
+     */
+    public void awaitDurable(long position)
+    {
+        if (sync) forceTo(position);
+    }
+
+    /**
+     * Deletes the segments no live session needs. Sessions still replayed
+     * from an older segment are first written again at the end of the
+     * journal by the callback, which should call {@link #recordStart} and
+     * {@link #recordMove} for the current state of the session, or do
+     * nothing if it has been removed.
+     *
+     * @param rewrite Writes a live session again, given its id.
+     * @return the number of segments deleted.
+     * @throws IOException if a segment can't be deleted.
+     */
+    public int compact(LongConsumer rewrite) throws IOException
+    {
+        ArrayList<Long> pinned = new ArrayList<Long>();
+        int current;
+        synchronized (this)
+        {
+            current = segmentNumber;
+            for (Map.Entry<Long, Integer> entry : liveStarts.entrySet())
+            {
+                if (entry.getValue() < current) pinned.add(entry.getKey());
+            }
+        }
+        for (long id : pinned)
+        {
+            rewrite.accept(id);
+        }
+
+        int keepFrom;
+        long position;
+        synchronized (this)
+        {
+            keepFrom = segmentNumber;
+            for (int start : liveStarts.values())
+            {
+                keepFrom = Math.min(keepFrom, start);
+            }
+            position = written;
+        }
+        // * the rewritten sessions must be on disk before their old records
+        // are deleted
+        forceTo(position);
+        int deleted = 0;
+        synchronized (this)
+        {
+            while (firstSegment < keepFrom)
+            {
+                Files.deleteIfExists(segmentPath(firstSegment));
+                firstSegment++;
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Gets the number of sessions the journal would rebuild.
+     *
+     * @return the number of live sessions.
+     */
+    public synchronized int getLiveSessions()
+    {
+        return liveStarts.size();
+    }
+
+    /**
+     * Gets the number of segment files in the journal.
+     *
+     * @return the number of segments.
+     */
+    public synchronized int getSegmentCount()
+    {
+        return segmentNumber - firstSegment + 1;
+    }
+
+    /**
+     * Forces every record to disk and stops the flusher.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        long position;
+        synchronized (this)
+        {
+            position = written;
+        }
+        forceTo(position);
+        flushLock.lock();
+        try
+        {
+            closed = true;
+            flushNeeded.signal();
+            flushDone.signalAll();
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+        synchronized (this)
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the record in the payload buffer to the current segment, moving
+     * on to a new segment if it doesn't fit. The caller must hold the
+     * journal lock.
+     *
+     * @return the position after the record.
+     */
+    private long append()
+    {
+        payload.flip();
+        int length = payload.remaining();
+        if (segment.position() + RECORD_HEADER_SIZE + length
+                + 4 > segmentSize)
+        {
+            try
+            {
+                rollSegment();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        crc.reset();
+        crc.update(payload.array(), 0, length);
+        segment.putInt(length).putInt((int) crc.getValue()).put(payload);
+        long position = (long) segmentNumber * segmentSize
+                + segment.position();
+        flushLock.lock();
+        try
+        {
+            written = position;
+            if (sync) flushNeeded.signal();
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+        return position;
+    }
+
+    /**
+     * Forces the full segment to disk and starts the next one. The caller
+     * must hold the journal lock.
+     */
+    private void rollSegment() throws IOException
+    {
+        segment.force();
+        channel.close();
+        openSegment(segmentNumber + 1, HEADER_SIZE);
+    }
+
+    /**
+     * Maps a segment for writing, creating it if needed. The caller must
+     * hold the journal lock.
+     *
+     * @param number The segment number.
+     * @param offset Where the next record goes.
+     */
+    private void openSegment(int number, int offset) throws IOException
+    {
+        Path path = segmentPath(number);
+        boolean created = !Files.exists(path);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        if (created)
+        {
+            segment.putInt(0, MAGIC).putInt(4, VERSION);
+            segment.force(0, HEADER_SIZE);
+        }
+        segment.position(offset);
+        // * clear what a torn record may have left after the valid ones
+        segment.putInt(offset, 0);
+        segmentNumber = number;
+        forcedFrom = offset;
+        flushLock.lock();
+        try
+        {
+            // * everything before the new segment is on disk now
+            written = (long) number * segmentSize + offset;
+            durable = written;
+            flushDone.signalAll();
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the records of a segment.
+     *
+     * @param number The segment number.
+     * @param path   The segment file.
+     * @param replay Receives the records.
+     * @return the offset after the last valid record.
+     */
+    private int replaySegment(int number, Path path, Replay replay)
+            throws IOException
+    {
+        ByteBuffer buffer;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION)
+            throw new IOException("Not a journal segment: " + path);
+
+        CRC32C check = new CRC32C();
+        Difficulty[] difficulties = Difficulty.values();
+        int offset = HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= buffer.limit())
+        {
+            int length = buffer.getInt(offset);
+            int end = offset + RECORD_HEADER_SIZE + length;
+            if (length <= 0 || end > buffer.limit()) break;
+            ByteBuffer record = buffer.slice(offset + RECORD_HEADER_SIZE,
+                    length);
+            check.reset();
+            check.update(record.duplicate());
+            if ((int) check.getValue() != buffer.getInt(offset + 4)) break;
+
+            byte type = record.get();
+            long id = record.getLong();
+            if (type == START)
+            {
+                Difficulty difficulty = difficulties[record.get()];
+                int maxAttempts = record.get();
+                byte[] word = new byte[record.getShort()];
+                record.get(word);
+                replay.start(id, difficulty, maxAttempts,
+                        new String(word, StandardCharsets.ISO_8859_1));
+                liveStarts.put(id, number);
+            }
+            else if (type == MOVE)
+            {
+                replay.move(id, (char) (record.get() & 0xFF));
+            }
+            else if (type == END)
+            {
+                replay.end(id);
+                liveStarts.remove(id);
+            }
+            offset = end;
+        }
+        return offset;
+    }
+
+    /**
+     * Lists the segment files in the journal directory by number.
+     *
+     * @return the segment files.
+     */
+    private TreeMap<Integer, Path> listSegments() throws IOException
+    {
+        TreeMap<Integer, Path> segments = new TreeMap<Integer, Path>();
+        try (Stream<Path> files = Files.list(directory))
+        {
+            files.forEach(path ->
+            {
+                String name = path.getFileName().toString();
+                if (name.startsWith("segment-") && name.endsWith(".log"))
+                {
+                    segments.put(Integer.parseInt(
+                            name.substring(8, name.length() - 4)), path);
+                }
+            });
+        }
+        return segments;
+    }
+
+    /**
+     * Gets the file of a segment.
+     *
+     * @param number The segment number.
+     * @return the segment file.
+     */
+    private Path segmentPath(int number)
+    {
+        return directory.resolve(String.format("segment-%08d.log", number));
+    }
+
+    /**
+     * Waits until the flusher has forced every record up to a position.
+     *
+     * @param position The position to wait for.
+     */
+    private void forceTo(long position)
+    {
+        flushLock.lock();
+        try
+        {
+            if (durable >= position) return;
+            flushNeeded.signal();
+            while (durable < position && !closed)
+            {
+                flushDone.awaitUninterruptibly();
+            }
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Runs on the flusher thread: forces whatever was written since the last
+     * force, then wakes the callers it covered. Without sync the journal is
+     * forced every 100 milliseconds at most.
+     */
+    private void flushLoop()
+    {
+        while (true)
+        {
+            long target;
+            flushLock.lock();
+            try
+            {
+                // * without sync, let the records of 100 milliseconds pile up
+                if (!sync && !closed)
+                    flushNeeded.await(100, TimeUnit.MILLISECONDS);
+                while (written <= durable && !closed)
+                {
+                    if (sync)
+                        flushNeeded.await();
+                    else
+                        flushNeeded.await(100, TimeUnit.MILLISECONDS);
+                }
+                if (closed) return;
+                target = written;
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+            finally
+            {
+                flushLock.unlock();
+            }
+
+            MappedByteBuffer forced = null;
+            int from = 0;
+            int to = 0;
+            synchronized (this)
+            {
+                // * the segment may have rolled since, which forced it already
+                long base = (long) segmentNumber * segmentSize;
+                if (target > base)
+                {
+                    forced = segment;
+                    to = (int) (target - base);
+                    from = (int) Math.min(forcedFrom, to);
+                    forcedFrom = to;
+                }
+            }
+            // * appends carry on while the force runs and are covered by the
+            // next one
+            if (forced != null) forced.force(from, to - from);
+
+            flushLock.lock();
+            try
+            {
+                durable = Math.max(durable, target);
+                flushDone.signalAll();
+            }
+            finally
+            {
+                flushLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Represents the results of one player: games played, wins per difficulty,
+ * win streaks and the attempts left at the end of each game. A PlayerStats
+ * object is guarded by its own lock, so different players are updated
+ * without waiting on each other.
+ */
+public class PlayerStats
+{
+    // Fields
+    private final String name;
+    private final int[] wins = new int[Difficulty.values().length];
+    private int games;
+    private int currentStreak;
+    private int bestStreak;
+    private long attemptsLeftTotal;
+
+    /**
+     * Constructs a PlayerStats object with no games.
+     *
+     * @param name The player name.
+     */
+    public PlayerStats(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Constructs a PlayerStats object from saved totals.
+     */
+    PlayerStats(String name, int games, int[] wins, int currentStreak,
+            int bestStreak, long attemptsLeftTotal)
+    {
+        this.name = name;
+        this.games = games;
+        System.arraycopy(wins, 0, this.wins, 0, this.wins.length);
+        this.currentStreak = currentStreak;
+        this.bestStreak = bestStreak;
+        this.attemptsLeftTotal = attemptsLeftTotal;
+    }
+
+    /**
+     * Adds the result of a game.
+     *
+     * @param difficulty   The difficulty of the game.
+     * @param playerWon    true if the player won.
+     * @param attemptsLeft The attempts left when the game ended.
+     */
+    public synchronized void recordGame(Difficulty difficulty,
+            boolean playerWon, int attemptsLeft)
+    {
+        games++;
+        attemptsLeftTotal += attemptsLeft;
+        if (playerWon)
+        {
+            wins[difficulty.ordinal()]++;
+            currentStreak++;
+            bestStreak = Math.max(bestStreak, currentStreak);
+        }
+        else
+        {
+            currentStreak = 0;
+        }
+    }
+
+    /**
+     * Gets the player name.
+     *
+     * @return the name.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Gets the number of games played.
+     *
+     * @return the number of games.
+     */
+    public synchronized int getGames()
+    {
+        return games;
+    }
+
+    /**
+     * Gets the number of games won at a difficulty.
+     *
+     * @param difficulty The difficulty.
+     * @return the number of wins.
+     */
+    public synchronized int getWins(Difficulty difficulty)
+    {
+        return wins[difficulty.ordinal()];
+    }
+
+    /**
+     * Gets the number of games won at every difficulty.
+     *
+     * @return the number of wins.
+     */
+    public synchronized int getWins()
+    {
+        int total = 0;
+        for (int w : wins)
+        {
+            total += w;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of games won in a row up to the last game.
+     *
+     * @return the current streak.
+     */
+    public synchronized int getCurrentStreak()
+    {
+        return currentStreak;
+    }
+
+    /**
+     * Gets the most games won in a row.
+     *
+     * @return the best streak.
+     */
+    public synchronized int getBestStreak()
+    {
+        return bestStreak;
+    }
+
+    /**
+     * Gets the average number of attempts left at the end of a game, counting
+     * lost games as none left.
+     *
+     * @return the average attempts left, or 0 if no game was played.
+     */
+    public synchronized double getAverageAttemptsLeft()
+    {
+        return games == 0 ? 0 : attemptsLeftTotal / (double) games;
+    }
+
+    /**
+     * Gets the total attempts left over every game.
+     *
+     * @return the total attempts left.
+     */
+    synchronized long getAttemptsLeftTotal()
+    {
+        return attemptsLeftTotal;
+    }
+
+    /**
+     * Describes the stats.
+     */
+    @Override
+    public synchronized String toString()
+    {
+        return String.format(
+                "%s: %d games, %d wins, streak %d (best %d), %.1f attempts left",
+                name, games, getWins(), currentStreak, bestStreak,
+                getAverageAttemptsLeft());
+    }
+}
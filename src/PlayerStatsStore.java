@@ -0,0 +1,337 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the stats of every player, updated concurrently as games end.
+ * Players are kept in a concurrent map and only a player's own lock is taken
+ * to add a result. The leaderboard is a concurrent skip list ordered by wins
+ * and then best streak, kept up to date on every result, so the top players
+ * are read off its head without sorting the whole table. The store can be
+ * saved to a compact binary snapshot and loaded back.
+ */
+public class PlayerStatsStore
+{
+    // Fields
+    private static final int MAGIC = 0x48504C53; // "HPLS"
+    private static final int VERSION = 1;
+    private static final long SNAPSHOT_SECONDS = 30;
+    private final ConcurrentHashMap<String, PlayerStats> players = new ConcurrentHashMap<String, PlayerStats>();
+    private final ConcurrentSkipListSet<Rank> ranking = new ConcurrentSkipListSet<Rank>();
+    private ScheduledExecutorService snapshots;
+
+    /**
+     * The position of a player on the leaderboard. Ranks never change; a new
+     * result replaces the player's rank with a new one.
+     */
+    private static final class Rank implements Comparable<Rank>
+    {
+        private final int wins;
+        private final int bestStreak;
+        private final PlayerStats stats;
+
+        /**
+         * Constructs a Rank object from the current stats of a player. The
+         * caller must hold the lock of the stats.
+         *
+         * @param stats The stats of the player.
+         */
+        Rank(PlayerStats stats)
+        {
+            this.wins = stats.getWins();
+            this.bestStreak = stats.getBestStreak();
+            this.stats = stats;
+        }
+
+        /**
+         * Orders the most wins first, then the best streak, then by name.
+         */
+        @Override
+        public int compareTo(Rank other)
+        {
+            if (wins != other.wins) return Integer.compare(other.wins, wins);
+            if (bestStreak != other.bestStreak)
+                return Integer.compare(other.bestStreak, bestStreak);
+            return stats.getName().compareTo(other.stats.getName());
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Rank && compareTo((Rank) other) == 0;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (wins * 31 + bestStreak) * 31 + stats.getName().hashCode();
+        }
+    }
+
+    /**
+     * Adds the result of a game to a player's stats, creating the player if
+     * needed.
+     *
+     * @param player       The player name.
+     * @param difficulty   The difficulty of the game.
+     * @param playerWon    true if the player won.
+     * @param attemptsLeft The attempts left when the game ended.
+     * @return the updated stats of the player.
+     */
+    public PlayerStats record(String player, Difficulty difficulty,
+            boolean playerWon, int attemptsLeft)
+    {
+        PlayerStats stats = players.computeIfAbsent(player, PlayerStats::new);
+        synchronized (stats)
+        {
+            Rank before = stats.getGames() == 0 ? null : new Rank(stats);
+            stats.recordGame(difficulty, playerWon, attemptsLeft);
+            Rank after = new Rank(stats);
+            if (!after.equals(before))
+            {
+                // * add before removing so the player never drops off the
+                // leaderboard; top() skips the short-lived duplicate
+                ranking.add(after);
+                if (before != null) ranking.remove(before);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Gets the stats of a player.
+     *
+     * @param player The player name.
+     * @return the stats, or null if the player has no games.
+     */
+    public PlayerStats get(String player)
+    {
+        return players.get(player);
+    }
+
+    /**
+     * Gets the number of players with stats.
+     *
+     * @return the number of players.
+     */
+    public int size()
+    {
+        return players.size();
+    }
+
+    /**
+     * Gets the players with the most wins, best first. Takes time in
+     * proportion to k, not to the number of players.
+     *
+     * @param k The most players to return.
+     * @return the top players.
+     */
+    public List<PlayerStats> top(int k)
+    {
+        ArrayList<PlayerStats> top = new ArrayList<PlayerStats>(
+                Math.min(k, players.size()));
+        HashSet<String> seen = new HashSet<String>();
+        for (Rank rank : ranking)
+        {
+            if (top.size() >= k) break;
+            if (seen.add(rank.stats.getName())) top.add(rank.stats);
+        }
+        return top;
+    }
+
+    /**
+     * Saves every player to a snapshot file. Players keep being updated while
+     * the snapshot is written; each player is saved as of one moment.
+     *
+     * @param path The file to write.
+     * @throws IOException if the file can't be written.
+     */
+    public void save(Path path) throws IOException
+    {
+        // * write to a temporary file first so a crash never leaves a
+        // half-written snapshot behind
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int difficulties = Difficulty.values().length;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(difficulties);
+            for (PlayerStats stats : players.values())
+            {
+                synchronized (stats)
+                {
+                    out.writeBoolean(true);
+                    out.writeUTF(stats.getName());
+                    writeVarInt(out, stats.getGames());
+                    for (Difficulty d : Difficulty.values())
+                    {
+                        writeVarInt(out, stats.getWins(d));
+                    }
+                    writeVarInt(out, stats.getCurrentStreak());
+                    writeVarInt(out, stats.getBestStreak());
+                    writeVarLong(out, stats.getAttemptsLeftTotal());
+                }
+            }
+            out.writeBoolean(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a store from a snapshot file.
+     *
+     * @param path The file to read.
+     * @return the loaded store, or an empty store if the file doesn't exist.
+     * @throws IOException if the file can't be read or isn't a snapshot.
+     */
+    public static PlayerStatsStore load(Path path) throws IOException
+    {
+        PlayerStatsStore store = new PlayerStatsStore();
+        if (!Files.exists(path)) return store;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path))))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readByte() != Difficulty.values().length)
+                throw new IOException("Not a player stats snapshot: " + path);
+            int[] wins = new int[Difficulty.values().length];
+            while (in.readBoolean())
+            {
+                String name = in.readUTF();
+                int games = readVarInt(in);
+                for (int i = 0; i < wins.length; i++)
+                {
+                    wins[i] = readVarInt(in);
+                }
+                PlayerStats stats = new PlayerStats(name, games, wins,
+                        readVarInt(in), readVarInt(in), readVarLong(in));
+                store.players.put(name, stats);
+                if (games > 0) store.ranking.add(new Rank(stats));
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Loads the store the game keeps its players in, and saves it every 30
+     * seconds from then on. The file is set by the system property
+     * hangman.stats and defaults to .hangman-stats in the home directory. A
+     * snapshot that can't be read is reported and replaced.
+     *
+     * @return the store.
+     */
+    public static PlayerStatsStore openDefault()
+    {
+        Path path = Paths.get(System.getProperty("hangman.stats",
+                Paths.get(System.getProperty("user.home"), ".hangman-stats")
+                        .toString()));
+        PlayerStatsStore store;
+        try
+        {
+            store = load(path);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            store = new PlayerStatsStore();
+        }
+        store.startSnapshots(path, SNAPSHOT_SECONDS);
+        return store;
+    }
+
+    /**
+     * Saves a snapshot periodically on a background thread, and once more
+     * when the JVM exits.
+     *
+     * @param path          The snapshot file.
+     * @param periodSeconds The number of seconds between snapshots.
+     */
+    public synchronized void startSnapshots(Path path, long periodSeconds)
+    {
+        if (snapshots != null) return;
+        snapshots = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "stats-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runnable snapshot = () ->
+        {
+            try
+            {
+                save(path);
+            }
+            catch (IOException e)
+            {
+                // * the next snapshot tries again
+                e.printStackTrace();
+            }
+        };
+        snapshots.scheduleWithFixedDelay(snapshot, periodSeconds,
+                periodSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(snapshot,
+                "stats-snapshot-exit"));
+    }
+
+    /**
+     * Writes a non-negative int in 7-bit groups, low group first.
+     */
+    private static void writeVarInt(DataOutputStream out, int value)
+            throws IOException
+    {
+        writeVarLong(out, value);
+    }
+
+    /**
+     * Writes a non-negative long in 7-bit groups, low group first.
+     */
+    private static void writeVarLong(DataOutputStream out, long value)
+            throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads an int written by writeVarInt.
+     */
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        return (int) readVarLong(in);
+    }
+
+    /**
+     * Reads a long written by writeVarLong.
+     */
+    private static long readVarLong(DataInputStream in) throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) return value;
+        }
+    }
+}
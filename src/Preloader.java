@@ -0,0 +1,69 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads what the first game needs on background threads while the difficulty
+ * screen is shown, so starting a game doesn't read or index the word file on
+ * the event dispatch thread. The player stats are loaded alongside them, and
+ * the stick figure frames are loaded on the same executor by
+ * StickFigureFrames.
+ */
+public final class Preloader
+{
+    // Fields
+    private static final int THREADS = 2;
+    private final ExecutorService executor;
+    private final CompletableFuture<PlayerStatsStore> stats;
+
+    /**
+     * Constructs a Preloader object and starts loading the words of every
+     * difficulty and the player stats.
+     */
+    public Preloader()
+    {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(THREADS, r ->
+        {
+            Thread thread = new Thread(r,
+                    "preloader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Difficulty[] difficulties = Difficulty.values();
+        CompletableFuture<?>[] wordLists =
+                new CompletableFuture<?>[difficulties.length];
+        for (int i = 0; i < difficulties.length; i++)
+        {
+            // * building a game loads its word list and the engine classes
+            wordLists[i] = CompletableFuture.runAsync(difficulties[i]::newGame,
+                    executor);
+        }
+        CompletableFuture.allOf(wordLists).thenRun(
+                () -> StartupTimer.mark(StartupTimer.Milestone.PRELOADED));
+        stats = CompletableFuture.supplyAsync(PlayerStatsStore::openDefault,
+                executor);
+    }
+
+    /**
+     * Gets the player stats, waiting for them to load if needed.
+     *
+     * @return the player stats store.
+     */
+    public PlayerStatsStore getStats()
+    {
+        return stats.join();
+    }
+
+    /**
+     * Gets the executor other startup work can run on.
+     *
+     * @return the background executor.
+     */
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+}
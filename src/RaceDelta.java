@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+/**
+ * Represents the changes one tick of a RaceRoom made, shared by every player
+ * in the room. It lists the players whose game changed in the tick, in player
+ * order, with the progress everyone may see: how many letters they have
+ * revealed, their attempts left and where they finished. The moves behind
+ * the changes are kept with each player, so a player finds their own with
+ * one binary search instead of reading the moves of the whole room.
+ *
+ * A move is a guess that changed the game: repeated guesses and guesses made
+ * after a player's game ended are left out.
+ */
+public final class RaceDelta
+{
+    // Fields
+    public static final int PLAYING = 0;
+    public static final int LOST = -1;
+    private final long tick;
+    private final int playerCount;
+    private final int playing;
+    private final int[] players;
+    private final int[] lettersRevealed;
+    private final int[] attemptsLeft;
+    private final int[] places;
+    private final int[] moveOffsets;
+    private final char[] letters;
+    private final long[] positions;
+
+    /**
+     * Constructs a RaceDelta object. The arrays are kept, not copied.
+     */
+    RaceDelta(long tick, int playerCount, int playing, int[] players,
+            int[] lettersRevealed, int[] attemptsLeft, int[] places,
+            int[] moveOffsets, char[] letters, long[] positions)
+    {
+        this.tick = tick;
+        this.playerCount = playerCount;
+        this.playing = playing;
+        this.players = players;
+        this.lettersRevealed = lettersRevealed;
+        this.attemptsLeft = attemptsLeft;
+        this.places = places;
+        this.moveOffsets = moveOffsets;
+        this.letters = letters;
+        this.positions = positions;
+    }
+
+    /**
+     * Gets the number of the tick, counting from 1.
+     *
+     * @return the tick number.
+     */
+    public long getTick()
+    {
+        return tick;
+    }
+
+    /**
+     * Gets the number of players who have joined the room.
+     *
+     * @return the number of players.
+     */
+    public int getPlayerCount()
+    {
+        return playerCount;
+    }
+
+    /**
+     * Gets the number of players still playing.
+     *
+     * @return the number of players whose game hasn't ended.
+     */
+    public int getPlaying()
+    {
+        return playing;
+    }
+
+    /**
+     * Gets the number of players whose game changed in the tick.
+     *
+     * @return the number of changed players.
+     */
+    public int size()
+    {
+        return players.length;
+    }
+
+    /**
+     * Finds a player among the changed players.
+     *
+     * @param player The index of the player in the room.
+     * @return the index of the player in this delta, or -1 if their game
+     *         didn't change.
+     */
+    public int indexOf(int player)
+    {
+        int index = Arrays.binarySearch(players, player);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Gets a changed player.
+     *
+     * @param index The index of the player in this delta.
+     * @return the index of the player in the room.
+     */
+    public int getPlayer(int index)
+    {
+        return players[index];
+    }
+
+    /**
+     * Gets the number of positions of the word a changed player has
+     * revealed.
+     *
+     * @param index The index of the player in this delta.
+     * @return the number of revealed positions.
+     */
+    public int getLettersRevealed(int index)
+    {
+        return lettersRevealed[index];
+    }
+
+    /**
+     * Gets the attempts a changed player has left.
+     *
+     * @param index The index of the player in this delta.
+     * @return the number of attempts left.
+     */
+    public int getAttemptsLeft(int index)
+    {
+        return attemptsLeft[index];
+    }
+
+    /**
+     * Gets where a changed player finished.
+     *
+     * @param index The index of the player in this delta.
+     * @return the place from 1 if the player solved the word, PLAYING if the
+     *         game goes on, or LOST.
+     */
+    public int getPlace(int index)
+    {
+        return places[index];
+    }
+
+    /**
+     * Gets the index of the first move of a changed player.
+     *
+     * @param index The index of the player in this delta.
+     * @return the index of the first move.
+     */
+    public int getMovesStart(int index)
+    {
+        return moveOffsets[index];
+    }
+
+    /**
+     * Gets the index after the last move of a changed player.
+     *
+     * @param index The index of the player in this delta.
+     * @return the index after the last move.
+     */
+    public int getMovesEnd(int index)
+    {
+        return moveOffsets[index + 1];
+    }
+
+    /**
+     * Gets the number of moves made in the tick.
+     *
+     * @return the number of moves.
+     */
+    public int getMoveCount()
+    {
+        return letters.length;
+    }
+
+    /**
+     * Gets the letter guessed by a move.
+     *
+     * @param move The index of the move.
+     * @return the guessed letter in upper case.
+     */
+    public char getLetter(int move)
+    {
+        return letters[move];
+    }
+
+    /**
+     * Gets the positions a move revealed.
+     *
+     * @param move The index of the move.
+     * @return a bit mask of the word positions of the letter, where bit 0 is
+     *         the first position, or 0 if the guess was wrong.
+     */
+    public long getPositions(int move)
+    {
+        return positions[move];
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * The listener interface for receiving the changes to a RaceRoom, one batch
+ * per tick.
+ */
+public interface RaceListener
+{
+    /**
+     * Invoked on the tick thread after every tick that changed the room. The
+     * same delta is passed to every player in the room, so it must not be
+     * changed and should be handed off quickly.
+     *
+     * @param delta The changes made by the tick.
+     */
+    void deltaPublished(RaceDelta delta);
+}
@@ -0,0 +1,435 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a race where many players try to solve the same word, each with
+ * their own guesses and attempts. Guesses may come from any thread; they are
+ * queued and applied together once per tick, in the order they arrived. Each
+ * tick that changed anything publishes one RaceDelta, and the same delta is
+ * handed to every player, so a tick costs one pass over its guesses plus one
+ * call per player, however many guesses each player made.
+ *
+ * The word is indexed once for the whole room and the players' games are kept
+ * in parallel arrays indexed by player, so a room of thousands of players
+ * holds a few dozen bytes per player.
+ */
+public class RaceRoom
+{
+    // Fields
+    private static final int INITIAL_CAPACITY = 16;
+    private final String word;
+    private final int maxAttempts;
+    private final long[] letterPositions = new long[HangmanGame.ALPHABET_SIZE];
+    private final long wordPositions;
+    private final ConcurrentLinkedQueue<Move> pending =
+            new ConcurrentLinkedQueue<Move>();
+    private final Object lock = new Object();
+    private volatile int playerCount;
+    private RaceListener[] listeners = new RaceListener[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] guessedMasks = new int[INITIAL_CAPACITY];
+    private long[] revealed = new long[INITIAL_CAPACITY];
+    private int[] attemptsLeft = new int[INITIAL_CAPACITY];
+    private int[] places = new int[INITIAL_CAPACITY];
+    private int[] joined = new int[INITIAL_CAPACITY];
+    private int joinedCount;
+    private long[] moveKeys = new long[INITIAL_CAPACITY];
+    private char[] moveLetters = new char[INITIAL_CAPACITY];
+    private long[] movePositions = new long[INITIAL_CAPACITY];
+    private int playing;
+    private int winners;
+    private long ticks;
+    private ScheduledFuture<?> ticker;
+
+    /**
+     * Constructs a RaceRoom object for the specified word.
+     *
+     * @param word        The word to be guessed.
+     * @param maxAttempts The maximum number of attempts each player has.
+     * @throws IllegalArgumentException if the word is longer than 64
+     *                                  characters.
+     */
+    public RaceRoom(String word, int maxAttempts)
+    {
+        if (word.length() > Long.SIZE)
+            throw new IllegalArgumentException(
+                    "Word must be at most " + Long.SIZE + " characters");
+        this.word = word;
+        this.maxAttempts = maxAttempts;
+        long positions = 0;
+        for (int i = 0; i < word.length(); i++)
+        {
+            int letter = HangmanGame.letterIndex(word.charAt(i));
+            if (letter < 0) continue;
+            letterPositions[letter] |= 1L << i;
+            positions |= 1L << i;
+        }
+        wordPositions = positions;
+    }
+
+    /**
+     * Creates a room of the specified difficulty, choosing the word from the
+     * difficulty's WordList and the maximum attempts the same way the
+     * matching HangmanGame subclass does.
+     *
+     * @param difficulty The difficulty level of the race.
+     * @return the new room.
+     */
+    public static RaceRoom create(Difficulty difficulty)
+    {
+        HangmanGame game = difficulty.newGame();
+        game.startGame();
+        return new RaceRoom(game.getWordToGuess(), game.getMaxAttempts());
+    }
+
+    /**
+     * Adds a player to the race. The player appears in the next delta and
+     * receives every delta published after it.
+     *
+     * @param name     The name of the player.
+     * @param listener The listener receiving the deltas.
+     * @return the index of the player in the room.
+     */
+    public int join(String name, RaceListener listener)
+    {
+        synchronized (lock)
+        {
+            int player = playerCount;
+            if (player == names.length)
+            {
+                int capacity = player * 2;
+                listeners = Arrays.copyOf(listeners, capacity);
+                names = Arrays.copyOf(names, capacity);
+                guessedMasks = Arrays.copyOf(guessedMasks, capacity);
+                revealed = Arrays.copyOf(revealed, capacity);
+                attemptsLeft = Arrays.copyOf(attemptsLeft, capacity);
+                places = Arrays.copyOf(places, capacity);
+            }
+            if (joinedCount == joined.length)
+                joined = Arrays.copyOf(joined, joinedCount * 2);
+            listeners[player] = listener;
+            names[player] = name;
+            attemptsLeft[player] = maxAttempts;
+            places[player] = RaceDelta.PLAYING;
+            joined[joinedCount++] = player;
+            playing++;
+            playerCount = player + 1;
+            return player;
+        }
+    }
+
+    /**
+     * Queues a player's guess for the next tick. Guessing a letter that was
+     * already guessed does not cost an attempt, and guesses made after the
+     * player's game ended are ignored.
+     *
+     * @param player      The index of the player.
+     * @param playerGuess The character guessed by the player.
+     * @throws InvalidGuessException if the input character is not a letter
+     *                               from A-Z.
+     * @throws IllegalArgumentException if no such player joined the room.
+     */
+    public void guess(int player, char playerGuess)
+            throws InvalidGuessException
+    {
+        int letter = HangmanGame.letterIndex(playerGuess);
+        if (letter < 0) throw new InvalidGuessException();
+        if (player < 0 || player >= playerCount)
+            throw new IllegalArgumentException("No player " + player);
+        pending.add(new Move(player, letter));
+    }
+
+    /**
+     * Applies the queued guesses and publishes the changes to every player.
+     * Listeners are called on the calling thread, after the room is
+     * unlocked, so they may join players or queue guesses.
+     *
+     * @return the published delta, or null if nothing changed.
+     */
+    public RaceDelta tick()
+    {
+        RaceDelta delta;
+        RaceListener[] targets;
+        int count;
+        synchronized (lock)
+        {
+            delta = applyPending();
+            if (delta == null) return null;
+            // * joins copy the listener array, so this one stays valid
+            targets = listeners;
+            count = playerCount;
+        }
+        for (int i = 0; i < count; i++)
+        {
+            try
+            {
+                targets[i].deltaPublished(delta);
+            }
+            catch (RuntimeException e)
+            {
+                // * one failing player must not stop the race for the others
+                e.printStackTrace();
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Applies the queued guesses in the order they arrived and builds the
+     * delta of the players that joined or changed. Called with the lock
+     * held.
+     *
+     * @return the delta, or null if nothing changed.
+     */
+    private RaceDelta applyPending()
+    {
+        int keys = 0;
+        int moves = 0;
+        Move move;
+        while ((move = pending.poll()) != null)
+        {
+            long positions = apply(move.player, move.letter);
+            if (positions < 0) continue;
+            if (moves == moveLetters.length)
+            {
+                moveLetters = Arrays.copyOf(moveLetters, moves * 2);
+                movePositions = Arrays.copyOf(movePositions, moves * 2);
+            }
+            if (keys == moveKeys.length)
+                moveKeys = Arrays.copyOf(moveKeys, keys * 2);
+            moveLetters[moves] = (char) ('A' + move.letter);
+            movePositions[moves] = positions;
+            // * sorting by player, then by arrival, groups each player's
+            // moves in the order they were made
+            moveKeys[keys++] = (long) move.player << 32 | moves;
+            moves++;
+        }
+        for (int i = 0; i < joinedCount; i++)
+        {
+            if (keys == moveKeys.length)
+                moveKeys = Arrays.copyOf(moveKeys, keys * 2);
+            moveKeys[keys++] = (long) joined[i] << 32 | 0xFFFFFFFFL;
+        }
+        joinedCount = 0;
+        if (keys == 0) return null;
+        Arrays.sort(moveKeys, 0, keys);
+
+        int changed = 0;
+        for (int k = 0; k < keys; k++)
+        {
+            if (k == 0 || moveKeys[k] >>> 32 != moveKeys[k - 1] >>> 32)
+                changed++;
+        }
+        int[] players = new int[changed];
+        int[] revealedCounts = new int[changed];
+        int[] attempts = new int[changed];
+        int[] finished = new int[changed];
+        int[] offsets = new int[changed + 1];
+        char[] letters = new char[moves];
+        long[] positions = new long[moves];
+        int index = -1;
+        int m = 0;
+        for (int k = 0; k < keys; k++)
+        {
+            int player = (int) (moveKeys[k] >>> 32);
+            if (index < 0 || players[index] != player)
+            {
+                players[++index] = player;
+                revealedCounts[index] = Long.bitCount(revealed[player]);
+                attempts[index] = attemptsLeft[player];
+                finished[index] = places[player];
+                offsets[index] = m;
+            }
+            int source = (int) moveKeys[k];
+            // * the marker of a join carries no move
+            if (source == -1) continue;
+            letters[m] = moveLetters[source];
+            positions[m++] = movePositions[source];
+        }
+        offsets[changed] = m;
+        return new RaceDelta(++ticks, playerCount, playing, players,
+                revealedCounts, attempts, finished, offsets, letters,
+                positions);
+    }
+
+    /**
+     * Applies one guess to a player's game. Called with the lock held.
+     *
+     * @param player The index of the player.
+     * @param letter The index of the guessed letter.
+     * @return the positions the guess revealed, 0 for a wrong guess, or -1 if
+     *         the guess changed nothing.
+     */
+    private long apply(int player, int letter)
+    {
+        int bit = 1 << letter;
+        if (places[player] != RaceDelta.PLAYING
+                || (guessedMasks[player] & bit) != 0)
+            return -1;
+        guessedMasks[player] |= bit;
+        long positions = letterPositions[letter];
+        if (positions != 0)
+        {
+            revealed[player] |= positions;
+            if (revealed[player] == wordPositions)
+            {
+                places[player] = ++winners;
+                playing--;
+            }
+            return positions;
+        }
+        if (--attemptsLeft[player] == 0)
+        {
+            places[player] = RaceDelta.LOST;
+            playing--;
+        }
+        return 0;
+    }
+
+    /**
+     * Starts ticking the room at a fixed rate on a scheduler. The race keeps
+     * ticking until stop is called.
+     *
+     * @param scheduler  The scheduler to tick on, which may be shared by many
+     *                   rooms.
+     * @param tickMillis The time between ticks in milliseconds.
+     */
+    public void start(ScheduledExecutorService scheduler, long tickMillis)
+    {
+        synchronized (lock)
+        {
+            if (ticker != null)
+                throw new IllegalStateException("Race is already ticking");
+            ticker = scheduler.scheduleAtFixedRate(this::tick, tickMillis,
+                    tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops ticking the room. Guesses queued since the last tick are
+     * dropped.
+     */
+    public void stop()
+    {
+        synchronized (lock)
+        {
+            if (ticker != null) ticker.cancel(false);
+            ticker = null;
+            pending.clear();
+        }
+    }
+
+    /**
+     * Gets a player's view of the word as of the last tick.
+     *
+     * @param player The index of the player.
+     * @return the word with '_' for the letters the player hasn't revealed.
+     */
+    public String getCurrentGuess(int player)
+    {
+        long shown;
+        synchronized (lock)
+        {
+            shown = revealed[player];
+        }
+        char[] guess = word.toCharArray();
+        for (int i = 0; i < guess.length; i++)
+        {
+            if ((wordPositions & ~shown & 1L << i) != 0) guess[i] = '_';
+        }
+        return new String(guess);
+    }
+
+    /**
+     * Gets where a player finished, as of the last tick.
+     *
+     * @param player The index of the player.
+     * @return the place from 1 if the player solved the word,
+     *         RaceDelta.PLAYING if the game goes on, or RaceDelta.LOST.
+     */
+    public int getPlace(int player)
+    {
+        synchronized (lock)
+        {
+            return places[player];
+        }
+    }
+
+    /**
+     * Gets the name of a player.
+     *
+     * @param player The index of the player.
+     * @return the name the player joined with.
+     */
+    public String getName(int player)
+    {
+        synchronized (lock)
+        {
+            return names[player];
+        }
+    }
+
+    /**
+     * Checks if every player's game has ended.
+     *
+     * @return true if players have joined and none is still playing.
+     */
+    public boolean isOver()
+    {
+        synchronized (lock)
+        {
+            return playerCount > 0 && playing == 0;
+        }
+    }
+
+    /**
+     * Gets the number of players who have joined the room.
+     *
+     * @return the number of players.
+     */
+    public int getPlayerCount()
+    {
+        return playerCount;
+    }
+
+    /**
+     * Gets the word to be guessed.
+     *
+     * @return the word to be guessed.
+     */
+    public String getWordToGuess()
+    {
+        return word;
+    }
+
+    /**
+     * Gets the maximum number of attempts each player has.
+     *
+     * @return the maximum number of attempts.
+     */
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    /**
+     * A guess waiting for the next tick.
+     */
+    private static final class Move
+    {
+        private final int player;
+        private final int letter;
+
+        /**
+         * Constructs a Move object.
+         */
+        Move(int player, int letter)
+        {
+            this.player = player;
+            this.letter = letter;
+        }
+    }
+}
@@ -0,0 +1,655 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Represents a table of hosted games kept in parallel primitive arrays, one
+ * slot per session, so millions of idle games fit in the heap. A session
+ * holds only the index of its word in a shared WordCorpus, its guessed and
+ * wrong letter masks, its attempts left, its difficulty and when it was last
+ * used: 24 bytes, against nearly 900 for a HangmanGame with its arrays,
+ * lists and WordList.
+ *
+ * Sessions are reached through a Handle, a short-lived view with the same
+ * methods as HangmanGame. Handles are never stored in the table; they can be
+ * made again from the session id at any time. Moves on sessions in different
+ * lock stripes never wait on each other, and a removed session's slot is
+ * reused by a later one without its old id ever reaching it.
+ *
+ * The table has a fixed capacity, allocated up front.
+ */
+public final class SessionTable
+{
+    // Fields
+    private static final int LOCK_STRIPES = 1024;
+    private static final int MAX_CORPORA = 4096;
+    private static final byte FREE = -1;
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+    private final int capacity;
+    private final long epochMillis;
+    // * while a slot is free its word holds the next free slot
+    private final int[] words;
+    private final int[] guessedMasks;
+    private final int[] wrongMasks;
+    private final byte[] attemptsLeft;
+    private final byte[] difficulties;
+    private final short[] corpusIds;
+    private final int[] generations;
+    private final int[] lastAccessSeconds;
+    private final Object[] locks;
+    private final Object allocator = new Object();
+    private final WordCorpus[] corpora = new WordCorpus[MAX_CORPORA];
+    private final int[] corpusSessions = new int[MAX_CORPORA];
+    private final short[] currentCorpus = new short[DIFFICULTIES.length];
+    private final WordList[] wordLists = new WordList[DIFFICULTIES.length];
+    private int freeHead = -1;
+    private int used;
+    private int size;
+
+    /**
+     * Constructs a SessionTable object with room for the specified number of
+     * sessions.
+     *
+     * @param capacity The most sessions the table holds at once.
+     */
+    public SessionTable(int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+        epochMillis = System.currentTimeMillis();
+        words = new int[capacity];
+        guessedMasks = new int[capacity];
+        wrongMasks = new int[capacity];
+        attemptsLeft = new byte[capacity];
+        difficulties = new byte[capacity];
+        corpusIds = new short[capacity];
+        generations = new int[capacity];
+        lastAccessSeconds = new int[capacity];
+        locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++)
+        {
+            locks[i] = new Object();
+        }
+        Arrays.fill(currentCorpus, (short) -1);
+    }
+
+    /**
+     * Creates and starts a game of the specified difficulty, on a word drawn
+     * the same way a WordList of the difficulty draws it.
+     *
+     * @param difficulty The difficulty of the game.
+     * @return a handle on the new session.
+     * @throws IllegalStateException if the table is full.
+     */
+    public Handle create(Difficulty difficulty)
+    {
+        int slot;
+        int word;
+        short corpusId;
+        synchronized (allocator)
+        {
+            if (freeHead < 0 && used == capacity)
+                throw new IllegalStateException("Session table is full");
+            WordList list = wordLists[difficulty.ordinal()];
+            if (list == null)
+            {
+                list = new WordList(difficulty);
+                wordLists[difficulty.ordinal()] = list;
+            }
+            word = list.getRandomWordIndex();
+            corpusId = register(difficulty, list.getCorpus());
+            if (freeHead >= 0)
+            {
+                slot = freeHead;
+                freeHead = words[slot];
+            }
+            else
+            {
+                slot = used++;
+            }
+            size++;
+        }
+        int generation;
+        synchronized (locks[slot & (LOCK_STRIPES - 1)])
+        {
+            // * ids are kept positive and never carry generation 0
+            generation = (generations[slot] + 1) & Integer.MAX_VALUE;
+            if (generation == 0) generation = 1;
+            generations[slot] = generation;
+            words[slot] = word;
+            guessedMasks[slot] = 0;
+            wrongMasks[slot] = 0;
+            attemptsLeft[slot] = (byte) difficulty.getMaxAttempts();
+            difficulties[slot] = (byte) difficulty.ordinal();
+            corpusIds[slot] = corpusId;
+            lastAccessSeconds[slot] = nowSeconds();
+        }
+        return new Handle((long) generation << 32 | slot, slot);
+    }
+
+    /**
+     * Gets the id of the corpus, registering it if no session uses it yet,
+     * and counts one more session using it. The caller holds the allocator
+     * lock.
+     *
+     * @param difficulty The difficulty the corpus was drawn for.
+     * @param corpus     The corpus.
+     * @return the id of the corpus.
+     */
+    private short register(Difficulty difficulty, WordCorpus corpus)
+    {
+        short id = currentCorpus[difficulty.ordinal()];
+        if (id < 0 || corpora[id] != corpus)
+        {
+            id = -1;
+            short empty = -1;
+            for (short i = 0; i < MAX_CORPORA && id < 0; i++)
+            {
+                if (corpora[i] == corpus)
+                    id = i;
+                else if (corpora[i] == null && empty < 0)
+                    empty = i;
+            }
+            if (id < 0)
+            {
+                if (empty < 0)
+                    throw new IllegalStateException(
+                            "Too many word lists in use at once");
+                id = empty;
+                corpora[id] = corpus;
+            }
+            currentCorpus[difficulty.ordinal()] = id;
+        }
+        corpusSessions[id]++;
+        return id;
+    }
+
+    /**
+     * Gets a session by id and marks it as used.
+     *
+     * @param id The session id.
+     * @return a handle on the session, or null if there is no session with
+     *         the id.
+     */
+    public Handle get(long id)
+    {
+        int slot = (int) id;
+        if (slot < 0 || slot >= capacity) return null;
+        synchronized (locks[slot & (LOCK_STRIPES - 1)])
+        {
+            if (!isLive(id, slot)) return null;
+            lastAccessSeconds[slot] = nowSeconds();
+        }
+        return new Handle(id, slot);
+    }
+
+    /**
+     * Removes a session. Its handles stop working and its slot is reused.
+     *
+     * @param id The session id.
+     * @return true if the session was removed, false if there was no session
+     *         with the id.
+     */
+    public boolean remove(long id)
+    {
+        return removeIfIdle(id, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes a session if it has not been used since a cutoff. The last use
+     * is checked under the same lock that frees the slot, so a session used
+     * after an eviction scan picked it is kept.
+     *
+     * @param id     The session id.
+     * @param cutoff The time in seconds since the table's epoch a session
+     *               must have been last used before to be removed.
+     * @return true if the session was removed, false if there was no session
+     *         with the id or it was used since the cutoff.
+     */
+    private boolean removeIfIdle(long id, int cutoff)
+    {
+        int slot = (int) id;
+        if (slot < 0 || slot >= capacity) return false;
+        short corpusId;
+        synchronized (locks[slot & (LOCK_STRIPES - 1)])
+        {
+            if (!isLive(id, slot) || lastAccessSeconds[slot] >= cutoff)
+                return false;
+            difficulties[slot] = FREE;
+            corpusId = corpusIds[slot];
+        }
+        synchronized (allocator)
+        {
+            // * a word list no session uses any more can be let go
+            if (--corpusSessions[corpusId] == 0) corpora[corpusId] = null;
+            words[slot] = freeHead;
+            freeHead = slot;
+            size--;
+        }
+        return true;
+    }
+
+    /**
+     * Removes every session that has not been used within the specified
+     * time.
+     *
+     * @param idleMillis How long a session may go unused.
+     * @return the number of sessions removed.
+     */
+    public int evictIdle(long idleMillis)
+    {
+        int cutoff = (int) ((System.currentTimeMillis() - epochMillis
+                - idleMillis) / 1000);
+        int slots;
+        synchronized (allocator)
+        {
+            slots = used;
+        }
+        int removed = 0;
+        for (int slot = 0; slot < slots; slot++)
+        {
+            long id;
+            synchronized (locks[slot & (LOCK_STRIPES - 1)])
+            {
+                if (difficulties[slot] == FREE
+                        || lastAccessSeconds[slot] >= cutoff)
+                    continue;
+                id = (long) generations[slot] << 32 | slot;
+            }
+            // * the session may be used between the two locks, so
+            // removeIfIdle checks again
+            if (removeIfIdle(id, cutoff)) removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the number of live sessions.
+     *
+     * @return the number of sessions.
+     */
+    public int size()
+    {
+        synchronized (allocator)
+        {
+            return size;
+        }
+    }
+
+    /**
+     * Gets the most sessions the table holds at once.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Estimates the heap used by the table, not counting the word lists.
+     *
+     * @return the approximate size in bytes.
+     */
+    public long getFootprintBytes()
+    {
+        // * 16 byte headers on a 64-bit JVM with compressed pointers
+        long perSession = 4L + 4 + 4 + 1 + 1 + 2 + 4 + 4;
+        return 8 * 16L + perSession * capacity
+                + 16L + (4L + 16) * LOCK_STRIPES
+                + 16L + 8L * MAX_CORPORA;
+    }
+
+    /**
+     * Checks whether a slot holds the live session with an id. The caller
+     * holds the slot's lock.
+     *
+     * @param id   The session id.
+     * @param slot The slot of the id.
+     * @return true if the session is live.
+     */
+    private boolean isLive(long id, int slot)
+    {
+        // * slots never used have generation 0, which no id carries
+        return difficulties[slot] != FREE && id >>> 32 != 0
+                && id >>> 32 == generations[slot];
+    }
+
+    /**
+     * Gets the time since the table was created.
+     *
+     * @return the time in seconds.
+     */
+    private int nowSeconds()
+    {
+        return (int) ((System.currentTimeMillis() - epochMillis) / 1000);
+    }
+
+    /**
+     * A view of one session with the methods of HangmanGame. Every call
+     * reads the table under the session's lock, so a handle may be used from
+     * any thread. Once the session is removed, calls throw
+     * IllegalStateException.
+     */
+    public final class Handle
+    {
+        private final long id;
+        private final int slot;
+
+        /**
+         * Constructs a Handle object.
+         *
+         * @param id   The session id.
+         * @param slot The slot of the session.
+         */
+        private Handle(long id, int slot)
+        {
+            this.id = id;
+            this.slot = slot;
+        }
+
+        /**
+         * Gets the id of the session.
+         *
+         * @return the session id.
+         */
+        public long getId()
+        {
+            return id;
+        }
+
+        /**
+         * Processes the player's move. Guessing a letter that was already
+         * guessed does not cost an attempt.
+         *
+         * @param playerGuess The character guessed by the player.
+         * @return true if the guess is correct, false otherwise.
+         * @throws InvalidGuessException if the input character is not a
+         *                               letter from A-Z.
+         * @throws IllegalStateException if the game has already been won or
+         *                               lost, or the session was removed.
+         */
+        public boolean playerMove(char playerGuess)
+                throws InvalidGuessException
+        {
+            int letter = HangmanGame.letterIndex(playerGuess);
+            if (letter < 0) throw new InvalidGuessException();
+            int bit = 1 << letter;
+            synchronized (lock())
+            {
+                int wordMask = wordMask();
+                if (won(wordMask) || attemptsLeft[slot] == 0)
+                    throw new IllegalStateException("Game is already over");
+                lastAccessSeconds[slot] = nowSeconds();
+                if ((guessedMasks[slot] & bit) != 0)
+                    return (wordMask & bit) != 0;
+                guessedMasks[slot] |= bit;
+                if ((wordMask & bit) != 0)
+                {
+                    if (won(wordMask)) recordEnd(true);
+                    return true;
+                }
+                wrongMasks[slot] |= bit;
+                if (--attemptsLeft[slot] == 0) recordEnd(false);
+                return false;
+            }
+        }
+
+        /**
+         * Adds the game that just ended to GameMetrics. The caller holds the
+         * session lock.
+         *
+         * @param won Whether the player won.
+         */
+        private void recordEnd(boolean won)
+        {
+            if (!GameMetrics.ENABLED) return;
+            GameMetrics.shared().recordGames(DIFFICULTIES[difficulties[slot]],
+                    won ? 1 : 0, won ? 0 : 1,
+                    Integer.bitCount(guessedMasks[slot]));
+        }
+
+        /**
+         * Checks if the player has won the game.
+         *
+         * @return true if every letter of the word has been guessed.
+         */
+        public boolean didPlayerWin()
+        {
+            synchronized (lock())
+            {
+                return won(wordMask());
+            }
+        }
+
+        /**
+         * Checks if the game is over.
+         *
+         * @return true if attempts left are zero.
+         */
+        public boolean isGameOver()
+        {
+            synchronized (lock())
+            {
+                check();
+                return attemptsLeft[slot] == 0;
+            }
+        }
+
+        /**
+         * Checks if a letter has already been guessed, ignoring case.
+         *
+         * @param c The letter to check.
+         * @return true if the letter has been guessed.
+         */
+        public boolean hasGuessed(char c)
+        {
+            int letter = HangmanGame.letterIndex(c);
+            return letter >= 0 && (getGuessedMask() & 1 << letter) != 0;
+        }
+
+        /**
+         * Gets the letters guessed so far as a mask, bit 0 for A.
+         *
+         * @return the guessed letter mask.
+         */
+        public int getGuessedMask()
+        {
+            synchronized (lock())
+            {
+                check();
+                return guessedMasks[slot];
+            }
+        }
+
+        /**
+         * Gets the wrong guesses so far as a mask, bit 0 for A.
+         *
+         * @return the wrong letter mask.
+         */
+        public int getWrongMask()
+        {
+            synchronized (lock())
+            {
+                check();
+                return wrongMasks[slot];
+            }
+        }
+
+        /**
+         * Gets the difficulty level of the game.
+         *
+         * @return the difficulty level.
+         */
+        public Difficulty getDifficulty()
+        {
+            synchronized (lock())
+            {
+                check();
+                return DIFFICULTIES[difficulties[slot]];
+            }
+        }
+
+        /**
+         * Gets the word to be guessed as a string.
+         *
+         * @return the word to be guessed.
+         */
+        public String getWordToGuess()
+        {
+            synchronized (lock())
+            {
+                check();
+                return corpora[corpusIds[slot]].get(words[slot]);
+            }
+        }
+
+        /**
+         * Gets the number of attempts left.
+         *
+         * @return the number of attempts left.
+         */
+        public int getAttemptsLeft()
+        {
+            synchronized (lock())
+            {
+                check();
+                return attemptsLeft[slot];
+            }
+        }
+
+        /**
+         * Gets the maximum number of attempts allowed in the game.
+         *
+         * @return the maximum number of attempts allowed.
+         */
+        public int getMaxAttempts()
+        {
+            return getDifficulty().getMaxAttempts();
+        }
+
+        /**
+         * Gets the current guessed word status, with letters not yet guessed
+         * shown as underscores. A new array is returned on every call.
+         *
+         * @return the current guessed word as a character array.
+         */
+        public char[] getCurrentGuess()
+        {
+            synchronized (lock())
+            {
+                check();
+                WordCorpus corpus = corpora[corpusIds[slot]];
+                int word = words[slot];
+                char[] currentGuess = new char[corpus.getLength(word)];
+                for (int i = 0; i < currentGuess.length; i++)
+                {
+                    char c = corpus.charAt(word, i);
+                    int letter = HangmanGame.letterIndex(c);
+                    if (letter < 0)
+                        currentGuess[i] = c;
+                    else if ((guessedMasks[slot] & 1 << letter) != 0)
+                        currentGuess[i] = (char) ('A' + letter);
+                    else
+                        currentGuess[i] = '_';
+                }
+                return currentGuess;
+            }
+        }
+
+        /**
+         * Gets the wrong guesses made by the player, in alphabetical order;
+         * the table keeps which letters were guessed, not in what order.
+         *
+         * @return the list of wrong guesses.
+         */
+        public ArrayList<Character> getWrongGuesses()
+        {
+            return letters(getWrongMask());
+        }
+
+        /**
+         * Gets all the guesses made by the player, in alphabetical order.
+         *
+         * @return the list of all guesses made by the player.
+         */
+        public ArrayList<Character> getAllGuessesMade()
+        {
+            return letters(getGuessedMask());
+        }
+
+        /**
+         * Lists the letters of a mask as upper case characters.
+         *
+         * @param mask The letter mask.
+         * @return the letters, from A to Z.
+         */
+        private ArrayList<Character> letters(int mask)
+        {
+            ArrayList<Character> letters = new ArrayList<Character>(
+                    Integer.bitCount(mask));
+            while (mask != 0)
+            {
+                letters.add((char) ('A' + Integer.numberOfTrailingZeros(mask)));
+                mask &= mask - 1;
+            }
+            return letters;
+        }
+
+        /**
+         * Gets the lock of the session's stripe.
+         *
+         * @return the lock.
+         */
+        private Object lock()
+        {
+            return locks[slot & (LOCK_STRIPES - 1)];
+        }
+
+        /**
+         * Checks that the session is still live. The caller holds the session
+         * lock.
+         *
+         * @throws IllegalStateException if the session was removed.
+         */
+        private void check()
+        {
+            if (!isLive(id, slot))
+                throw new IllegalStateException(
+                        "Session " + id + " was removed");
+        }
+
+        /**
+         * Computes the mask of the letters in the word of the session. The
+         * caller holds the session lock.
+         *
+         * @return the mask of the letters in the word.
+         * @throws IllegalStateException if the session was removed.
+         */
+        private int wordMask()
+        {
+            check();
+            WordCorpus corpus = corpora[corpusIds[slot]];
+            int word = words[slot];
+            int mask = 0;
+            for (int i = corpus.getLength(word) - 1; i >= 0; i--)
+            {
+                int letter = HangmanGame.letterIndex(corpus.charAt(word, i));
+                if (letter >= 0) mask |= 1 << letter;
+            }
+            return mask;
+        }
+
+        /**
+         * Checks whether every letter of the word has been guessed. The
+         * caller holds the session lock.
+         *
+         * @param wordMask The mask of the letters in the word.
+         * @return true if the game is won.
+         */
+        private boolean won(int wordMask)
+        {
+            return (wordMask & ~guessedMasks[slot]) == 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents a shuffle bag that draws the indices 0 to size - 1 in random
+ * order without repeating any index until every index has been drawn.
+ * Each draw performs one step of a Fisher-Yates shuffle, so it takes constant
+ * time and never allocates. A bag is not thread-safe; callers that share one
+ * lock it around each draw.
+ */
+public class ShuffleBag
+{
+    // Fields
+    private final int[] order;
+    private final RandomGenerator random;
+    private int cursor;
+
+    /**
+     * Constructs a ShuffleBag object for the specified number of indices.
+     *
+     * @param size   The number of indices in the bag.
+     * @param random The random number generator used to shuffle the bag.
+     */
+    public ShuffleBag(int size, RandomGenerator random)
+    {
+        if (size <= 0)
+            throw new IllegalArgumentException("Bag size must be positive");
+        // * slots hold index + 1 so the zeroed array already reads as the
+        // identity permutation and needs no fill
+        order = new int[size];
+        this.random = random;
+    }
+
+    /**
+     * Draws the next index from the bag. Starts a new round once every index
+     * has been drawn.
+     *
+     * @return the drawn index.
+     */
+    public int next()
+    {
+        return next(random);
+    }
+
+    /**
+     * Draws the next index from the bag with the specified random number
+     * generator instead of the bag's own, so callers sharing a bag can each
+     * keep their own generator. Starts a new round once every index has been
+     * drawn.
+     *
+     * @param random The random number generator used for this draw.
+     * @return the drawn index.
+     */
+    public int next(RandomGenerator random)
+    {
+        if (cursor == order.length) cursor = 0;
+
+        int swapIndex = cursor + random.nextInt(order.length - cursor);
+        int drawn = valueAt(swapIndex);
+        order[swapIndex] = valueAt(cursor) + 1;
+        order[cursor++] = drawn + 1;
+        return drawn;
+    }
+
+    /**
+     * Gets the number of indices left before the bag starts a new round.
+     *
+     * @return the number of indices not yet drawn this round.
+     */
+    public int remaining()
+    {
+        return order.length - cursor;
+    }
+
+    /**
+     * Gets the index currently stored in the specified slot.
+     *
+     * @param slot The slot in the shuffle order.
+     * @return the index stored in the slot.
+     */
+    private int valueAt(int slot)
+    {
+        int value = order[slot];
+        return value == 0 ? slot : value - 1;
+    }
+}
@@ -0,0 +1,98 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how long the game takes to start, from JVM start to the first frame
+ * on screen and the first playable game.
+ *
+ * Setting the system property hangman.startup.log to true prints every
+ * milestone reached once the first game is shown. Setting hangman.startup.exit
+ * to frame or game exits once that milestone is reached, which is used to
+ * measure startup from a script and to record an AppCDS archive; with game
+ * the first game is started without waiting for a click.
+ */
+public final class StartupTimer
+{
+    /**
+     * A point during startup.
+     */
+    public enum Milestone
+    {
+        MAIN, FIRST_FRAME, PRELOADED, FIRST_GAME
+    }
+
+    // Fields
+    private static final boolean LOG = Boolean
+            .getBoolean("hangman.startup.log");
+    private static final String EXIT = System
+            .getProperty("hangman.startup.exit", "");
+    private static final AtomicLongArray REACHED = new AtomicLongArray(
+            Milestone.values().length);
+
+    /**
+     * Constructs a StartupTimer object. Not used, every method is static.
+     */
+    private StartupTimer()
+    {
+    }
+
+    /**
+     * Records that a milestone was reached. Only the first time counts.
+     *
+     * @param milestone The milestone reached.
+     */
+    public static void mark(Milestone milestone)
+    {
+        // * zero means not reached, so never store it as a time
+        long now = System.nanoTime() | 1;
+        if (!REACHED.compareAndSet(milestone.ordinal(), 0, now)) return;
+        boolean exit = EXIT.equals("frame")
+                && milestone == Milestone.FIRST_FRAME
+                || EXIT.equals("game") && milestone == Milestone.FIRST_GAME;
+        if (LOG && (exit || milestone == Milestone.FIRST_GAME))
+            System.err.println(report());
+        if (exit) System.exit(0);
+    }
+
+    /**
+     * Gets when a milestone was reached.
+     *
+     * @param milestone The milestone.
+     * @return the milliseconds from JVM start, or -1 if not reached yet.
+     */
+    public static long getMillis(Milestone milestone)
+    {
+        long reached = REACHED.get(milestone.ordinal());
+        if (reached == 0) return -1;
+        // * the management classes are only loaded here, after startup
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        return uptimeMillis - (System.nanoTime() - reached) / 1_000_000;
+    }
+
+    /**
+     * Formats every milestone reached so far.
+     *
+     * @return the report.
+     */
+    public static String report()
+    {
+        StringBuilder report = new StringBuilder("startup (ms after JVM start):");
+        for (Milestone milestone : Milestone.values())
+        {
+            long millis = getMillis(milestone);
+            if (millis >= 0)
+                report.append(' ').append(milestone).append('=').append(millis);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Checks if the first game should start without waiting for a click.
+     *
+     * @return true if startup exits once the first game is playable.
+     */
+    public static boolean isAutoStart()
+    {
+        return EXIT.equals("game");
+    }
+}
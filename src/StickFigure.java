@@ -7,11 +7,24 @@ import java.nio.file.Paths;
 public class StickFigure
 {
     // Fields
-    private final Path ASSETS_PATH = Paths.get("src", "assets", "stickfigure");
+    private static final Path ASSETS_PATH = Paths.get("src", "assets",
+            "stickfigure");
     public static final int HEIGHT = 792;
     public static final int WIDTH = 612;
+    public static final int SEQUENCE_COUNT = 11;
     private int sequence = 0;
 
+    /**
+     * Gets the path for the image of the specified sequence number.
+     *
+     * @param sequence The sequence number from 0 to 10.
+     * @return The path to the sequence image.
+     */
+    public static Path getSequencePath(int sequence)
+    {
+        return ASSETS_PATH.resolve(Integer.toString(sequence) + ".png");
+    }
+
     /**
      * Gets the path for the next sequence image of the stick figure.
      *
@@ -0,0 +1,437 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents the playable words of a corpus grouped by length, used by
+ * EvilHangmanGame and HangmanSolver to reason about every word that still fits
+ * the board. For each length the words are stored with one bitset per letter
+ * and position, so a whole candidate set can be split by a guessed letter with
+ * a few word-wide bit operations per 64 candidates. Buckets are built the
+ * first time a length is played and then shared by every game.
+ */
+public class WordBuckets
+{
+    // Fields
+    private static final int MAX_WORD_LENGTH = Long.SIZE;
+    private static volatile WordBuckets shared;
+    private final WordCorpus corpus;
+    private final int[][] wordsByLength;
+    private final AtomicReferenceArray<LengthBucket> buckets;
+    private final int eligibleWords;
+
+    /**
+     * Constructs a WordBuckets object over the words of a corpus that
+     * are made only of the letters A-Z and are at most 64 letters long.
+     *
+     * @param corpus The corpus to take the words from.
+     */
+    public WordBuckets(WordCorpus corpus)
+    {
+        this.corpus = corpus;
+        int[] counts = new int[MAX_WORD_LENGTH + 1];
+        for (int w = 0; w < corpus.size(); w++)
+        {
+            if (isEligible(w)) counts[corpus.getLength(w)]++;
+        }
+        wordsByLength = new int[MAX_WORD_LENGTH + 1][];
+        int total = 0;
+        for (int length = 0; length <= MAX_WORD_LENGTH; length++)
+        {
+            wordsByLength[length] = new int[counts[length]];
+            total += counts[length];
+            counts[length] = 0;
+        }
+        for (int w = 0; w < corpus.size(); w++)
+        {
+            if (!isEligible(w)) continue;
+            int length = corpus.getLength(w);
+            wordsByLength[length][counts[length]++] = w;
+        }
+        if (total == 0)
+            throw new IllegalArgumentException("No words made of A-Z letters");
+        eligibleWords = total;
+        buckets = new AtomicReferenceArray<LengthBucket>(MAX_WORD_LENGTH + 1);
+    }
+
+    /**
+     * Gets the buckets of the bundled word list, building it on first
+     * use.
+     *
+     * @return the shared buckets.
+     */
+    public static WordBuckets shared()
+    {
+        WordBuckets buckets = shared;
+        if (buckets == null)
+        {
+            synchronized (WordBuckets.class)
+            {
+                buckets = shared;
+                if (buckets == null)
+                {
+                    buckets = new WordBuckets(WordIndex.shared().getCorpus());
+                    shared = buckets;
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Replaces the shared buckets with buckets over a new corpus, if they
+     * were ever built. Games already holding the old buckets keep them.
+     *
+     * @param corpus The new corpus.
+     */
+    static void replaceShared(WordCorpus corpus)
+    {
+        synchronized (WordBuckets.class)
+        {
+            if (shared != null) shared = new WordBuckets(corpus);
+        }
+    }
+
+    /**
+     * Checks if a word can be played.
+     *
+     * @param w The index of the word in the corpus.
+     * @return true if the word is non-empty, at most 64 letters long, and made
+     *         only of the letters A-Z.
+     */
+    private boolean isEligible(int w)
+    {
+        int length = corpus.getLength(w);
+        if (length == 0 || length > MAX_WORD_LENGTH) return false;
+        for (int i = 0; i < length; i++)
+        {
+            if (HangmanGame.letterIndex(corpus.charAt(w, i)) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Picks a word length at random, weighted by how many words have it.
+     *
+     * @param random The random number generator.
+     * @return the bucket of words of that length.
+     */
+    public LengthBucket randomBucket(RandomGenerator random)
+    {
+        int pick = random.nextInt(eligibleWords);
+        int length = 0;
+        while (pick >= wordsByLength[length].length)
+        {
+            pick -= wordsByLength[length].length;
+            length++;
+        }
+        return bucket(length);
+    }
+
+    /**
+     * Gets the bucket of words with the specified length.
+     *
+     * @param length The word length.
+     * @return the bucket.
+     */
+    public LengthBucket bucket(int length)
+    {
+        LengthBucket bucket = buckets.get(length);
+        if (bucket == null)
+        {
+            bucket = new LengthBucket(length);
+            if (!buckets.compareAndSet(length, null, bucket))
+                bucket = buckets.get(length);
+        }
+        return bucket;
+    }
+
+    /**
+     * Gets the number of playable words with the specified length.
+     *
+     * @param length The word length.
+     * @return the number of words.
+     */
+    public int getWordCount(int length)
+    {
+        return length < 0 || length > MAX_WORD_LENGTH ? 0
+                : wordsByLength[length].length;
+    }
+
+    /**
+     * The words of one length with their letter bitsets. Bit i of a bitset
+     * stands for the i-th word of the bucket.
+     */
+    public final class LengthBucket
+    {
+        private final int length;
+        private final int[] words;
+        private final byte[] letters;
+        private final long[][] containing;
+        private final long[][] atPosition;
+
+        /**
+         * Constructs a LengthBucket object for the words of a length.
+         *
+         * @param length The word length.
+         */
+        private LengthBucket(int length)
+        {
+            this.length = length;
+            words = wordsByLength[length];
+            int blocks = (words.length + 63) >>> 6;
+            letters = new byte[words.length * length];
+            containing = new long[HangmanGame.ALPHABET_SIZE][blocks];
+            atPosition = new long[HangmanGame.ALPHABET_SIZE * length][blocks];
+            for (int i = 0; i < words.length; i++)
+            {
+                long bit = 1L << i;
+                for (int p = 0; p < length; p++)
+                {
+                    int letter = HangmanGame.letterIndex(
+                            corpus.charAt(words[i], p));
+                    letters[i * length + p] = (byte) letter;
+                    containing[letter][i >>> 6] |= bit;
+                    atPosition[letter * length + p][i >>> 6] |= bit;
+                }
+            }
+        }
+
+        /**
+         * Gets the word length of the bucket.
+         *
+         * @return the word length.
+         */
+        public int getLength()
+        {
+            return length;
+        }
+
+        /**
+         * Gets the number of words in the bucket.
+         *
+         * @return the number of words.
+         */
+        public int size()
+        {
+            return words.length;
+        }
+
+        /**
+         * Creates a candidate set holding every word of the bucket.
+         *
+         * @return the candidate bitset.
+         */
+        public long[] allCandidates()
+        {
+            long[] candidates = new long[(words.length + 63) >>> 6];
+            Arrays.fill(candidates, -1L);
+            int tail = words.length & 63;
+            if (tail != 0) candidates[candidates.length - 1] = (1L << tail) - 1;
+            return candidates;
+        }
+
+        /**
+         * Gets a word of the bucket.
+         *
+         * @param i The position of the word in the bucket.
+         * @return the word.
+         */
+        public String getWord(int i)
+        {
+            return corpus.get(words[i]);
+        }
+
+        /**
+         * Splits the candidates into families by where a letter appears in
+         * them and keeps only the largest family. Ties go to the family that
+         * reveals the fewest positions, so the letter missing entirely wins a
+         * tie.
+         *
+         * @param candidates The candidate bitset, narrowed in place.
+         * @param letter     The guessed letter from 0 (A) to 25 (Z).
+         * @param counter    Scratch space for counting families.
+         * @return the positions of the letter in the kept family, 0 if the
+         *         kept family doesn't have the letter.
+         */
+        public long keepLargestFamily(long[] candidates, int letter,
+                FamilyCounter counter)
+        {
+            int without = countFamilies(candidates, letter, counter);
+            long best = 0;
+            int bestCount = without;
+            for (int slot = 0; slot < counter.keys.length; slot++)
+            {
+                int count = counter.counts[slot];
+                if (count == 0) continue;
+                long pattern = counter.keys[slot];
+                if (count > bestCount || (count == bestCount && best != 0
+                        && Long.bitCount(pattern) < Long.bitCount(best)))
+                {
+                    best = pattern;
+                    bestCount = count;
+                }
+            }
+            keepFamily(candidates, letter, best);
+            return best;
+        }
+
+        /**
+         * Counts the candidates in each family of a letter. Candidates without
+         * the letter are returned rather than counted in the counter.
+         *
+         * @param candidates The candidate bitset.
+         * @param letter     The letter from 0 (A) to 25 (Z).
+         * @param counter    Filled with the size of each family that has the
+         *                   letter.
+         * @return the number of candidates without the letter.
+         */
+        public int countFamilies(long[] candidates, int letter,
+                FamilyCounter counter)
+        {
+            long[] withLetter = containing[letter];
+            int without = 0;
+            counter.clear();
+            for (int k = 0; k < candidates.length; k++)
+            {
+                without += Long.bitCount(candidates[k] & ~withLetter[k]);
+                for (long m = candidates[k] & withLetter[k]; m != 0; m &= m
+                        - 1)
+                {
+                    int i = (k << 6) + Long.numberOfTrailingZeros(m);
+                    long pattern = 0;
+                    int base = i * length;
+                    for (int p = 0; p < length; p++)
+                    {
+                        if (letters[base + p] == letter) pattern |= 1L << p;
+                    }
+                    counter.increment(pattern);
+                }
+            }
+            return without;
+        }
+
+        /**
+         * Narrows the candidates to one family of a letter.
+         *
+         * @param candidates The candidate bitset, narrowed in place.
+         * @param letter     The letter from 0 (A) to 25 (Z).
+         * @param pattern    The positions of the letter in the family, 0 for
+         *                   the words without the letter.
+         */
+        public void keepFamily(long[] candidates, int letter, long pattern)
+        {
+            long[] withLetter = containing[letter];
+            for (int k = 0; k < candidates.length; k++)
+            {
+                if (pattern == 0)
+                {
+                    candidates[k] &= ~withLetter[k];
+                    continue;
+                }
+                long m = candidates[k] & withLetter[k];
+                for (int p = 0; p < length && m != 0; p++)
+                {
+                    long[] at = atPosition[letter * length + p];
+                    m &= (pattern & (1L << p)) != 0 ? at[k] : ~at[k];
+                }
+                candidates[k] = m;
+            }
+        }
+    }
+
+    /**
+     * Reusable scratch space that counts candidates per family pattern with
+     * open addressing, so partitioning doesn't allocate once it has grown to
+     * fit.
+     */
+    public static final class FamilyCounter
+    {
+        private long[] keys = new long[256];
+        private int[] counts = new int[256];
+        private int used;
+
+        /**
+         * Forgets every counted family.
+         */
+        void clear()
+        {
+            if (used == 0) return;
+            Arrays.fill(counts, 0);
+            used = 0;
+        }
+
+        /**
+         * Counts one more candidate in a family.
+         *
+         * @param pattern The family pattern, never 0.
+         */
+        void increment(long pattern)
+        {
+            int mask = keys.length - 1;
+            int slot = (int) (pattern * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (counts[slot] != 0 && keys[slot] != pattern)
+            {
+                slot = (slot + 1) & mask;
+            }
+            if (counts[slot] == 0)
+            {
+                keys[slot] = pattern;
+                if (++used * 2 > keys.length)
+                {
+                    counts[slot] = 1;
+                    grow();
+                    return;
+                }
+            }
+            counts[slot]++;
+        }
+
+        /**
+         * Gets the Shannon entropy in bits of the split counted last, that is
+         * how much learning which family the word is in narrows it down.
+         *
+         * @param without The number of candidates without the letter.
+         * @return the entropy of the split.
+         */
+        public double entropy(int without)
+        {
+            int total = without;
+            for (int count : counts)
+            {
+                total += count;
+            }
+            if (total == 0) return 0;
+            double sum = without == 0 ? 0 : without * Math.log(without);
+            for (int count : counts)
+            {
+                if (count != 0) sum += count * Math.log(count);
+            }
+            return (Math.log(total) - sum / total) / Math.log(2);
+        }
+
+        /**
+         * Doubles the table and re-inserts every family.
+         */
+        private void grow()
+        {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldCounts.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++)
+            {
+                if (oldCounts[i] == 0) continue;
+                int slot = (int) (oldKeys[i] * 0x9E3779B97F4A7C15L >>> 40)
+                        & mask;
+                while (counts[slot] != 0)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
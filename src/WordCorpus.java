@@ -0,0 +1,387 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the immutable set of words for a difficulty level. Each corpus is
+ * taken from the shared WordIndex the first time it is requested and then
+ * shared by every game of that difficulty, until WordListReloader replaces
+ * it.
+ *
+ * The words are packed one after another into a single Latin-1 byte array with
+ * a table of start offsets, which costs about the word length plus 4 bytes per
+ * word. A String is only created when a word is asked for.
+ */
+public final class WordCorpus
+{
+    // Fields
+    private static final ConcurrentHashMap<Difficulty, WordCorpus> CORPORA = new ConcurrentHashMap<Difficulty, WordCorpus>();
+    private final byte[] letters;
+    private final int[] offsets;
+    private final List<String> words;
+    private volatile int[] lookup;
+
+    /**
+     * Constructs a WordCorpus object from packed words.
+     *
+     * @param letters The letters of every word, one word after another.
+     * @param offsets The start of each word in letters, followed by the end of
+     *                the last word.
+     */
+    private WordCorpus(byte[] letters, int[] offsets)
+    {
+        this.letters = letters;
+        this.offsets = offsets;
+        words = new WordView();
+    }
+
+    /**
+     * Gets the shared corpus for the specified difficulty level, loading it on
+     * first use. Concurrent callers for the same difficulty wait for a single
+     * load.
+     *
+     * @param difficulty The difficulty level of the corpus.
+     * @return the shared corpus for the difficulty level.
+     */
+    public static WordCorpus forDifficulty(Difficulty difficulty)
+    {
+        return CORPORA.computeIfAbsent(difficulty, WordCorpus::load);
+    }
+
+    /**
+     * Replaces the shared corpora of every difficulty. Each corpus is replaced
+     * in one step; a game that already has a word keeps it.
+     *
+     * @param corpora The new corpus of each difficulty.
+     */
+    static void replaceAll(Map<Difficulty, WordCorpus> corpora)
+    {
+        CORPORA.putAll(corpora);
+    }
+
+    /**
+     * Creates a corpus from the specified words. The words are copied, so
+     * later changes to the collection do not affect the corpus.
+     *
+     * @param words The words in the corpus.
+     * @return the new corpus.
+     * @throws IllegalArgumentException if there are no words or a word has a
+     *                                  character outside Latin-1.
+     */
+    public static WordCorpus of(Collection<String> words)
+    {
+        Packer packer = new Packer();
+        for (String word : words)
+        {
+            packer.add(word);
+        }
+        return packer.build();
+    }
+
+    /**
+     * Reads a corpus from a file with one word per line.
+     *
+     * @param filePath The path of the file containing the words.
+     * @return the new corpus.
+     * @throws IOException if the file can't be read.
+     */
+    public static WordCorpus fromFile(Path filePath) throws IOException
+    {
+        Packer packer = new Packer();
+        try (BufferedReader reader = new BufferedReader(
+                new FileReader(filePath.toFile(), StandardCharsets.UTF_8)))
+        {
+            String word;
+            while ((word = reader.readLine()) != null)
+            {
+                if (!word.isEmpty()) packer.add(word);
+            }
+        }
+        return packer.build();
+    }
+
+    /**
+     * Loads the corpus for the specified difficulty level: the words of the
+     * shared WordIndex whose score falls in the difficulty's band.
+     *
+     * @param difficulty The difficulty level of the corpus.
+     * @return the loaded corpus.
+     */
+    private static WordCorpus load(Difficulty difficulty)
+    {
+        long start = System.nanoTime();
+        WordCorpus corpus = WordIndex.shared().corpusInRange(
+                difficulty.getMinScore(), difficulty.getMaxScore());
+        if (GameMetrics.ENABLED)
+            GameMetrics.shared().recordWordListLoad(System.nanoTime() - start);
+        return corpus;
+    }
+
+    /**
+     * Creates a corpus from some of the words of this corpus.
+     *
+     * @param indices The array holding the indices of the words to keep.
+     * @param from    The first position in indices to use, inclusive.
+     * @param to      The last position in indices to use, exclusive.
+     * @return the new corpus.
+     */
+    WordCorpus subset(int[] indices, int from, int to)
+    {
+        Packer packer = new Packer();
+        for (int i = from; i < to; i++)
+        {
+            int index = indices[i];
+            packer.add(letters, offsets[index], offsets[index + 1]);
+        }
+        return packer.build();
+    }
+
+    /**
+     * Gets the number of words in the corpus.
+     *
+     * @return the number of words.
+     */
+    public int size()
+    {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Gets the word at the specified index.
+     *
+     * @param index The index of the word.
+     * @return the word at the index.
+     */
+    public String get(int index)
+    {
+        int start = offsets[index];
+        return new String(letters, start, offsets[index + 1] - start,
+                StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Gets the length of the word at the specified index without creating
+     * the word.
+     *
+     * @param index The index of the word.
+     * @return the length of the word.
+     */
+    public int getLength(int index)
+    {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Gets a character of the word at the specified index without creating
+     * the word.
+     *
+     * @param index    The index of the word.
+     * @param position The position of the character in the word.
+     * @return the character.
+     */
+    public char charAt(int index, int position)
+    {
+        return (char) (letters[offsets[index] + position] & 0xFF);
+    }
+
+    /**
+     * Finds the index of a word in the corpus. The first call builds a hash
+     * table of the words, about 8 bytes per word, which later calls share.
+     *
+     * @param word The word to find.
+     * @return the index of the word, or -1 if it is not in the corpus.
+     */
+    public int indexOf(String word)
+    {
+        int[] table = lookup;
+        // * two threads may both build the table; either copy is correct
+        if (table == null) lookup = table = buildLookup();
+        int mask = table.length - 1;
+        for (int slot = spread(word.hashCode()) & mask; table[slot] != 0;
+                slot = (slot + 1) & mask)
+        {
+            int index = table[slot] - 1;
+            if (matches(index, word)) return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the open addressing table of indexOf, at most half full. Slots
+     * hold index + 1 so that 0 marks an empty slot.
+     *
+     * @return the table.
+     */
+    private int[] buildLookup()
+    {
+        int[] table = new int[Integer.highestOneBit(size() * 2 - 1) << 1];
+        int mask = table.length - 1;
+        for (int index = 0; index < size(); index++)
+        {
+            // * the same hash as String.hashCode of the Latin-1 word
+            int hash = 0;
+            for (int i = offsets[index]; i < offsets[index + 1]; i++)
+            {
+                hash = 31 * hash + (letters[i] & 0xFF);
+            }
+            int slot = spread(hash) & mask;
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+        return table;
+    }
+
+    /**
+     * Mixes the high bits of a hash into the low bits used to pick a slot.
+     *
+     * @param hash The hash of a word.
+     * @return the mixed hash.
+     */
+    private static int spread(int hash)
+    {
+        hash = (hash ^ (hash >>> 16)) * 0x85ebca6b;
+        return hash ^ (hash >>> 13);
+    }
+
+    /**
+     * Checks whether the word at an index is the specified word.
+     *
+     * @param index The index of the word.
+     * @param word  The word to compare with.
+     * @return true if the words are equal.
+     */
+    private boolean matches(int index, String word)
+    {
+        int start = offsets[index];
+        if (offsets[index + 1] - start != word.length()) return false;
+        for (int i = 0; i < word.length(); i++)
+        {
+            if ((letters[start + i] & 0xFF) != word.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets a read-only view of the words in the corpus. Each word is created
+     * when it is read from the list.
+     *
+     * @return the words in the corpus.
+     */
+    public List<String> getWords()
+    {
+        return words;
+    }
+
+    /**
+     * Estimates the heap used by the packed words and offsets, and by the
+     * indexOf table once it is built.
+     *
+     * @return the approximate size in bytes.
+     */
+    public long getFootprintBytes()
+    {
+        int[] table = lookup;
+        // * 16 byte array headers on a 64-bit JVM with compressed pointers
+        return 16L + letters.length + 16L + 4L * offsets.length
+                + (table == null ? 0 : 16L + 4L * table.length);
+    }
+
+    /**
+     * The read-only list view over the packed words.
+     */
+    private class WordView extends AbstractList<String> implements RandomAccess
+    {
+        @Override
+        public String get(int index)
+        {
+            return WordCorpus.this.get(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return WordCorpus.this.size();
+        }
+    }
+
+    /**
+     * Packs words into the growing arrays a corpus is built from.
+     */
+    private static class Packer
+    {
+        private byte[] letters = new byte[1024];
+        private int[] offsets = new int[128];
+        private int length;
+        private int count;
+
+        /**
+         * Appends a word.
+         *
+         * @param word The word to append.
+         */
+        void add(String word)
+        {
+            if (length + word.length() > letters.length)
+                letters = Arrays.copyOf(letters,
+                        Math.max(letters.length * 2, length + word.length()));
+            for (int i = 0; i < word.length(); i++)
+            {
+                if (word.charAt(i) > 0xFF)
+                    throw new IllegalArgumentException(
+                            "Word is not Latin-1: " + word);
+            }
+            for (int i = 0; i < word.length(); i++)
+            {
+                letters[length++] = (byte) word.charAt(i);
+            }
+            if (count + 2 > offsets.length)
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[++count] = length;
+        }
+
+        /**
+         * Appends a word that is already packed.
+         *
+         * @param source The packed letters.
+         * @param start  The start of the word in source.
+         * @param end    The end of the word in source.
+         */
+        void add(byte[] source, int start, int end)
+        {
+            int wordLength = end - start;
+            if (length + wordLength > letters.length)
+                letters = Arrays.copyOf(letters,
+                        Math.max(letters.length * 2, length + wordLength));
+            System.arraycopy(source, start, letters, length, wordLength);
+            length += wordLength;
+            if (count + 2 > offsets.length)
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[++count] = length;
+        }
+
+        /**
+         * Builds the corpus, trimming the arrays to size.
+         *
+         * @return the new corpus.
+         */
+        WordCorpus build()
+        {
+            if (count == 0)
+                throw new IllegalArgumentException("Corpus must not be empty");
+            return new WordCorpus(Arrays.copyOf(letters, length),
+                    Arrays.copyOf(offsets, count + 1));
+        }
+    }
+}
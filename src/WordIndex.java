@@ -0,0 +1,577 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents a word corpus indexed by how hard each word is to guess. For every
+ * word it computes the length, the number of distinct letters, the number of
+ * repeated letters and how rare its letters are across the corpus, and turns
+ * them into a difficulty score from 0 (easiest) to 100 (hardest). The score is
+ * the word's percentile within the corpus, so each score band holds a share of
+ * the words proportional to its width.
+ *
+ * Features are computed in parallel on the common fork/join pool, or on the
+ * pool given to load(). The index is saved next to its word file and reused
+ * until the word file changes. WordListReloader replaces the shared index
+ * when the word file changes while the game runs.
+ */
+public final class WordIndex
+{
+    // Fields
+    public static final int MAX_SCORE = 100;
+    static final Path WORDS_PATH = Paths.get("src", "assets", "words",
+            "words.txt");
+    private static final int MAGIC = 0x48494458; // "HIDX"
+    private static final int VERSION = 1;
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+    private static volatile WordIndex shared;
+    private final WordCorpus corpus;
+    private final byte[] distinctLetters;
+    private final byte[] repeatedLetters;
+    private final float[] rarity;
+    private final byte[] scores;
+    private final int[] byScore;
+    private final int[] scoreStart;
+
+    /**
+     * Constructs a WordIndex object from computed or loaded features.
+     */
+    private WordIndex(WordCorpus corpus, byte[] distinctLetters,
+            byte[] repeatedLetters, float[] rarity, byte[] scores)
+    {
+        this.corpus = corpus;
+        this.distinctLetters = distinctLetters;
+        this.repeatedLetters = repeatedLetters;
+        this.rarity = rarity;
+        this.scores = scores;
+
+        // * counting sort by score so every score band is a contiguous range
+        scoreStart = new int[MAX_SCORE + 2];
+        for (byte score : scores)
+        {
+            scoreStart[score + 1]++;
+        }
+        for (int s = 1; s < scoreStart.length; s++)
+        {
+            scoreStart[s] += scoreStart[s - 1];
+        }
+        byScore = new int[scores.length];
+        int[] next = Arrays.copyOf(scoreStart, MAX_SCORE + 1);
+        for (int i = 0; i < scores.length; i++)
+        {
+            byScore[next[scores[i]]++] = i;
+        }
+    }
+
+    /**
+     * Gets the index of the bundled word list, loading it on first use.
+     *
+     * @return the shared index.
+     */
+    public static WordIndex shared()
+    {
+        WordIndex index = shared;
+        if (index == null)
+        {
+            synchronized (WordIndex.class)
+            {
+                index = shared;
+                if (index == null)
+                {
+                    try
+                    {
+                        index = load(WORDS_PATH);
+                    }
+                    catch (IOException e)
+                    {
+                        throw new UncheckedIOException(e);
+                    }
+                    shared = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Replaces the shared index. New corpora are taken from it from then on.
+     *
+     * @param index The new shared index.
+     */
+    static void setShared(WordIndex index)
+    {
+        synchronized (WordIndex.class)
+        {
+            shared = index;
+        }
+    }
+
+    /**
+     * Loads the index of a word file. The saved index next to the file is used
+     * when it is newer than the words, otherwise the index is computed and
+     * saved.
+     *
+     * @param wordsPath The word file with one word per line.
+     * @return the index.
+     * @throws IOException if the word file can't be read.
+     */
+    public static WordIndex load(Path wordsPath) throws IOException
+    {
+        return load(wordsPath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads the index of a word file, computing it on the specified pool if
+     * the saved index can't be used.
+     *
+     * @param wordsPath The word file with one word per line.
+     * @param pool      The pool to compute the features on.
+     * @return the index.
+     * @throws IOException if the word file can't be read.
+     */
+    public static WordIndex load(Path wordsPath, ForkJoinPool pool)
+            throws IOException
+    {
+        WordCorpus corpus = WordCorpus.fromFile(wordsPath);
+        Path indexPath = indexPathFor(wordsPath);
+        long stamp = Files.getLastModifiedTime(wordsPath).toMillis();
+        if (Files.exists(indexPath))
+        {
+            WordIndex index = read(indexPath, corpus, stamp);
+            if (index != null) return index;
+        }
+
+        WordIndex index = build(corpus, pool);
+        try
+        {
+            index.save(indexPath, stamp);
+        }
+        catch (IOException e)
+        {
+            // * the index still works, it just gets computed again next time
+            e.printStackTrace();
+        }
+        return index;
+    }
+
+    /**
+     * Computes the index of a corpus.
+     *
+     * @param corpus The corpus to index.
+     * @return the index.
+     */
+    public static WordIndex build(WordCorpus corpus)
+    {
+        return build(corpus, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the index of a corpus on the specified pool.
+     *
+     * @param corpus The corpus to index.
+     * @param pool   The pool to compute the features on.
+     * @return the index.
+     */
+    public static WordIndex build(WordCorpus corpus, ForkJoinPool pool)
+    {
+        int size = corpus.size();
+
+        // * first pass: the letters of every word and how many words hold
+        // each letter
+        int[] letterMasks = new int[size];
+        byte[] distinct = new byte[size];
+        byte[] repeated = new byte[size];
+        int[] wordsWithLetter = pool.invoke(
+                new LetterTask(corpus, letterMasks, distinct, repeated, 0,
+                        size));
+
+        // * a letter found in few words is worth more bits of rarity
+        float[] letterRarity = new float[HangmanGame.ALPHABET_SIZE];
+        for (int c = 0; c < HangmanGame.ALPHABET_SIZE; c++)
+        {
+            letterRarity[c] = (float) (Math.log(
+                    (double) size / Math.max(1, wordsWithLetter[c]))
+                    / Math.log(2));
+        }
+
+        // * second pass: rarity and the raw difficulty of every word, packed
+        // with the word index so one sort ranks them
+        float[] rarity = new float[size];
+        long[] ranked = new long[size];
+        pool.invoke(new ScoreTask(corpus, letterMasks, distinct, repeated,
+                letterRarity, rarity, ranked, 0, size));
+        // * parallelSort always runs on the common pool, so a single-threaded
+        // pool sorts in place instead
+        if (pool.getParallelism() > 1)
+            Arrays.parallelSort(ranked);
+        else
+            Arrays.sort(ranked);
+
+        byte[] scores = new byte[size];
+        for (int rank = 0; rank < size; rank++)
+        {
+            scores[(int) ranked[rank]] = (byte) ((long) rank * (MAX_SCORE + 1)
+                    / size);
+        }
+        return new WordIndex(corpus, distinct, repeated, rarity, scores);
+    }
+
+    /**
+     * Gets the raw difficulty of a word. Rare letters make a word harder
+     * because they are guessed late, and each distinct letter makes it easier
+     * because more guesses hit. Length and repeats only break ties.
+     */
+    private static float rawDifficulty(float rarity, int length, int distinct,
+            int repeated)
+    {
+        return rarity - 0.25f * distinct - 0.05f * repeated + 0.01f * length;
+    }
+
+    /**
+     * Gets the number of words in the index.
+     *
+     * @return the number of words.
+     */
+    public int size()
+    {
+        return scores.length;
+    }
+
+    /**
+     * Gets the indexed corpus.
+     *
+     * @return the corpus.
+     */
+    public WordCorpus getCorpus()
+    {
+        return corpus;
+    }
+
+    /**
+     * Gets the difficulty score of a word.
+     *
+     * @param word The index of the word in the corpus.
+     * @return the score from 0 to 100.
+     */
+    public int getScore(int word)
+    {
+        return scores[word];
+    }
+
+    /**
+     * Gets the number of distinct letters in a word.
+     *
+     * @param word The index of the word in the corpus.
+     * @return the number of distinct letters.
+     */
+    public int getDistinctLetters(int word)
+    {
+        return distinctLetters[word];
+    }
+
+    /**
+     * Gets the number of letters in a word that repeat an earlier letter.
+     *
+     * @param word The index of the word in the corpus.
+     * @return the number of repeated letters.
+     */
+    public int getRepeatedLetters(int word)
+    {
+        return repeatedLetters[word];
+    }
+
+    /**
+     * Gets the average rarity in bits of the distinct letters in a word.
+     *
+     * @param word The index of the word in the corpus.
+     * @return the letter rarity score.
+     */
+    public float getRarity(int word)
+    {
+        return rarity[word];
+    }
+
+    /**
+     * Counts the words with a score in a range.
+     *
+     * @param minScore The lowest score, inclusive.
+     * @param maxScore The highest score, inclusive.
+     * @return the number of words in the range.
+     */
+    public int countInRange(int minScore, int maxScore)
+    {
+        return scoreStart[clamp(maxScore) + 1] - scoreStart[clamp(minScore)];
+    }
+
+    /**
+     * Picks a random word with a score in a range in constant time.
+     *
+     * @param minScore The lowest score, inclusive.
+     * @param maxScore The highest score, inclusive.
+     * @param random   The random number generator.
+     * @return the index of the word in the corpus.
+     * @throws IllegalArgumentException if no word has a score in the range.
+     */
+    public int randomInRange(int minScore, int maxScore,
+            RandomGenerator random)
+    {
+        int start = scoreStart[clamp(minScore)];
+        int count = countInRange(minScore, maxScore);
+        if (count <= 0)
+            throw new IllegalArgumentException(
+                    "No words with score " + minScore + "-" + maxScore);
+        return byScore[start + random.nextInt(count)];
+    }
+
+    /**
+     * Gets the words with a score in a range as a corpus of their own.
+     *
+     * @param minScore The lowest score, inclusive.
+     * @param maxScore The highest score, inclusive.
+     * @return the corpus of the words in the range.
+     */
+    public WordCorpus corpusInRange(int minScore, int maxScore)
+    {
+        int start = scoreStart[clamp(minScore)];
+        return corpus.subset(byScore, start,
+                start + countInRange(minScore, maxScore));
+    }
+
+    /**
+     * Limits a score to the valid range.
+     */
+    private static int clamp(int score)
+    {
+        return Math.max(0, Math.min(MAX_SCORE, score));
+    }
+
+    /**
+     * Gets where the index of a word file is saved.
+     *
+     * @param wordsPath The word file.
+     * @return the path of the index file.
+     */
+    private static Path indexPathFor(Path wordsPath)
+    {
+        String name = wordsPath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return wordsPath.resolveSibling(
+                (dot > 0 ? name.substring(0, dot) : name) + ".idx");
+    }
+
+    /**
+     * Saves the features of the index.
+     *
+     * @param indexPath The file to write.
+     * @param stamp     The modification time of the word file.
+     */
+    private void save(Path indexPath, long stamp) throws IOException
+    {
+        // * write to a temporary file first so a crash never leaves a
+        // half-written index behind
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(stamp);
+            out.writeInt(size());
+            out.write(distinctLetters);
+            out.write(repeatedLetters);
+            out.write(scores);
+            for (float r : rarity)
+            {
+                out.writeFloat(r);
+            }
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a saved index if it matches the word file.
+     *
+     * @param indexPath The file to read.
+     * @param corpus    The words the index should describe.
+     * @param stamp     The modification time of the word file.
+     * @return the index, or null if the file is stale or unreadable.
+     */
+    private static WordIndex read(Path indexPath, WordCorpus corpus,
+            long stamp)
+    {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexPath))))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != stamp || in.readInt() != corpus.size())
+                return null;
+            int size = corpus.size();
+            byte[] distinct = new byte[size];
+            byte[] repeated = new byte[size];
+            byte[] scores = new byte[size];
+            float[] rarity = new float[size];
+            in.readFully(distinct);
+            in.readFully(repeated);
+            in.readFully(scores);
+            for (int i = 0; i < size; i++)
+            {
+                rarity[i] = in.readFloat();
+            }
+            return new WordIndex(corpus, distinct, repeated, rarity, scores);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the letters of each word in a range and counts how many words
+     * hold each letter.
+     */
+    private static class LetterTask extends RecursiveTask<int[]>
+    {
+        private final WordCorpus corpus;
+        private final int[] letterMasks;
+        private final byte[] distinct;
+        private final byte[] repeated;
+        private final int from;
+        private final int to;
+
+        LetterTask(WordCorpus corpus, int[] letterMasks, byte[] distinct,
+                byte[] repeated, int from, int to)
+        {
+            this.corpus = corpus;
+            this.letterMasks = letterMasks;
+            this.distinct = distinct;
+            this.repeated = repeated;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute()
+        {
+            if (to - from > SEQUENTIAL_THRESHOLD)
+            {
+                int mid = (from + to) >>> 1;
+                LetterTask left = new LetterTask(corpus, letterMasks,
+                        distinct, repeated, from, mid);
+                left.fork();
+                int[] counts = new LetterTask(corpus, letterMasks, distinct,
+                        repeated, mid, to).compute();
+                int[] leftCounts = left.join();
+                for (int c = 0; c < HangmanGame.ALPHABET_SIZE; c++)
+                {
+                    counts[c] += leftCounts[c];
+                }
+                return counts;
+            }
+
+            int[] counts = new int[HangmanGame.ALPHABET_SIZE];
+            for (int w = from; w < to; w++)
+            {
+                int mask = 0;
+                int letters = 0;
+                int length = corpus.getLength(w);
+                for (int i = 0; i < length; i++)
+                {
+                    int letter = HangmanGame.letterIndex(corpus.charAt(w, i));
+                    if (letter < 0) continue;
+                    mask |= 1 << letter;
+                    letters++;
+                }
+                letterMasks[w] = mask;
+                distinct[w] = (byte) Integer.bitCount(mask);
+                repeated[w] = (byte) Math.min(Byte.MAX_VALUE,
+                        letters - Integer.bitCount(mask));
+                for (int m = mask; m != 0; m &= m - 1)
+                {
+                    counts[Integer.numberOfTrailingZeros(m)]++;
+                }
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Computes the rarity and raw difficulty of each word in a range.
+     */
+    private static class ScoreTask extends RecursiveAction
+    {
+        private final WordCorpus corpus;
+        private final int[] letterMasks;
+        private final byte[] distinct;
+        private final byte[] repeated;
+        private final float[] letterRarity;
+        private final float[] rarity;
+        private final long[] ranked;
+        private final int from;
+        private final int to;
+
+        ScoreTask(WordCorpus corpus, int[] letterMasks, byte[] distinct,
+                byte[] repeated, float[] letterRarity, float[] rarity,
+                long[] ranked, int from, int to)
+        {
+            this.corpus = corpus;
+            this.letterMasks = letterMasks;
+            this.distinct = distinct;
+            this.repeated = repeated;
+            this.letterRarity = letterRarity;
+            this.rarity = rarity;
+            this.ranked = ranked;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from > SEQUENTIAL_THRESHOLD)
+            {
+                int mid = (from + to) >>> 1;
+                invokeAll(
+                        new ScoreTask(corpus, letterMasks, distinct, repeated,
+                                letterRarity, rarity, ranked, from, mid),
+                        new ScoreTask(corpus, letterMasks, distinct, repeated,
+                                letterRarity, rarity, ranked, mid, to));
+                return;
+            }
+
+            for (int w = from; w < to; w++)
+            {
+                float sum = 0;
+                for (int m = letterMasks[w]; m != 0; m &= m - 1)
+                {
+                    sum += letterRarity[Integer.numberOfTrailingZeros(m)];
+                }
+                rarity[w] = distinct[w] == 0 ? 0 : sum / distinct[w];
+                float raw = rawDifficulty(rarity[w], corpus.getLength(w),
+                        distinct[w], repeated[w]);
+                ranked[w] = ((long) sortableBits(raw) << 32) | w;
+            }
+        }
+
+        /**
+         * Maps a float to an int that sorts in the same order as the float.
+         */
+        private static int sortableBits(float value)
+        {
+            int bits = Float.floatToIntBits(value);
+            return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+        }
+    }
+}
@@ -1,102 +1,241 @@
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
 
 /**
- * Represents a Word List used in the Hangman game.
+ * Represents a Word List used in the Hangman game. A word list of a
+ * difficulty level moves on to the new words as soon as WordListReloader
+ * replaces them. A word list can also play the games of a WordSchedule in
+ * order, which plays the same words on every run.
+ *
+ * Every word list of a difficulty level draws from the same shuffle bag, so
+ * no word comes up twice until every word of the level has been played, even
+ * though each game has its own WordList. The bag is locked around each draw.
+ *
+ * If WordWeights.ENABLED is set, with -Dhangman.words.adaptive=true, a word
+ * list of a difficulty level draws from the level's shared WordWeights
+ * instead of the shuffle, favouring the words players solve closest to the
+ * level's target rate, and gives up the promise of no repeats.
  */
 public class WordList
 {
     // Fields
-    private ArrayList<String> wordList;
-    private ArrayList<String> usedWords;
-    private final Path ASSETS_PATH = Paths.get("src", "assets", "words");
+    private static final ConcurrentHashMap<Difficulty, SharedBag> SHARED_BAGS = new ConcurrentHashMap<Difficulty, SharedBag>();
+    private final Difficulty difficulty;
+    private final RandomGenerator random;
+    private final WordSchedule schedule;
+    private WordWeights weights;
+    private WordCorpus corpus;
+    private ShuffleBag shuffleBag;
+    private long nextGame;
 
     /**
      * Constructor for WordList class.
-     * Initializes the WordList based on the specified difficulty level.
+     * Initializes the WordList based on the specified difficulty level. The
+     * words and the shuffle of the used ones are shared with every other
+     * WordList of the same difficulty.
      *
      * @param difficulty The difficulty level for the word list.
      */
     public WordList(Difficulty difficulty)
     {
-        wordList = new ArrayList<String>();
-        usedWords = new ArrayList<String>();
-        Path path;
-        switch (difficulty)
-        {
-            case EASY:
-                path = ASSETS_PATH.resolve("easy.txt");
-                break;
-            case MEDIUM:
-                path = ASSETS_PATH.resolve("medium.txt");
-                break;
-            case HARD:
-            default:
-                path = ASSETS_PATH.resolve("hard.txt");
-                break;
-        }
-        parseWords(path);
+        this(difficulty, new Random());
     }
 
     /**
-     * Parses words from the specified file path and adds them to the word list.
+     * Constructor for WordList class.
+     * Initializes the WordList based on the specified difficulty level,
+     * drawing words with the given random number generator.
      *
-     * @param filePath The path of the file containing the words to be parsed.
+     * @param difficulty The difficulty level for the word list.
+     * @param random     The random number generator used to pick words.
      */
-    private void parseWords(Path filePath)
+    public WordList(Difficulty difficulty, RandomGenerator random)
     {
-        try
+        this(difficulty, WordCorpus.forDifficulty(difficulty), random);
+    }
+
+    /**
+     * Constructor for WordList class.
+     * Initializes the WordList over the specified corpus, drawing words with
+     * the given random number generator.
+     *
+     * @param corpus The corpus to draw words from.
+     * @param random The random number generator used to pick words.
+     */
+    public WordList(WordCorpus corpus, RandomGenerator random)
+    {
+        this(null, corpus, random);
+    }
+
+    /**
+     * Constructor for WordList class.
+     * Initializes the WordList to draw the words of the games of a schedule
+     * in order, starting at the specified game. The list keeps the corpus of
+     * the schedule.
+     *
+     * @param schedule  The schedule to play.
+     * @param firstGame The number of the first game to play in the schedule.
+     */
+    public WordList(WordSchedule schedule, long firstGame)
+    {
+        this.difficulty = null;
+        this.random = null;
+        this.schedule = schedule;
+        this.corpus = schedule.getCorpus();
+        nextGame = firstGame;
+    }
+
+    /**
+     * Constructs a WordList object.
+     *
+     * @param difficulty The difficulty level whose reloads to follow, or null
+     *                   to keep the corpus.
+     * @param corpus     The corpus to draw words from.
+     * @param random     The random number generator used to pick words.
+     */
+    private WordList(Difficulty difficulty, WordCorpus corpus,
+            RandomGenerator random)
+    {
+        this.difficulty = difficulty;
+        this.random = random;
+        this.schedule = null;
+        this.corpus = corpus;
+        if (difficulty != null && WordWeights.ENABLED)
         {
-            BufferedReader reader = new BufferedReader(
-                    new FileReader(filePath.toFile()));
-            String word;
-            while ((word = reader.readLine()) != null)
-            {
-                wordList.add(word);
-            }
-            reader.close();
+            weights = WordWeights.forDifficulty(difficulty);
+            this.corpus = weights.getCorpus();
         }
-        catch (FileNotFoundException e)
+        else if (difficulty != null)
         {
-            e.printStackTrace();
+            SharedBag shared = sharedBag(difficulty);
+            this.corpus = shared.corpus;
+            shuffleBag = shared.bag;
         }
-        catch (IOException e)
+        else
         {
-            e.printStackTrace();
+            shuffleBag = new ShuffleBag(corpus.size(), random);
         }
     }
 
     /**
-     * Retrieves a random word from the word list.
-     * Resets the list if all words have been used.
+     * Gets the shuffle bag shared by the word lists of a difficulty level,
+     * starting a new one when the words of the level were reloaded.
      *
-     * @return A random word from the word list.
+     * @param difficulty The difficulty level.
+     * @return the shared bag and the corpus it draws from.
      */
-    public String getRandomWordFromList()
+    private static SharedBag sharedBag(Difficulty difficulty)
     {
-        // Reset list if fully used
-        Random rand = new Random();
-        if (usedWords.size() == wordList.size())
+        SharedBag shared = SHARED_BAGS.get(difficulty);
+        if (shared != null
+                && shared.corpus == WordCorpus.forDifficulty(difficulty))
+            return shared;
+        return SHARED_BAGS.compute(difficulty, (d, old) ->
         {
-            wordList = new ArrayList<String>();
-        }
+            WordCorpus corpus = WordCorpus.forDifficulty(d);
+            if (old != null && old.corpus == corpus) return old;
+            return new SharedBag(corpus);
+        });
+    }
 
-        int randomIndex = rand.nextInt(wordList.size());
-        String word = wordList.get(randomIndex);
+    /**
+     * Switches to the current corpus of the difficulty level if it was
+     * reloaded since the last draw, along with the shared shuffle over it.
+     */
+    private void followReload()
+    {
+        if (difficulty == null) return;
+        if (weights != null)
+        {
+            weights = WordWeights.forDifficulty(difficulty);
+            corpus = weights.getCorpus();
+            return;
+        }
+        if (WordCorpus.forDifficulty(difficulty) == corpus) return;
+        SharedBag shared = sharedBag(difficulty);
+        corpus = shared.corpus;
+        shuffleBag = shared.bag;
+    }
 
-        while (usedWords.contains(word))
+    /**
+     * Draws the index of the next word.
+     *
+     * @return the index of the word in the corpus.
+     */
+    private int nextIndex()
+    {
+        if (schedule != null) return schedule.wordIndex(nextGame++);
+        if (weights != null) return weights.draw(random);
+        if (difficulty == null) return shuffleBag.next();
+        synchronized (shuffleBag)
         {
-            randomIndex = rand.nextInt(wordList.size());
-            word = wordList.get(randomIndex);
+            return shuffleBag.next(random);
         }
+    }
+
+    /**
+     * Draws the index of a random word in the same way as
+     * getRandomWordFromList, without creating the word. The index is into
+     * the corpus returned by getCorpus right after the draw.
+     *
+     * @return the index of the word in the corpus.
+     */
+    public int getRandomWordIndex()
+    {
+        followReload();
+        return nextIndex();
+    }
+
+    /**
+     * Gets the corpus the words are drawn from, which changes when the words
+     * of the difficulty level are reloaded.
+     *
+     * @return the corpus of the last draw.
+     */
+    public WordCorpus getCorpus()
+    {
+        return corpus;
+    }
 
-        usedWords.add(word);
+    /**
+     * Retrieves a random word from the word list. No word is repeated until
+     * every word in the list has been used, after which the list starts
+     * over, or until the words are reloaded. The word lists of a difficulty
+     * level share this, so it holds across games. A list drawing from
+     * WordWeights draws each word by its weight instead, and may repeat one.
+     * A list playing a schedule returns the word of its next game. One call
+     * in every GameMetrics.SAMPLE_INTERVAL on a thread is timed.
+     *
+     * @return A random word from the word list.
+     */
+    public String getRandomWordFromList()
+    {
+        followReload();
+        if (!GameMetrics.ENABLED) return corpus.get(nextIndex());
+        GameMetrics metrics = GameMetrics.shared();
+        metrics.countRandomWord();
+        if (!metrics.sampleRandomWord()) return corpus.get(nextIndex());
+        long start = System.nanoTime();
+        String word = corpus.get(nextIndex());
+        metrics.recordRandomWord(System.nanoTime() - start);
         return word;
     }
+
+    /**
+     * A shuffle bag shared by the word lists of a difficulty level, with the
+     * corpus it was made for.
+     */
+    private static class SharedBag
+    {
+        private final WordCorpus corpus;
+        private final ShuffleBag bag;
+
+        SharedBag(WordCorpus corpus)
+        {
+            this.corpus = corpus;
+            // * each list draws with its own generator, so this one is unused
+            bag = new ShuffleBag(corpus.size(), new Random());
+        }
+    }
 }
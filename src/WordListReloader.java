@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.EnumMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the word file and reloads the word lists when it changes, while
+ * games keep running. The new file is read and indexed on a single low
+ * priority thread, so it never competes with more than one core's worth of
+ * guesses. Only once the new index and the corpus of every difficulty are
+ * built are they swapped in. Games already playing keep their word; the next
+ * word drawn by any WordList comes from the new corpus. A file that can't be
+ * read is reported and the old words are kept.
+ */
+public class WordListReloader implements AutoCloseable
+{
+    // Fields
+    private static final long SETTLE_MILLIS = 250;
+    private static WordListReloader running;
+    private final Path wordsPath;
+    private final ForkJoinPool pool;
+    private final WatchService watcher;
+    private final Thread thread;
+    private volatile long lastModified;
+    private volatile int reloads;
+
+    /**
+     * Constructs a WordListReloader object watching a word file. Call
+     * {@link #start()} to begin watching.
+     *
+     * @param wordsPath The word file with one word per line.
+     * @throws IOException if the directory of the file can't be watched.
+     */
+    public WordListReloader(Path wordsPath) throws IOException
+    {
+        this.wordsPath = wordsPath.toAbsolutePath();
+        pool = new ForkJoinPool(1, p ->
+        {
+            ForkJoinWorkerThread worker = ForkJoinPool
+                    .defaultForkJoinWorkerThreadFactory.newThread(p);
+            worker.setName("word-reloader-index");
+            worker.setPriority(Thread.MIN_PRIORITY);
+            return worker;
+        }, null, false);
+        watcher = FileSystems.getDefault().newWatchService();
+        this.wordsPath.getParent().register(watcher,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        lastModified = modifiedTime();
+        thread = new Thread(this::watch, "word-reloader");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    /**
+     * Starts watching the bundled word file, unless the system property
+     * hangman.words.reload is false or a reloader is already running.
+     */
+    public static synchronized void startDefault()
+    {
+        if (running != null
+                || "false".equals(System.getProperty("hangman.words.reload")))
+            return;
+        try
+        {
+            running = new WordListReloader(WordIndex.WORDS_PATH);
+            running.start();
+        }
+        catch (IOException e)
+        {
+            // * the game works without reloads
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts watching the word file on a background thread.
+     */
+    public void start()
+    {
+        thread.start();
+    }
+
+    /**
+     * Reads and indexes the word file and swaps it in for the word lists of
+     * every difficulty. Runs on the calling thread, with the indexing on the
+     * reloader's own pool.
+     *
+     * @throws IOException if the word file can't be read.
+     */
+    public void reload() throws IOException
+    {
+        long modified = modifiedTime();
+        WordIndex index = WordIndex.load(wordsPath, pool);
+        EnumMap<Difficulty, WordCorpus> corpora =
+                new EnumMap<Difficulty, WordCorpus>(Difficulty.class);
+        for (Difficulty d : Difficulty.values())
+        {
+            corpora.put(d, index.corpusInRange(d.getMinScore(),
+                    d.getMaxScore()));
+        }
+        WordIndex.setShared(index);
+        WordCorpus.replaceAll(corpora);
+        WordBuckets.replaceShared(index.getCorpus());
+        lastModified = modified;
+        reloads++;
+    }
+
+    /**
+     * Gets the number of reloads so far.
+     *
+     * @return the number of reloads.
+     */
+    public int getReloads()
+    {
+        return reloads;
+    }
+
+    /**
+     * Stops watching the word file.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        watcher.close();
+        pool.shutdown();
+    }
+
+    /**
+     * Runs on the watcher thread: waits for changes to the word file and
+     * reloads it once the changes have settled.
+     */
+    private void watch()
+    {
+        try
+        {
+            while (true)
+            {
+                WatchKey key = watcher.take();
+                boolean changed = touchesWords(key);
+                // * an editor or a copy writes the file in several steps, so
+                // wait until it has been quiet for a moment
+                while (changed)
+                {
+                    key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                    if (key == null || !touchesWords(key)) break;
+                }
+                if (changed && modifiedTime() != lastModified)
+                {
+                    try
+                    {
+                        reload();
+                    }
+                    catch (IOException | RuntimeException e)
+                    {
+                        // * keep the words we have
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            return;
+        }
+    }
+
+    /**
+     * Checks if the events of a watch key include the word file, and resets
+     * the key.
+     *
+     * @param key The signalled watch key.
+     * @return true if the word file was created or modified.
+     */
+    private boolean touchesWords(WatchKey key)
+    {
+        boolean touches = false;
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || wordsPath.getFileName().equals(context))
+                touches = true;
+        }
+        key.reset();
+        return touches;
+    }
+
+    /**
+     * Gets the modification time of the word file.
+     *
+     * @return the modification time in milliseconds, or 0 if it's missing.
+     */
+    private long modifiedTime()
+    {
+        try
+        {
+            return Files.getLastModifiedTime(wordsPath).toMillis();
+        }
+        catch (IOException e)
+        {
+            return 0;
+        }
+    }
+}
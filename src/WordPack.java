@@ -0,0 +1,406 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Represents an immutable word list in any script for a locale, played by
+ * WordPackGame. Every word is normalized to NFC and case-folded once when the
+ * pack is built, so a guess is matched by folding it and looking it up, never
+ * by converting the word again.
+ *
+ * Words are stored as Unicode code points, so letters outside the Basic
+ * Multilingual Plane count as one letter. Each letter is folded on its own
+ * with simple case folding: upper, title and lower case forms of a letter
+ * fold together, and for Turkish and Azerbaijani I folds with dotless ı and
+ * İ with i. Packs can also fold away accents, so é is guessed with e.
+ *
+ * The distinct folded letters of a pack form its alphabet, of at most 64
+ * letters. Each word is packed as its display code points and the alphabet
+ * index of each one, one word after another, with a table of start offsets
+ * and the alphabet mask of every word.
+ */
+public final class WordPack
+{
+    // Fields
+    public static final int MAX_ALPHABET_SIZE = Long.SIZE;
+    public static final int MAX_WORD_LENGTH = Long.SIZE;
+    private static final int DOTLESS_I = 0x0131;
+    private static final int DOTTED_CAPITAL_I = 0x0130;
+    private final Locale locale;
+    private final boolean turkic;
+    private final boolean foldAccents;
+    private final int[] alphabet;
+    private final int[] codePoints;
+    private final byte[] letters;
+    private final int[] offsets;
+    private final long[] wordMasks;
+
+    /**
+     * Constructs a WordPack object from packed words.
+     */
+    private WordPack(Locale locale, boolean foldAccents, int[] alphabet,
+            int[] codePoints, byte[] letters, int[] offsets, long[] wordMasks)
+    {
+        this.locale = locale;
+        this.turkic = isTurkic(locale);
+        this.foldAccents = foldAccents;
+        this.alphabet = alphabet;
+        this.codePoints = codePoints;
+        this.letters = letters;
+        this.offsets = offsets;
+        this.wordMasks = wordMasks;
+    }
+
+    /**
+     * Creates a pack from the specified words.
+     *
+     * @param words       The words in the pack.
+     * @param locale      The locale whose case rules fold the letters.
+     * @param foldAccents true to guess accented letters with their base
+     *                    letter.
+     * @return the new pack.
+     * @throws IllegalArgumentException if there are no words, a word is
+     *                                  longer than 64 code points, or the
+     *                                  words use more than 64 letters.
+     */
+    public static WordPack of(Collection<String> words, Locale locale,
+            boolean foldAccents)
+    {
+        Packer packer = new Packer(locale, foldAccents);
+        for (String word : words)
+        {
+            packer.add(word);
+        }
+        return packer.build();
+    }
+
+    /**
+     * Reads a pack from a UTF-8 file with one word per line.
+     *
+     * @param filePath    The path of the file containing the words.
+     * @param locale      The locale whose case rules fold the letters.
+     * @param foldAccents true to guess accented letters with their base
+     *                    letter.
+     * @return the new pack.
+     * @throws IOException if the file can't be read.
+     */
+    public static WordPack fromFile(Path filePath, Locale locale,
+            boolean foldAccents) throws IOException
+    {
+        Packer packer = new Packer(locale, foldAccents);
+        try (BufferedReader reader = Files.newBufferedReader(filePath,
+                StandardCharsets.UTF_8))
+        {
+            String word;
+            while ((word = reader.readLine()) != null)
+            {
+                if (!word.isEmpty()) packer.add(word);
+            }
+        }
+        return packer.build();
+    }
+
+    /**
+     * Folds a guess the way the letters of this pack were folded.
+     *
+     * @param guess The guess as typed, which may be decomposed.
+     * @return the folded code point, or -1 if the guess is not exactly one
+     *         letter.
+     */
+    public int foldGuess(String guess)
+    {
+        String normal = Normalizer.normalize(guess, Normalizer.Form.NFC);
+        if (normal.isEmpty() || normal.codePointCount(0, normal.length()) != 1)
+            return -1;
+        int folded = fold(normal.codePointAt(0));
+        return Character.isLetter(folded) ? folded : -1;
+    }
+
+    /**
+     * Folds a single code point the way the letters of this pack were
+     * folded.
+     *
+     * @param codePoint The code point to fold.
+     * @return the folded code point.
+     */
+    public int fold(int codePoint)
+    {
+        return fold(codePoint, foldAccents, turkic);
+    }
+
+    /**
+     * Gets the index of a folded letter in the alphabet of the pack.
+     *
+     * @param folded The folded code point.
+     * @return the index from 0 to 63, or -1 if no word holds the letter.
+     */
+    public int letterIndex(int folded)
+    {
+        int index = Arrays.binarySearch(alphabet, folded);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Gets a letter of the alphabet.
+     *
+     * @param index The index of the letter.
+     * @return the folded code point of the letter.
+     */
+    public int getLetter(int index)
+    {
+        return alphabet[index];
+    }
+
+    /**
+     * Gets the number of letters in the alphabet of the pack.
+     *
+     * @return the alphabet size.
+     */
+    public int getAlphabetSize()
+    {
+        return alphabet.length;
+    }
+
+    /**
+     * Gets the locale of the pack.
+     *
+     * @return the locale.
+     */
+    public Locale getLocale()
+    {
+        return locale;
+    }
+
+    /**
+     * Gets the number of words in the pack.
+     *
+     * @return the number of words.
+     */
+    public int size()
+    {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Gets a word as it is displayed, in NFC.
+     *
+     * @param index The index of the word.
+     * @return the word.
+     */
+    public String get(int index)
+    {
+        int start = offsets[index];
+        return new String(codePoints, start, offsets[index + 1] - start);
+    }
+
+    /**
+     * Gets the length of a word in code points.
+     *
+     * @param index The index of the word.
+     * @return the number of code points.
+     */
+    public int getLength(int index)
+    {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Gets a code point of a word as it is displayed.
+     *
+     * @param index    The index of the word.
+     * @param position The position of the code point in the word.
+     * @return the code point.
+     */
+    public int codePointAt(int index, int position)
+    {
+        return codePoints[offsets[index] + position];
+    }
+
+    /**
+     * Gets the alphabet index of a code point of a word.
+     *
+     * @param index    The index of the word.
+     * @param position The position of the code point in the word.
+     * @return the letter index, or -1 if the code point is not a letter.
+     */
+    public int letterAt(int index, int position)
+    {
+        return letters[offsets[index] + position];
+    }
+
+    /**
+     * Gets the letters of a word as a mask over the alphabet.
+     *
+     * @param index The index of the word.
+     * @return the mask with bit i set if letter i is in the word.
+     */
+    public long getWordMask(int index)
+    {
+        return wordMasks[index];
+    }
+
+    /**
+     * Removes the accents from a letter, keeping the letter if it has no
+     * single base letter.
+     */
+    private static int stripAccents(int cp)
+    {
+        // * only letters beyond ASCII can carry an accent
+        if (cp < 0x80) return cp;
+        String decomposed = Normalizer.normalize(
+                new String(Character.toChars(cp)), Normalizer.Form.NFD);
+        int base = decomposed.codePointAt(0);
+        for (int i = Character.charCount(base); i < decomposed.length(); )
+        {
+            int mark = decomposed.codePointAt(i);
+            if (Character.getType(mark) != Character.NON_SPACING_MARK)
+                return cp;
+            i += Character.charCount(mark);
+        }
+        return base;
+    }
+
+    /**
+     * Folds one code point with simple case folding, with its accents
+     * removed first if asked.
+     */
+    private static int fold(int cp, boolean foldAccents, boolean turkic)
+    {
+        // * NFD splits dotted capital I into I and a combining dot, and in
+        // Turkic languages a bare I is dotless, so fold it before the dot is
+        // stripped
+        if (turkic && cp == DOTTED_CAPITAL_I) return 'i';
+        return fold(foldAccents ? stripAccents(cp) : cp, turkic);
+    }
+
+    /**
+     * Folds one code point with simple case folding.
+     */
+    private static int fold(int cp, boolean turkic)
+    {
+        // * the dotted and dotless i pairs are the only letters whose folding
+        // depends on the locale
+        if (turkic)
+        {
+            if (cp == 'I' || cp == DOTLESS_I) return DOTLESS_I;
+            if (cp == DOTTED_CAPITAL_I || cp == 'i') return 'i';
+        }
+        else if (cp == DOTLESS_I || cp == DOTTED_CAPITAL_I)
+        {
+            // * outside Turkic languages neither has a simple case folding
+            return cp;
+        }
+        // * lower casing the upper case form also joins title case letters
+        // and variant forms such as final sigma
+        return Character.toLowerCase(Character.toUpperCase(cp));
+    }
+
+    /**
+     * Checks if a locale uses the Turkic casing of i.
+     */
+    private static boolean isTurkic(Locale locale)
+    {
+        String language = locale.getLanguage();
+        return language.equals("tr") || language.equals("az");
+    }
+
+    /**
+     * Normalizes, folds and packs words into the growing arrays a pack is
+     * built from.
+     */
+    private static class Packer
+    {
+        private final Locale locale;
+        private final boolean turkic;
+        private final boolean foldAccents;
+        private int[] codePoints = new int[1024];
+        private int[] folded = new int[1024];
+        private int[] offsets = new int[128];
+        private int length;
+        private int count;
+
+        /**
+         * Constructs a Packer object.
+         */
+        Packer(Locale locale, boolean foldAccents)
+        {
+            this.locale = locale;
+            this.turkic = isTurkic(locale);
+            this.foldAccents = foldAccents;
+        }
+
+        /**
+         * Appends a word.
+         *
+         * @param word The word to append.
+         */
+        void add(String word)
+        {
+            String normal = Normalizer.normalize(word, Normalizer.Form.NFC);
+            int size = normal.codePointCount(0, normal.length());
+            if (size > MAX_WORD_LENGTH)
+                throw new IllegalArgumentException(
+                        "Word is longer than " + MAX_WORD_LENGTH
+                                + " code points: " + word);
+            if (length + size > codePoints.length)
+            {
+                int capacity = Math.max(codePoints.length * 2, length + size);
+                codePoints = Arrays.copyOf(codePoints, capacity);
+                folded = Arrays.copyOf(folded, capacity);
+            }
+            for (int i = 0; i < normal.length(); )
+            {
+                int cp = normal.codePointAt(i);
+                codePoints[length] = cp;
+                int f = fold(cp, foldAccents, turkic);
+                folded[length++] = Character.isLetter(f) ? f : -1;
+                i += Character.charCount(cp);
+            }
+            if (count + 2 > offsets.length)
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[++count] = length;
+        }
+
+        /**
+         * Builds the pack from the words added so far. The alphabet is every
+         * distinct folded letter, in code point order.
+         *
+         * @return the new pack.
+         */
+        WordPack build()
+        {
+            if (count == 0)
+                throw new IllegalArgumentException("Pack has no words");
+            int[] alphabet = Arrays.stream(folded, 0, length)
+                    .filter(f -> f >= 0).distinct().sorted().toArray();
+            if (alphabet.length > MAX_ALPHABET_SIZE)
+                throw new IllegalArgumentException("Pack uses "
+                        + alphabet.length + " letters, at most "
+                        + MAX_ALPHABET_SIZE + " are supported");
+
+            byte[] letters = new byte[length];
+            for (int i = 0; i < length; i++)
+            {
+                letters[i] = (byte) (folded[i] < 0 ? -1
+                        : Arrays.binarySearch(alphabet, folded[i]));
+            }
+            long[] wordMasks = new long[count];
+            for (int w = 0; w < count; w++)
+            {
+                for (int i = offsets[w]; i < offsets[w + 1]; i++)
+                {
+                    if (letters[i] >= 0) wordMasks[w] |= 1L << letters[i];
+                }
+            }
+            return new WordPack(locale, foldAccents, alphabet,
+                    Arrays.copyOf(codePoints, length), letters,
+                    Arrays.copyOf(offsets, count + 1), wordMasks);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents a Hangman game played on the words of a WordPack, in any script.
+ * The rules are those of HangmanGame, but letters are whole code points and
+ * guesses are folded by the pack's locale, so a guess matches every form of
+ * its letter in the word. Letters are tracked as bit masks over the pack's
+ * alphabet, and the positions of each letter in the word are found once when
+ * the game starts, so a guess costs a lookup and a few bit operations.
+ */
+public class WordPackGame
+{
+    // Fields
+    private static final int HIDDEN = '_';
+    private final WordPack pack;
+    private final ShuffleBag shuffleBag;
+    private final int maxAttempts;
+    private final long[] letterPositions;
+    private final StringBuilder wrongGuesses = new StringBuilder();
+    private int word = -1;
+    private int[] currentGuess;
+    private long guessedMask;
+    private long wrongMask;
+    private int[] otherWrongGuesses = new int[0];
+    private int lettersRemaining;
+    private int attemptsLeft;
+
+    /**
+     * Constructs a WordPackGame object.
+     *
+     * @param pack        The words to play.
+     * @param maxAttempts The maximum number of attempts allowed.
+     * @param random      The random number generator used to pick words.
+     */
+    public WordPackGame(WordPack pack, int maxAttempts, RandomGenerator random)
+    {
+        this.pack = pack;
+        this.maxAttempts = maxAttempts;
+        shuffleBag = new ShuffleBag(pack.size(), random);
+        letterPositions = new long[pack.getAlphabetSize()];
+    }
+
+    /**
+     * Starts a game on the next word of the pack. No word is repeated until
+     * every word has been played.
+     */
+    public void startGame()
+    {
+        startGame(shuffleBag.next());
+    }
+
+    /**
+     * Starts a game on the specified word of the pack.
+     *
+     * @param index The index of the word in the pack.
+     */
+    public void startGame(int index)
+    {
+        word = index;
+        int length = pack.getLength(index);
+        currentGuess = new int[length];
+        Arrays.fill(letterPositions, 0L);
+        for (int i = 0; i < length; i++)
+        {
+            int letter = pack.letterAt(index, i);
+            // * characters that can't be guessed are shown from the start
+            if (letter < 0)
+            {
+                currentGuess[i] = pack.codePointAt(index, i);
+                continue;
+            }
+            currentGuess[i] = HIDDEN;
+            letterPositions[letter] |= 1L << i;
+        }
+        guessedMask = 0;
+        wrongMask = 0;
+        otherWrongGuesses = new int[0];
+        wrongGuesses.setLength(0);
+        lettersRemaining = Long.bitCount(pack.getWordMask(index));
+        attemptsLeft = maxAttempts;
+    }
+
+    /**
+     * Processes the player's move. The guess is normalized and folded by the
+     * pack's locale, so it may be typed in any case or decomposed. Guessing a
+     * letter that was already guessed does not cost an attempt.
+     *
+     * @param guess The letter guessed by the player.
+     * @return true if the guess is correct, false otherwise.
+     * @throws InvalidGuessException if the guess is not exactly one letter.
+     * @throws IllegalStateException if the game has already been won or lost.
+     */
+    public boolean playerMove(String guess) throws InvalidGuessException
+    {
+        int folded = pack.foldGuess(guess);
+        if (folded < 0)
+            throw new InvalidGuessException("Guess must be a single letter");
+        return makeMove(folded);
+    }
+
+    /**
+     * Processes the player's move for a single code point.
+     *
+     * @param codePoint The letter guessed by the player.
+     * @return true if the guess is correct, false otherwise.
+     * @throws InvalidGuessException if the code point is not a letter.
+     * @throws IllegalStateException if the game has already been won or lost.
+     */
+    public boolean playerMove(int codePoint) throws InvalidGuessException
+    {
+        int folded = pack.fold(codePoint);
+        if (!Character.isLetter(folded))
+            throw new InvalidGuessException("Guess must be a single letter");
+        return makeMove(folded);
+    }
+
+    /**
+     * Checks a folded letter against the word and updates the game state.
+     *
+     * @param folded The folded letter.
+     * @return true if the guess is correct, false otherwise.
+     */
+    private boolean makeMove(int folded)
+    {
+        if (word < 0) throw new IllegalStateException("Game has not started");
+        if (didPlayerWin() || isGameOver())
+            throw new IllegalStateException("Game is already over");
+
+        int letter = pack.letterIndex(folded);
+        if (letter < 0) return otherWrongGuess(folded);
+        long bit = 1L << letter;
+        if ((guessedMask & bit) != 0) return letterPositions[letter] != 0;
+        guessedMask |= bit;
+
+        long positions = letterPositions[letter];
+        if (positions != 0)
+        {
+            for (long p = positions; p != 0; p &= p - 1)
+            {
+                int i = Long.numberOfTrailingZeros(p);
+                currentGuess[i] = pack.codePointAt(word, i);
+            }
+            lettersRemaining--;
+            return true;
+        }
+        wrongMask |= bit;
+        wrongGuesses.appendCodePoint(folded);
+        attemptsLeft--;
+        return false;
+    }
+
+    /**
+     * Records a wrong guess of a letter that no word of the pack holds.
+     *
+     * @param folded The folded letter.
+     * @return false.
+     */
+    private boolean otherWrongGuess(int folded)
+    {
+        for (int other : otherWrongGuesses)
+        {
+            if (other == folded) return false;
+        }
+        int count = otherWrongGuesses.length;
+        otherWrongGuesses = Arrays.copyOf(otherWrongGuesses, count + 1);
+        otherWrongGuesses[count] = folded;
+        wrongGuesses.appendCodePoint(folded);
+        attemptsLeft--;
+        return false;
+    }
+
+    /**
+     * Checks if the player has won the game.
+     *
+     * @return true if every letter in the word has been guessed.
+     */
+    public boolean didPlayerWin()
+    {
+        return lettersRemaining == 0;
+    }
+
+    /**
+     * Checks if the game is over.
+     *
+     * @return true if attempts left are zero.
+     */
+    public boolean isGameOver()
+    {
+        return attemptsLeft == 0;
+    }
+
+    /**
+     * Checks if the player already guessed a letter, in any of its forms.
+     *
+     * @param guess The letter to check.
+     * @return true if the letter was already guessed.
+     */
+    public boolean hasGuessed(String guess)
+    {
+        int folded = pack.foldGuess(guess);
+        if (folded < 0) return false;
+        int letter = pack.letterIndex(folded);
+        if (letter >= 0) return (guessedMask & (1L << letter)) != 0;
+        for (int other : otherWrongGuesses)
+        {
+            if (other == folded) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the letters guessed so far as a mask over the pack's alphabet.
+     *
+     * @return the mask with bit i set if letter i was guessed.
+     */
+    public long getGuessedMask()
+    {
+        return guessedMask;
+    }
+
+    /**
+     * Gets the wrong guesses of letters in the pack's alphabet as a mask.
+     *
+     * @return the mask with bit i set if letter i was a wrong guess.
+     */
+    public long getWrongMask()
+    {
+        return wrongMask;
+    }
+
+    /**
+     * Gets the word to be guessed, in NFC.
+     *
+     * @return the word to be guessed.
+     */
+    public String getWordToGuess()
+    {
+        return pack.get(word);
+    }
+
+    /**
+     * Gets the current guessed word status, with '_' for hidden letters.
+     *
+     * @return the current guessed word.
+     */
+    public String getCurrentGuess()
+    {
+        return new String(currentGuess, 0, currentGuess.length);
+    }
+
+    /**
+     * Gets the wrong guesses, folded, in the order they were made.
+     *
+     * @return the wrong guesses.
+     */
+    public String getWrongGuesses()
+    {
+        return wrongGuesses.toString();
+    }
+
+    /**
+     * Gets the number of attempts left.
+     *
+     * @return the number of attempts left.
+     */
+    public int getAttemptsLeft()
+    {
+        return attemptsLeft;
+    }
+
+    /**
+     * Gets the maximum number of attempts allowed in the game.
+     *
+     * @return the maximum number of attempts allowed.
+     */
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    /**
+     * Gets the pack the game is played on.
+     *
+     * @return the word pack.
+     */
+    public WordPack getPack()
+    {
+        return pack;
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Represents a reproducible order of words to play, from a seed, that can be
+ * split between any number of workers. Games are numbered from 0 and every
+ * run with the same seed and word file plays the same word in each game.
+ *
+ * Like a ShuffleBag, a schedule plays every word of its corpus once per round
+ * before repeating any, with a new order each round. The order is not drawn
+ * step by step but computed: the word of a game is its position in the round
+ * put through a keyed permutation of the corpus, so any game can be looked up
+ * directly, in constant expected time, without playing the games before it.
+ *
+ * A shard of a schedule plays every shardCount-th game of the whole schedule,
+ * starting at its shard index. The shards of a schedule never play the same
+ * game, together they play all of them, and each is computed on its own.
+ */
+public final class WordSchedule
+{
+    // Fields
+    // * small corpora have halves of only a few bits, which need more rounds
+    // to mix evenly
+    private static final int ROUNDS = 12;
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private final WordCorpus corpus;
+    private final long seed;
+    private final int shard;
+    private final int shardCount;
+    private final int halfBits;
+    private final long halfMask;
+
+    /**
+     * Constructs a WordSchedule object for a shard of the schedule of a
+     * corpus.
+     *
+     * @param corpus     The words to play.
+     * @param seed       The seed of the schedule.
+     * @param shard      The index of the shard, from 0 to shardCount - 1.
+     * @param shardCount The number of shards the schedule is split into.
+     * @throws IllegalArgumentException if the shard is out of range.
+     */
+    public WordSchedule(WordCorpus corpus, long seed, int shard,
+            int shardCount)
+    {
+        if (shardCount < 1 || shard < 0 || shard >= shardCount)
+            throw new IllegalArgumentException(
+                    "Shard " + shard + " of " + shardCount + " is out of range");
+        this.corpus = corpus;
+        this.seed = seed;
+        this.shard = shard;
+        this.shardCount = shardCount;
+        // * the permutation works on the smallest even number of bits that
+        // holds every index, so at most 3 in 4 values are walked past
+        int bits = Long.SIZE - Long.numberOfLeadingZeros(corpus.size() - 1L);
+        halfBits = Math.max(1, (bits + 1) / 2);
+        halfMask = (1L << halfBits) - 1;
+    }
+
+    /**
+     * Gets a shard of the schedule of a difficulty level. Each difficulty
+     * has its own order for the same seed.
+     *
+     * @param difficulty The difficulty level whose words are played.
+     * @param seed       The seed of the schedule.
+     * @param shard      The index of the shard, from 0 to shardCount - 1.
+     * @param shardCount The number of shards the schedule is split into.
+     * @return the schedule of the shard.
+     */
+    public static WordSchedule of(Difficulty difficulty, long seed, int shard,
+            int shardCount)
+    {
+        return of(difficulty, WordCorpus.forDifficulty(difficulty), seed,
+                shard, shardCount);
+    }
+
+    /**
+     * Gets a shard of the schedule of a difficulty level over words of the
+     * level loaded earlier.
+     *
+     * @param difficulty The difficulty level whose words are played.
+     * @param corpus     The words of the difficulty level.
+     * @param seed       The seed of the schedule.
+     * @param shard      The index of the shard, from 0 to shardCount - 1.
+     * @param shardCount The number of shards the schedule is split into.
+     * @return the schedule of the shard.
+     */
+    public static WordSchedule of(Difficulty difficulty, WordCorpus corpus,
+            long seed, int shard, int shardCount)
+    {
+        return new WordSchedule(corpus,
+                mix(seed + GOLDEN_GAMMA * (difficulty.ordinal() + 1)), shard,
+                shardCount);
+    }
+
+    /**
+     * Gets the game of the whole schedule that a game of this shard is.
+     *
+     * @param game The number of the game in this shard.
+     * @return the number of the game in the whole schedule.
+     */
+    public long toScheduleGame(long game)
+    {
+        if (game < 0)
+            throw new IllegalArgumentException("Game must not be negative");
+        return game * shardCount + shard;
+    }
+
+    /**
+     * Gets the index in the corpus of the word of a game of this shard.
+     *
+     * @param game The number of the game in this shard.
+     * @return the index of the word.
+     */
+    public int wordIndex(long game)
+    {
+        long scheduleGame = toScheduleGame(game);
+        int size = corpus.size();
+        long round = scheduleGame / size;
+        long key = mix(seed ^ mix(round + GOLDEN_GAMMA));
+        // * walk the cycle until it comes back into the corpus
+        long x = scheduleGame % size;
+        do
+        {
+            x = permute(x, key);
+        }
+        while (x >= size);
+        return (int) x;
+    }
+
+    /**
+     * Gets the word of a game of this shard.
+     *
+     * @param game The number of the game in this shard.
+     * @return the word.
+     */
+    public String getWord(long game)
+    {
+        return corpus.get(wordIndex(game));
+    }
+
+    /**
+     * Permutes a value of twice halfBits bits with a balanced Feistel
+     * network.
+     *
+     * @param x   The value.
+     * @param key The key of the permutation.
+     * @return the permuted value.
+     */
+    private long permute(long x, long key)
+    {
+        long left = x >>> halfBits;
+        long right = x & halfMask;
+        for (int r = 0; r < ROUNDS; r++)
+        {
+            long next = left ^ (mix(right + key + r * GOLDEN_GAMMA)
+                    & halfMask);
+            left = right;
+            right = next;
+        }
+        return left << halfBits | right;
+    }
+
+    /**
+     * Mixes the bits of a value, as SplittableRandom does.
+     *
+     * @param z The value.
+     * @return the mixed value.
+     */
+    static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gets the corpus of the schedule.
+     *
+     * @return the words played.
+     */
+    public WordCorpus getCorpus()
+    {
+        return corpus;
+    }
+
+    /**
+     * Gets the index of this shard.
+     *
+     * @return the shard index.
+     */
+    public int getShard()
+    {
+        return shard;
+    }
+
+    /**
+     * Gets the number of shards the schedule is split into.
+     *
+     * @return the shard count.
+     */
+    public int getShardCount()
+    {
+        return shardCount;
+    }
+}
@@ -0,0 +1,445 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weights the words of a corpus by how often players solve them, so a
+ * difficulty level favours the words whose solve rate is closest to the
+ * level's target. A word nobody has played yet is taken to be solved at the
+ * target rate and gets the full weight; every word keeps at least
+ * MIN_WEIGHT, so none is ever left out.
+ *
+ * Words are drawn from an alias table (Vose's method): one slot per word
+ * holding a threshold and another word, so a draw is one random slot and
+ * one comparison, in constant time whatever the size of the corpus. Until
+ * the first outcome is recorded there is no table and every word is equally
+ * likely.
+ *
+ * Recording an outcome only bumps the word's counts and marks it dirty. The
+ * table is rebuilt on a background thread from the weights of the dirty
+ * words and published in one step; draws read whichever table is current
+ * and never wait for a rebuild. A rebuild takes time linear in the number
+ * of words, so it runs at most once per rebuild period and only if outcomes
+ * were recorded since the last one.
+ *
+ * There are two tables, so rebuilding allocates nothing: each rebuild fills
+ * the table that is not current and then makes it current. A draw that
+ * still holds the other table when it starts being refilled notices it
+ * through the table's StampedLock and draws again from the current one.
+ */
+public final class WordWeights
+{
+    // Fields
+    // * off unless asked for, since weighted draws may repeat a word before
+    // the others have all been played
+    public static final boolean ENABLED = "true"
+            .equals(System.getProperty("hangman.words.adaptive"));
+    public static final long REBUILD_MILLIS = 1000;
+    public static final double MIN_WEIGHT = 0.05;
+    // * a new word counts as this many games played at the target rate
+    private static final double PRIOR_GAMES = 4;
+    // * how far from the target a solve rate may be before the weight falls
+    // off, as the standard deviation of a bell curve
+    private static final double SPREAD = 0.2;
+    private static final int MAX_COUNT = 0xFFFF;
+    private static final long ALWAYS = 1L << 31;
+    private static final IntUnaryOperator WIN = counts -> bump(counts, 1);
+    private static final IntUnaryOperator LOSS = counts -> bump(counts, 0);
+    private static final LongBinaryOperator OR = (a, b) -> a | b;
+    private static final ConcurrentHashMap<Difficulty, WordWeights> SHARED = new ConcurrentHashMap<Difficulty, WordWeights>();
+    private static final ScheduledExecutorService REBUILDER = Executors
+            .newSingleThreadScheduledExecutor(r ->
+            {
+                Thread thread = new Thread(r, "word-weights");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+    private final WordCorpus corpus;
+    private final double targetSolveRate;
+    private final AtomicIntegerArray counts;
+    private final AtomicLongArray dirty;
+    private final LongAdder outcomes;
+    private final long[][] tables = new long[2][];
+    private final StampedLock[] guards = { new StampedLock(),
+            new StampedLock() };
+    // * the index of the current table, or -1 before the first rebuild
+    private volatile int current = -1;
+    private volatile int rebuilds;
+    private volatile long lastRebuildNanos;
+    private ScheduledFuture<?> rebuilder;
+    private float[] weights;
+    private float[] scaled;
+    private int[] work;
+    private long outcomesAtRebuild;
+
+    /**
+     * Constructs a WordWeights object for a corpus with every word unplayed.
+     * Call {@link #start(ScheduledExecutorService, long)} to rebuild the
+     * table in the background.
+     *
+     * @param corpus          The words to weight.
+     * @param targetSolveRate The share of games players should win, from 0
+     *                        to 1.
+     */
+    public WordWeights(WordCorpus corpus, double targetSolveRate)
+    {
+        this.corpus = corpus;
+        this.targetSolveRate = targetSolveRate;
+        counts = new AtomicIntegerArray(corpus.size());
+        dirty = new AtomicLongArray((corpus.size() + 63) >>> 6);
+        outcomes = new LongAdder();
+    }
+
+    /**
+     * Gets the shared weights of the current corpus of a difficulty level,
+     * rebuilt every REBUILD_MILLIS. When WordListReloader replaces the
+     * corpus, the weights start over for the new words.
+     *
+     * @param difficulty The difficulty level.
+     * @return the shared weights of the difficulty level.
+     */
+    public static WordWeights forDifficulty(Difficulty difficulty)
+    {
+        WordWeights weights = SHARED.get(difficulty);
+        if (weights != null
+                && weights.corpus == WordCorpus.forDifficulty(difficulty))
+            return weights;
+        // * read the corpus again inside compute, so a reload between the
+        // check above and here cannot put back the weights of an old corpus
+        return SHARED.compute(difficulty, (d, old) ->
+        {
+            WordCorpus corpus = WordCorpus.forDifficulty(d);
+            if (old != null && old.corpus == corpus) return old;
+            if (old != null) old.stop();
+            WordWeights current = new WordWeights(corpus,
+                    d.getTargetSolveRate());
+            current.start(REBUILDER, REBUILD_MILLIS);
+            return current;
+        });
+    }
+
+    /**
+     * Starts rebuilding the table on a scheduler once every period, whenever
+     * outcomes were recorded since the last rebuild.
+     *
+     * @param scheduler    The scheduler to rebuild on, which may be shared
+     *                     by many weights.
+     * @param periodMillis The time between rebuilds in milliseconds.
+     */
+    public synchronized void start(ScheduledExecutorService scheduler,
+            long periodMillis)
+    {
+        if (rebuilder != null)
+            throw new IllegalStateException("Weights are already rebuilding");
+        rebuilder = scheduler.scheduleWithFixedDelay(this::rebuild,
+                periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops rebuilding the table. Draws keep using the last table.
+     */
+    public synchronized void stop()
+    {
+        if (rebuilder != null) rebuilder.cancel(false);
+        rebuilder = null;
+    }
+
+    /**
+     * Records the outcome of a game by its word. Words that are no longer in
+     * the corpus, after a reload, are ignored.
+     *
+     * @param word The word of the game.
+     * @param won  Whether the player solved the word.
+     */
+    public void recordOutcome(String word, boolean won)
+    {
+        int index = corpus.indexOf(word);
+        if (index >= 0) recordOutcome(index, won);
+    }
+
+    /**
+     * Records the outcome of a game by the index of its word. Safe to call
+     * from any thread; it never waits for a rebuild.
+     *
+     * @param index The index of the word in the corpus.
+     * @param won   Whether the player solved the word.
+     */
+    public void recordOutcome(int index, boolean won)
+    {
+        counts.updateAndGet(index, won ? WIN : LOSS);
+        long bit = 1L << index;
+        int word = index >>> 6;
+        if ((dirty.get(word) & bit) == 0)
+            dirty.accumulateAndGet(word, bit, OR);
+        outcomes.increment();
+    }
+
+    /**
+     * Adds one game to packed counts, with the games in the high 16 bits and
+     * the wins in the low 16 bits. Once a word has been played MAX_COUNT
+     * times both counts are halved, so recent games count for more.
+     *
+     * @param counts The packed counts.
+     * @param win    1 if the game was won, otherwise 0.
+     * @return the new packed counts.
+     */
+    private static int bump(int counts, int win)
+    {
+        int games = counts >>> 16;
+        int wins = counts & MAX_COUNT;
+        if (games == MAX_COUNT)
+        {
+            games >>>= 1;
+            wins >>>= 1;
+        }
+        return (games + 1) << 16 | (wins + win);
+    }
+
+    /**
+     * Draws the index of a word with probability proportional to its
+     * weight in the current table.
+     *
+     * @param random The random number generator to draw with.
+     * @return the index of the word in the corpus.
+     */
+    public int draw(RandomGenerator random)
+    {
+        int index = random.nextInt(corpus.size());
+        long keep = random.nextInt() >>> 1;
+        while (true)
+        {
+            int published = current;
+            if (published < 0) return index;
+            StampedLock guard = guards[published];
+            long stamp = guard.tryOptimisticRead();
+            long slot = tables[published][index];
+            // * a failed stamp means the table stopped being current and is
+            // being refilled, so the next pass reads the new one
+            if (stamp == 0 || !guard.validate(stamp)) continue;
+            // * the high half of a slot is the chance of keeping the index,
+            // out of 2^31, and the low half the word drawn otherwise
+            return keep < (slot >>> 32) ? index : (int) slot;
+        }
+    }
+
+    /**
+     * Rebuilds and publishes the table if outcomes were recorded since the
+     * last rebuild. Only the weights of words played since then are
+     * recomputed. Normally run by the background thread started with
+     * {@link #start(ScheduledExecutorService, long)}.
+     *
+     * @return true if a new table was published.
+     */
+    public synchronized boolean rebuild()
+    {
+        long recorded = outcomes.sum();
+        if (recorded == outcomesAtRebuild) return false;
+        long start = System.nanoTime();
+        int size = corpus.size();
+        if (weights == null)
+        {
+            weights = new float[size];
+            Arrays.fill(weights, 1f);
+            scaled = new float[size];
+            work = new int[size];
+            tables[0] = new long[size];
+            tables[1] = new long[size];
+        }
+        for (int w = 0; w < dirty.length(); w++)
+        {
+            if (dirty.get(w) == 0) continue;
+            long bits = dirty.getAndSet(w, 0);
+            while (bits != 0)
+            {
+                int index = w << 6 | Long.numberOfTrailingZeros(bits);
+                weights[index] = (float) weightOf(counts.get(index));
+                bits &= bits - 1;
+            }
+        }
+        int spare = current == 0 ? 1 : 0;
+        StampedLock guard = guards[spare];
+        long stamp = guard.writeLock();
+        try
+        {
+            buildTable(tables[spare]);
+        }
+        finally
+        {
+            guard.unlockWrite(stamp);
+        }
+        current = spare;
+        outcomesAtRebuild = recorded;
+        lastRebuildNanos = System.nanoTime() - start;
+        rebuilds++;
+        return true;
+    }
+
+    /**
+     * Builds an alias table from the weights with Vose's method. The words
+     * below the average weight are paired, one at a time, with a word above
+     * it that tops up their slot.
+     *
+     * @param table The slots to fill, one per word.
+     */
+    private void buildTable(long[] table)
+    {
+        int size = weights.length;
+        double total = 0;
+        for (float weight : weights)
+        {
+            total += weight;
+        }
+        // * small words are stacked from the front of work, large ones from
+        // the back; a word is on at most one stack, so they never meet
+        int small = 0;
+        int large = 0;
+        for (int i = 0; i < size; i++)
+        {
+            scaled[i] = (float) (weights[i] * size / total);
+            if (scaled[i] < 1f)
+                work[small++] = i;
+            else
+                work[size - ++large] = i;
+        }
+        while (small > 0 && large > 0)
+        {
+            int less = work[--small];
+            int more = work[size - large];
+            table[less] = threshold(scaled[less]) << 32 | more;
+            scaled[more] -= 1f - scaled[less];
+            if (scaled[more] < 1f)
+            {
+                large--;
+                work[small++] = more;
+            }
+        }
+        // * what is left is 1 up to rounding and always keeps its own word
+        while (small > 0)
+        {
+            int i = work[--small];
+            table[i] = ALWAYS << 32 | i;
+        }
+        while (large > 0)
+        {
+            int i = work[size - large--];
+            table[i] = ALWAYS << 32 | i;
+        }
+    }
+
+    /**
+     * Converts the chance of keeping a slot's own word to a threshold out of
+     * 2^31.
+     *
+     * @param chance The chance, from 0 to 1.
+     * @return the threshold.
+     */
+    private static long threshold(float chance)
+    {
+        return Math.max(0, Math.min(ALWAYS, (long) (chance * (double) ALWAYS)));
+    }
+
+    /**
+     * Computes the weight of a word from its packed counts: a bell curve
+     * around the target solve rate, raised to at least MIN_WEIGHT.
+     *
+     * @param packed The packed counts of the word.
+     * @return the weight, from MIN_WEIGHT to 1.
+     */
+    private double weightOf(int packed)
+    {
+        int games = packed >>> 16;
+        int wins = packed & MAX_COUNT;
+        double solveRate = (wins + PRIOR_GAMES * targetSolveRate)
+                / (games + PRIOR_GAMES);
+        double distance = (solveRate - targetSolveRate) / SPREAD;
+        return MIN_WEIGHT
+                + (1 - MIN_WEIGHT) * Math.exp(-distance * distance / 2);
+    }
+
+    /**
+     * Gets the weight of a word from its latest counts, which the table
+     * takes up at its next rebuild.
+     *
+     * @param index The index of the word in the corpus.
+     * @return the weight, from MIN_WEIGHT to 1.
+     */
+    public double getWeight(int index)
+    {
+        return weightOf(counts.get(index));
+    }
+
+    /**
+     * Gets the number of games recorded for a word, halved whenever it
+     * reaches 65535.
+     *
+     * @param index The index of the word in the corpus.
+     * @return the number of games.
+     */
+    public int getGames(int index)
+    {
+        return counts.get(index) >>> 16;
+    }
+
+    /**
+     * Gets the number of wins recorded for a word, halved along with its
+     * games.
+     *
+     * @param index The index of the word in the corpus.
+     * @return the number of wins.
+     */
+    public int getWins(int index)
+    {
+        return counts.get(index) & MAX_COUNT;
+    }
+
+    /**
+     * Gets the number of outcomes recorded so far.
+     *
+     * @return the number of outcomes.
+     */
+    public long getOutcomes()
+    {
+        return outcomes.sum();
+    }
+
+    /**
+     * Gets the number of tables built so far.
+     *
+     * @return the number of rebuilds.
+     */
+    public int getRebuilds()
+    {
+        return rebuilds;
+    }
+
+    /**
+     * Gets the time the last rebuild took.
+     *
+     * @return the time in nanoseconds, or 0 before the first rebuild.
+     */
+    public long getLastRebuildNanos()
+    {
+        return lastRebuildNanos;
+    }
+
+    /**
+     * Gets the words that are weighted.
+     *
+     * @return the corpus.
+     */
+    public WordCorpus getCorpus()
+    {
+        return corpus;
+    }
+}